@@ -0,0 +1,835 @@
+package Travel_App;
+
+import java.util.*;
+
+/**
+ * CompactWeightedGraph object is a compressed-sparse-row (CSR) implementation of the ReadOnlyWeightedGraphADT
+ * Location names are interned to dense int ids and the edges are stored in primitive arrays
+ * (offsets, targets and weights) rather than one Edges object per edge
+ *
+ * The graph is immutable once built - use CompactWeightedGraph.Builder to create one, or VersionedWeightedGraph
+ * to derive changed versions of it. A derived version shares the edge arrays of the version it came from, so the
+ * edges of a vertex are found through its own start and end index rather than the next vertex's start
+ *
+ * @author usman
+ */
+
+public class CompactWeightedGraph implements ReadOnlyWeightedGraphADT {
+
+    //scales the A* great-circle heuristic slightly below the true distance so it always stays a lower bound
+    private static final double HEURISTIC_SCALE = 1.0 - 1e-9;
+
+    //the location name of each vertex (indexed by vertex id)
+    private final String[] names;
+    //maps each location name to its vertex id
+    private final Map<String, Integer> ids;
+    //the latitude of each vertex (NaN if the vertex was added without a location)
+    private final double[] latitudes;
+    //the longitude of each vertex (NaN if the vertex was added without a location)
+    private final double[] longitudes;
+    //the edges of vertex v are stored between starts[v] (inclusive) and ends[v] (exclusive)
+    private final int[] starts;
+    //the index after the last edge of each vertex
+    private final int[] ends;
+    //the end vertex id of each edge (a derived version may share the array and not use every slot)
+    private final int[] targets;
+    //the distance (weight) of each edge
+    private final double[] weights;
+    //the number of edges of the graph
+    private final int edgeCount;
+    //the version of the graph (0 for a built graph, then one more for each change published by VersionedWeightedGraph)
+    private final long version;
+    //the same graph with every edge reversed (used by the bidirectional search, built on first use)
+    private volatile CompactWeightedGraph reverse;
+    //true if no edge is shorter than the A* heuristic between its two locations (null until it is first needed)
+    private volatile Boolean heuristicAdmissible;
+
+    /**
+     * Constructor - initialises the graph from already built CSR arrays (used by the Builder)
+     * @param names
+     * @param ids
+     * @param latitudes
+     * @param longitudes
+     * @param offsets
+     * @param targets
+     * @param weights
+     */
+    CompactWeightedGraph(String[] names, Map<String, Integer> ids, double[] latitudes, double[] longitudes,
+                         int[] offsets, int[] targets, double[] weights) {
+        this(names, ids, latitudes, longitudes, offsets, Arrays.copyOfRange(offsets, 1, names.length + 1),
+                targets, weights, targets.length, 0);
+    }
+
+    /**
+     * Constructor - initialises a version of a graph whose edge arrays may be shared with other versions
+     * (used by VersionedWeightedGraph)
+     * @param names
+     * @param ids
+     * @param latitudes
+     * @param longitudes
+     * @param starts
+     * @param ends
+     * @param targets
+     * @param weights
+     * @param edgeCount
+     * @param version
+     */
+    CompactWeightedGraph(String[] names, Map<String, Integer> ids, double[] latitudes, double[] longitudes,
+                         int[] starts, int[] ends, int[] targets, double[] weights, int edgeCount, long version) {
+        this.names = names;
+        this.ids = ids;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.starts = starts;
+        this.ends = ends;
+        this.targets = targets;
+        this.weights = weights;
+        this.edgeCount = edgeCount;
+        this.version = version;
+    }
+
+    /**
+     * creates a graph from CSR arrays (used to load a saved graph)
+     * @param names
+     * @param latitudes
+     * @param longitudes
+     * @param offsets
+     * @param targets
+     * @param weights
+     * @return the graph
+     */
+    static CompactWeightedGraph fromArrays(String[] names, double[] latitudes, double[] longitudes,
+                                           int[] offsets, int[] targets, double[] weights) {
+        Map<String, Integer> ids = new HashMap<>(names.length * 2);
+        for (int vertex = 0; vertex < names.length; vertex++) {
+            ids.put(names[vertex], vertex);
+        }
+        return new CompactWeightedGraph(names, ids, latitudes, longitudes, offsets, targets, weights);
+    }
+
+    /**
+     * gets the number of vertices (locations) in the graph
+     * @return the vertex count
+     */
+    public int vertexCount() {
+        return names.length;
+    }
+
+    /**
+     * gets the number of edges in the graph
+     * @return the edge count
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * gets the version of the graph
+     * @return 0 for a built graph, otherwise the number of changes published since it was built
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * looks up the vertex id of a location name
+     * @param name
+     * @return the vertex id, or -1 if the location is not in the graph
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * gets the location name of a vertex id
+     * @param vertex
+     * @return the location name
+     */
+    public String nameOf(int vertex) {
+        return names[vertex];
+    }
+
+    /**
+     * gets the latitude of a vertex
+     * @param vertex
+     * @return latitude, or NaN if unknown
+     */
+    public double latitudeOf(int vertex) {
+        return latitudes[vertex];
+    }
+
+    /**
+     * gets the longitude of a vertex
+     * @param vertex
+     * @return longitude, or NaN if unknown
+     */
+    public double longitudeOf(int vertex) {
+        return longitudes[vertex];
+    }
+
+    /**
+     * gets the index of the first edge of a vertex
+     * @param vertex
+     * @return the first edge index (inclusive)
+     */
+    public int firstEdge(int vertex) {
+        return starts[vertex];
+    }
+
+    /**
+     * gets the index after the last edge of a vertex
+     * @param vertex
+     * @return the last edge index (exclusive)
+     */
+    public int endEdge(int vertex) {
+        return ends[vertex];
+    }
+
+    /**
+     * gets the start index of the edges of every vertex (shared, not copied - used by VersionedWeightedGraph)
+     * @return the array
+     */
+    int[] starts() {
+        return starts;
+    }
+
+    /**
+     * gets the end index of the edges of every vertex (shared, not copied - used by VersionedWeightedGraph)
+     * @return the array
+     */
+    int[] ends() {
+        return ends;
+    }
+
+    /**
+     * gets the end vertex of every edge (shared, not copied - used by VersionedWeightedGraph)
+     * @return the array (which may have unused slots)
+     */
+    int[] targets() {
+        return targets;
+    }
+
+    /**
+     * gets the distance (weight) of every edge (shared, not copied - used by VersionedWeightedGraph)
+     * @return the array (which may have unused slots)
+     */
+    double[] weights() {
+        return weights;
+    }
+
+    /**
+     * gets the end vertex of an edge
+     * @param edge
+     * @return the end vertex id
+     */
+    public int edgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * gets the distance (weight) of an edge
+     * @param edge
+     * @return the distance (weight)
+     */
+    public double edgeWeight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * counts the connected components of the graph (treating every edge as two-way)
+     * a graph built for route planning should have exactly one
+     * @return the number of separate groups of vertices
+     */
+    public int countComponents() {
+        UnionFind components = new UnionFind(names.length);
+        for (int vertex = 0; vertex < names.length; vertex++) {
+            for (int edge = starts[vertex]; edge < ends[vertex]; edge++) {
+                components.union(vertex, targets[edge]);
+            }
+        }
+        return components.count;
+    }
+
+    /**
+     * This method creates a string representation of the weighted graph
+     * @return String of the locations and all the connected locations and their respective distances
+     */
+    @Override
+    public String printGraph() {
+        StringBuilder result = new StringBuilder();
+
+        for (int vertex = 0; vertex < names.length; vertex++) {
+            //adds the start location to the results string (in a user-friendly formatted layout)
+            result.append("Location: ").append(names[vertex]).append(" is connected to: \n");
+
+            //adds the names of the connected locations and their distances to the start location
+            for (int edge = starts[vertex]; edge < ends[vertex]; edge++) {
+                result.append(" - ").append(names[targets[edge]]).append(" by a distance of ").append(String.format("%.1f KM.\n", weights[edge]));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * This method implements Dijkstra's algorithm - uses the start location to find the shortest distances to all the other locations
+     * @param startLocation
+     * @return a map of the shortest distances of all the locations from the starting location
+     */
+    @Override
+    public Map<String, Double> dijkstraAlgorithm(String startLocation) {
+        int source = idOf(startLocation);
+        if (source < 0) {
+            // an unknown start location only reaches itself
+            Map<String, Double> result = new HashMap<>(names.length * 2);
+            for (String name : names) {
+                result.put(name, Double.MAX_VALUE);
+            }
+            result.put(startLocation, 0.0);
+            return result;
+        }
+        return shortestDistances(source).toMap();
+    }
+
+    /**
+     * Finds the shortest distances from a start location to all the other locations
+     * @param startLocation
+     * @return a primitive view of the distances (valid until the next search on the calling thread)
+     */
+    public DistanceView shortestDistances(String startLocation) {
+        int source = idOf(startLocation);
+        if (source < 0) {
+            throw new IllegalArgumentException("Unknown location: " + startLocation);
+        }
+        return shortestDistances(source);
+    }
+
+    /**
+     * Dijkstra's algorithm over the vertex ids using an indexed min-heap with decrease-key
+     * The distances, predecessors and heap are the calling thread's reusable scratch buffers, so no objects
+     * are allocated per vertex or per edge
+     * @param source
+     * @return a primitive view of the distances (valid until the next search on the calling thread)
+     */
+    public DistanceView shortestDistances(int source) {
+        long start = Metrics.start();
+        SearchScratch scratch = SearchScratch.current();
+        scratch.prepare(names.length);
+        double[] distances = scratch.distances;
+        IndexedMinHeap heap = scratch.heap;
+        int settled = 0;
+        long relaxed = 0;
+        int pushes = 1;
+
+        scratch.reach(source, 0.0, -1);
+        heap.insertOrDecrease(source, 0.0);
+
+        while (!heap.isEmpty()) {
+            // settles the vertex with the smallest distance
+            int vertex = heap.pollMin();
+            settled++;
+            double distance = distances[vertex];
+
+            // relaxes the edges of the settled vertex
+            relaxed += ends[vertex] - starts[vertex];
+            for (int edge = starts[vertex]; edge < ends[vertex]; edge++) {
+                int neighbour = targets[edge];
+                double newDistance = distance + weights[edge];
+                if (newDistance < distances[neighbour]) {
+                    scratch.reach(neighbour, newDistance, vertex);
+                    heap.insertOrDecrease(neighbour, newDistance);
+                    pushes++;
+                }
+            }
+        }
+        Metrics.recordSearch(Metrics.Timer.SHORTEST_DISTANCES, start, settled, relaxed, pushes);
+        return new DistanceView(this, source, distances, scratch.predecessors);
+    }
+
+    /**
+     * Finds the shortest path between two locations - the search stops as soon as the end location is settled
+     * @param startLocation
+     * @param endLocation
+     * @return the shortest distance and the locations on the path
+     */
+    @Override
+    public PathResult shortestPath(String startLocation, String endLocation) {
+        return shortestPath(startLocation, endLocation, SearchStrategy.DIJKSTRA);
+    }
+
+    /**
+     * Finds the shortest path between two locations using the chosen search strategy
+     * @param startLocation
+     * @param endLocation
+     * @param strategy
+     * @return the shortest distance, the locations on the path and the number of settled vertices
+     */
+    @Override
+    public PathResult shortestPath(String startLocation, String endLocation, SearchStrategy strategy) {
+        int source = idOf(startLocation);
+        if (source < 0) {
+            throw new IllegalArgumentException("Unknown location: " + startLocation);
+        }
+        int target = idOf(endLocation);
+        if (target < 0) {
+            throw new IllegalArgumentException("Unknown location: " + endLocation);
+        }
+        return shortestPath(source, target, strategy);
+    }
+
+    /**
+     * Finds the shortest path between two vertex ids using the chosen search strategy
+     * @param source
+     * @param target
+     * @param strategy
+     * @return the shortest distance, the locations on the path and the number of settled vertices
+     */
+    public PathResult shortestPath(int source, int target, SearchStrategy strategy) {
+        switch (strategy) {
+            case A_STAR:
+                // a changed route can be shorter than the great-circle distance, and then A* could miss the shortest path
+                return isHeuristicAdmissible() ? aStar(source, target) : shortestPath(source, target);
+            case BIDIRECTIONAL:
+                return bidirectional(source, target);
+            default:
+                return shortestPath(source, target);
+        }
+    }
+
+    /**
+     * Dijkstra's algorithm between two vertex ids that stops once the target is settled
+     * so the work is proportional to the ball of vertices closer to the source than the target
+     * @param source
+     * @param target
+     * @return the shortest distance, the locations on the path and the number of settled vertices
+     */
+    public PathResult shortestPath(int source, int target) {
+        long start = Metrics.start();
+        SearchScratch scratch = SearchScratch.current();
+        scratch.prepare(names.length);
+        double[] distances = scratch.distances;
+        IndexedMinHeap heap = scratch.heap;
+        int settled = 0;
+        long relaxed = 0;
+        int pushes = 1;
+
+        scratch.reach(source, 0.0, -1);
+        heap.insertOrDecrease(source, 0.0);
+
+        while (!heap.isEmpty()) {
+            int vertex = heap.pollMin();
+            settled++;
+            if (vertex == target) {
+                break;
+            }
+            double distance = distances[vertex];
+            relaxed += ends[vertex] - starts[vertex];
+            for (int edge = starts[vertex]; edge < ends[vertex]; edge++) {
+                int neighbour = targets[edge];
+                double newDistance = distance + weights[edge];
+                if (newDistance < distances[neighbour]) {
+                    scratch.reach(neighbour, newDistance, vertex);
+                    heap.insertOrDecrease(neighbour, newDistance);
+                    pushes++;
+                }
+            }
+        }
+        Metrics.recordSearch(Metrics.Timer.SHORTEST_PATH, start, settled, relaxed, pushes);
+        return pathTo(target, distances[target], scratch.predecessors, settled);
+    }
+
+    /**
+     * A* search between two vertex ids - the heap is ordered by the distance so far plus the great-circle
+     * distance to the target, which never overestimates the remaining distance of a geographic route
+     * A vertex whose distance improves after it was settled is searched again, so rounding in the
+     * heuristic cannot make the answer wrong
+     * @param source
+     * @param target
+     * @return the shortest distance, the locations on the path and the number of settled vertices
+     */
+    private PathResult aStar(int source, int target) {
+        long start = Metrics.start();
+        SearchScratch scratch = SearchScratch.current();
+        scratch.prepare(names.length);
+        double[] distances = scratch.distances;
+        IndexedMinHeap heap = scratch.heap;
+        double targetLatitude = latitudes[target];
+        double targetLongitude = longitudes[target];
+        int settled = 0;
+        long relaxed = 0;
+        int pushes = 1;
+
+        scratch.reach(source, 0.0, -1);
+        heap.insertOrDecrease(source, remainingDistance(source, targetLatitude, targetLongitude));
+
+        while (!heap.isEmpty()) {
+            int vertex = heap.pollMin();
+            settled++;
+            if (vertex == target) {
+                break;
+            }
+            double distance = distances[vertex];
+            relaxed += ends[vertex] - starts[vertex];
+            for (int edge = starts[vertex]; edge < ends[vertex]; edge++) {
+                int neighbour = targets[edge];
+                double newDistance = distance + weights[edge];
+                if (newDistance < distances[neighbour]) {
+                    scratch.reach(neighbour, newDistance, vertex);
+                    heap.insertOrDecrease(neighbour, newDistance + remainingDistance(neighbour, targetLatitude, targetLongitude));
+                    pushes++;
+                }
+            }
+        }
+        Metrics.recordSearch(Metrics.Timer.SHORTEST_PATH, start, settled, relaxed, pushes);
+        return pathTo(target, distances[target], scratch.predecessors, settled);
+    }
+
+    /**
+     * the A* heuristic - a lower bound of the distance from a vertex to the target
+     * @param vertex
+     * @param targetLatitude
+     * @param targetLongitude
+     * @return the great-circle distance (0 if either location has no coordinates)
+     */
+    private double remainingDistance(int vertex, double targetLatitude, double targetLongitude) {
+        double distance = Utility.calculateDistance(latitudes[vertex], longitudes[vertex], targetLatitude, targetLongitude);
+        // scaled down slightly so floating point rounding never makes the bound overestimate an edge
+        return Double.isNaN(distance) ? 0.0 : distance * HEURISTIC_SCALE;
+    }
+
+    /**
+     * gets the A* heuristic between two vertex ids - a lower bound of the distance between them if
+     * isHeuristicAdmissible is true
+     * @param vertex
+     * @param target
+     * @return the great-circle distance (0 if either location has no coordinates)
+     */
+    double distanceBound(int vertex, int target) {
+        return remainingDistance(vertex, latitudes[target], longitudes[target]);
+    }
+
+    /**
+     * checks whether the A* heuristic is a lower bound of every path - it is if no edge is shorter than the
+     * heuristic between its two locations (the great-circle distances then add up to a bound of any route)
+     * the edges are checked on first use, unless the graph is a version whose edges were known to pass
+     * @return true if A* finds the shortest paths of this graph
+     */
+    boolean isHeuristicAdmissible() {
+        Boolean admissible = heuristicAdmissible;
+        if (admissible == null) {
+            admissible = Boolean.TRUE;
+            check:
+            for (int vertex = 0; vertex < names.length; vertex++) {
+                for (int edge = starts[vertex]; edge < ends[vertex]; edge++) {
+                    if (!admitsHeuristic(vertex, targets[edge], weights[edge])) {
+                        admissible = Boolean.FALSE;
+                        break check;
+                    }
+                }
+            }
+            heuristicAdmissible = admissible;
+        }
+        return admissible;
+    }
+
+    /**
+     * records that no edge is shorter than the great-circle distance between its two locations, so A* can be used
+     * without checking the edges (used for graphs built from great-circle distances, before they are shared)
+     */
+    void markHeuristicAdmissible() {
+        heuristicAdmissible = Boolean.TRUE;
+    }
+
+    /**
+     * works out whether the A* heuristic is a lower bound of this version from the previous version and the edges
+     * changed since, so a change only checks its own edges (used by VersionedWeightedGraph before it publishes a version)
+     * @param previous
+     * @param changes the edge changes from the previous version to this one
+     */
+    void inheritHeuristicAdmissible(CompactWeightedGraph previous, List<EdgeChange> changes) {
+        if (previous.heuristicAdmissible != Boolean.TRUE) {
+            // not known yet (or an edge failed, which a change may have fixed) - it is checked on first use
+            return;
+        }
+        for (EdgeChange change : changes) {
+            if (!admitsHeuristic(change.from(), change.to(), change.newWeight())) {
+                heuristicAdmissible = Boolean.FALSE;
+                return;
+            }
+        }
+        heuristicAdmissible = Boolean.TRUE;
+    }
+
+    /**
+     * private method that checks an edge is not shorter than the A* heuristic between its two locations
+     * @param from
+     * @param to
+     * @param weight
+     * @return true if the edge is at least as long (or removed), false if it is shorter or a location has no coordinates
+     */
+    private boolean admitsHeuristic(int from, int to, double weight) {
+        double bound = Utility.calculateDistance(latitudes[from], longitudes[from], latitudes[to], longitudes[to]);
+        return weight >= bound * HEURISTIC_SCALE;
+    }
+
+    /**
+     * Bidirectional Dijkstra between two vertex ids - one search runs forward from the source and one
+     * runs backward (over the reversed edges) from the target, always expanding the side with the smaller key.
+     * It stops when the two smallest keys together can no longer improve on the best meeting point
+     * @param source
+     * @param target
+     * @return the shortest distance, the locations on the path and the number of settled vertices
+     */
+    private PathResult bidirectional(int source, int target) {
+        long start = Metrics.start();
+        CompactWeightedGraph reverse = reverse();
+        SearchScratch forward = SearchScratch.current();
+        SearchScratch backward = SearchScratch.currentBackward();
+        forward.prepare(names.length);
+        backward.prepare(names.length);
+
+        forward.reach(source, 0.0, -1);
+        forward.heap.insertOrDecrease(source, 0.0);
+        backward.reach(target, 0.0, -1);
+        backward.heap.insertOrDecrease(target, 0.0);
+
+        double best = source == target ? 0.0 : Double.POSITIVE_INFINITY;
+        int meeting = source == target ? source : -1;
+        int settled = 0;
+        long relaxed = 0;
+        int pushes = 2;
+
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()
+                && forward.heap.minKey() + backward.heap.minKey() < best) {
+            boolean forwardStep = forward.heap.minKey() <= backward.heap.minKey();
+            CompactWeightedGraph side = forwardStep ? this : reverse;
+            SearchScratch scratch = forwardStep ? forward : backward;
+            double[] otherDistances = forwardStep ? backward.distances : forward.distances;
+
+            int vertex = scratch.heap.pollMin();
+            settled++;
+            double distance = scratch.distances[vertex];
+            relaxed += side.ends[vertex] - side.starts[vertex];
+            for (int edge = side.starts[vertex]; edge < side.ends[vertex]; edge++) {
+                int neighbour = side.targets[edge];
+                double newDistance = distance + side.weights[edge];
+                if (newDistance < scratch.distances[neighbour]) {
+                    scratch.reach(neighbour, newDistance, vertex);
+                    scratch.heap.insertOrDecrease(neighbour, newDistance);
+                    pushes++;
+                }
+                // checks whether the two searches now meet at the neighbour with a shorter path
+                double through = scratch.distances[neighbour] + otherDistances[neighbour];
+                if (through < best) {
+                    best = through;
+                    meeting = neighbour;
+                }
+            }
+        }
+
+        Metrics.recordSearch(Metrics.Timer.SHORTEST_PATH, start, settled, relaxed, pushes);
+        if (meeting < 0) {
+            return new PathResult(Double.POSITIVE_INFINITY, Collections.emptyList(), settled);
+        }
+
+        // the forward predecessors lead from the meeting vertex back to the source
+        // and the backward predecessors lead from the meeting vertex on to the target
+        ArrayList<String> path = new ArrayList<>();
+        for (int vertex = meeting; vertex >= 0; vertex = forward.predecessors[vertex]) {
+            path.add(names[vertex]);
+        }
+        Collections.reverse(path);
+        for (int vertex = backward.predecessors[meeting]; vertex >= 0; vertex = backward.predecessors[vertex]) {
+            path.add(names[vertex]);
+        }
+        return new PathResult(best, path, settled);
+    }
+
+    /**
+     * gets the graph with every edge reversed (built on first use and then shared)
+     * @return the reversed graph (sharing this graph's names and coordinates)
+     */
+    CompactWeightedGraph reverse() {
+        CompactWeightedGraph result = reverse;
+        if (result == null) {
+            int vertexCount = names.length;
+            int[] reverseOffsets = new int[vertexCount + 1];
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                for (int edge = starts[vertex]; edge < ends[vertex]; edge++) {
+                    reverseOffsets[targets[edge] + 1]++;
+                }
+            }
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                reverseOffsets[vertex + 1] += reverseOffsets[vertex];
+            }
+            int[] reverseTargets = new int[edgeCount];
+            double[] reverseWeights = new double[edgeCount];
+            int[] next = Arrays.copyOf(reverseOffsets, vertexCount);
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                for (int edge = starts[vertex]; edge < ends[vertex]; edge++) {
+                    int position = next[targets[edge]]++;
+                    reverseTargets[position] = vertex;
+                    reverseWeights[position] = weights[edge];
+                }
+            }
+            result = new CompactWeightedGraph(names, ids, latitudes, longitudes, reverseOffsets, reverseTargets, reverseWeights);
+            result.reverse = this;
+            reverse = result;
+        }
+        return result;
+    }
+
+    /**
+     * walks the predecessor chain back from the target to build the path
+     * @param target
+     * @param distance
+     * @param predecessors
+     * @param settled
+     * @return the path result (empty if the target was not reached)
+     */
+    PathResult pathTo(int target, double distance, int[] predecessors, int settled) {
+        if (distance == Double.POSITIVE_INFINITY) {
+            return new PathResult(distance, Collections.emptyList(), settled);
+        }
+        ArrayList<String> path = new ArrayList<>();
+        for (int vertex = target; vertex >= 0; vertex = predecessors[vertex]) {
+            path.add(names[vertex]);
+        }
+        Collections.reverse(path);
+        return new PathResult(distance, path, settled);
+    }
+
+    /**
+     * Builder object is used to create a CompactWeightedGraph
+     * Vertices are interned to dense ids in the order they are first seen and edges are collected
+     * in growable primitive arrays until build() packs them into the CSR layout
+     */
+    public static class Builder {
+
+        //initial capacity of the vertex and edge arrays
+        private static final int INITIAL_CAPACITY = 16;
+
+        //maps each location name to its vertex id
+        private final Map<String, Integer> ids = new HashMap<>();
+        //the location names in vertex id order
+        private final List<String> names = new ArrayList<>();
+        //the latitude of each vertex
+        private double[] latitudes = new double[INITIAL_CAPACITY];
+        //the longitude of each vertex
+        private double[] longitudes = new double[INITIAL_CAPACITY];
+
+        //the number of edges added so far
+        private int edgeCount;
+        //the start vertex of each edge
+        private int[] edgeSources = new int[INITIAL_CAPACITY];
+        //the end vertex of each edge
+        private int[] edgeTargets = new int[INITIAL_CAPACITY];
+        //the distance (weight) of each edge
+        private double[] edgeWeights = new double[INITIAL_CAPACITY];
+
+        /**
+         * adds a vertex without a location (its coordinates are unknown until an edge references it)
+         * @param vertex
+         * @return the vertex id (the existing id if the vertex was already added)
+         */
+        public int addVertex(String vertex) {
+            Integer id = ids.get(vertex);
+            if (id != null) {
+                return id;
+            }
+            int newId = names.size();
+            ids.put(vertex, newId);
+            names.add(vertex);
+            if (newId == latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, newId * 2);
+                longitudes = Arrays.copyOf(longitudes, newId * 2);
+            }
+            latitudes[newId] = Double.NaN;
+            longitudes[newId] = Double.NaN;
+            return newId;
+        }
+
+        /**
+         * adds a vertex for a location and records its coordinates
+         * @param location
+         * @return the vertex id
+         */
+        public int addVertex(Location location) {
+            return addVertex(location.getName(), location.getLatitude(), location.getLongitude());
+        }
+
+        /**
+         * adds a vertex and records its coordinates
+         * @param vertex
+         * @param latitude
+         * @param longitude
+         * @return the vertex id
+         */
+        public int addVertex(String vertex, double latitude, double longitude) {
+            int id = addVertex(vertex);
+            latitudes[id] = latitude;
+            longitudes[id] = longitude;
+            return id;
+        }
+
+        /**
+         * adds an edge from the start location to the end location (adding either location as a vertex if needed)
+         * @param startLocation
+         * @param endLocation
+         * @param weight
+         */
+        public void addEdge(Location startLocation, Location endLocation, double weight) {
+            addEdge(addVertex(startLocation), addVertex(endLocation), weight);
+        }
+
+        /**
+         * adds an edge between two already added vertex ids
+         * @param source
+         * @param target
+         * @param weight
+         */
+        public void addEdge(int source, int target, double weight) {
+            if (edgeCount == edgeSources.length) {
+                int capacity = edgeCount * 2;
+                edgeSources = Arrays.copyOf(edgeSources, capacity);
+                edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+                edgeWeights = Arrays.copyOf(edgeWeights, capacity);
+            }
+            edgeSources[edgeCount] = source;
+            edgeTargets[edgeCount] = target;
+            edgeWeights[edgeCount] = weight;
+            edgeCount++;
+        }
+
+        /**
+         * packs the collected vertices and edges into an immutable CompactWeightedGraph
+         * the edges of each vertex keep the order in which they were added
+         * @return the built graph
+         */
+        public CompactWeightedGraph build() {
+            int vertexCount = names.size();
+
+            // counting sort of the edges by their start vertex
+            int[] offsets = new int[vertexCount + 1];
+            for (int edge = 0; edge < edgeCount; edge++) {
+                offsets[edgeSources[edge] + 1]++;
+            }
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                offsets[vertex + 1] += offsets[vertex];
+            }
+
+            int[] targets = new int[edgeCount];
+            double[] weights = new double[edgeCount];
+            int[] next = Arrays.copyOf(offsets, vertexCount);
+            for (int edge = 0; edge < edgeCount; edge++) {
+                int position = next[edgeSources[edge]]++;
+                targets[position] = edgeTargets[edge];
+                weights[position] = edgeWeights[edge];
+            }
+
+            return new CompactWeightedGraph(names.toArray(new String[0]), new HashMap<>(ids),
+                    Arrays.copyOf(latitudes, vertexCount), Arrays.copyOf(longitudes, vertexCount),
+                    offsets, targets, weights);
+        }
+    }
+}
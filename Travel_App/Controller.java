@@ -3,6 +3,9 @@
  */
 package Travel_App;
 
+import java.io.IOException;
+import java.util.List;
+
 /**
  * A controller for the UK Travel Planner system.
  * This controller includes the 4 system features that the intended prototype
@@ -37,14 +40,51 @@ public interface Controller {
 	 */
 	String listNearbyDestinations(double latitude, double longitude, int distance);
 
+	/**
+	 * List one page of the destinations within a distance specified by users, in the
+	 * same order as listNearbyDestinations(latitude, longitude, distance).
+	 *
+	 * @param latitude	the latitude coordinate of the user-specified location
+	 * @param longitude	the longitude coordinate of the user-specified location
+	 * @param distance	the distance relative to the given location
+	 * @param offset	the number of ranked cities to skip
+	 * @param limit	the largest number of cities to list
+	 * @return a String representation of the of the information of the retrieved cities.
+	 */
+	String listNearbyDestinations(double latitude, double longitude, int distance, int offset, int limit);
+
 	/**
 	 * Compute and store distances between any two tourist destinations. 
-	 * The result will be print out and saved in a data file
+	 * The result will be print out and saved in a data file. Every distance is held as text
+	 * at once, so page through large datasets with listDistances(offset, limit) or findDistances
+	 * and save them with exportDistances instead.
 	 * 
 	 * @return a String representation of the distances between any two destinations.
 	 */
 	String listDistances();
 
+	/**
+	 * Shows one page of the distances between the tourist destinations, so a viewer
+	 * never has to hold every distance at once. Use exportDistances to save them all.
+	 *
+	 * @param offset	the number of destinations to skip
+	 * @param limit	the largest number of destinations to list
+	 * @return a String representation of the distances from the destinations of the page.
+	 */
+	String listDistances(int offset, int limit);
+
+	/**
+	 * Writes the distances between the tourist destinations to a file one destination
+	 * at a time, so the memory used does not grow with the number of distances.
+	 *
+	 * @param fileName	the file to write
+	 * @param format	TEXT (the listDistances layout), CSV or BINARY
+	 * @param compress	true to gzip the file
+	 * @return the number of destinations written.
+	 * @throws IOException if the file cannot be written
+	 */
+	int exportDistances(String fileName, DistanceFormat format, boolean compress) throws IOException;
+
 	/**
 	 * List the shortest travel path that covers all the desired cities.
 	 *
@@ -54,4 +94,94 @@ public interface Controller {
 	 */
 	String listShortestPath(String[] cities2visit);
 
+	/**
+	 * List the shortest travel path that covers all the desired cities, choosing how
+	 * the visiting order is found.
+	 *
+	 * @param cities2visit an array storing the cities a traveller would like to visit
+	 * @param mode         HEURISTIC for a fast near-optimal order; EXACT for the provably
+	 *                     shortest order of small itineraries (falling back to the
+	 *                     heuristic order for long itineraries or when it takes too long)
+	 * @return a String representation the shortest travel path that covers all the
+	 * desired cities.
+	 */
+	String listShortestPath(String[] cities2visit, RouteMode mode);
+
+	/**
+	 * Finds either all destination cities or a specific city, as typed rows.
+	 * listDestinations renders these rows as text.
+	 *
+	 * @param destination	"all" for every destination city (ordered by name);
+	 *                      specific city name, e.g. "London", for the specified city.
+	 * @return the destination rows.
+	 */
+	List<DestinationRow> findDestinations(String destination);
+
+	/**
+	 * Finds one page of the destinations within a distance of a location, ranked by
+	 * cost and then by distance, as typed hits. listNearbyDestinations renders these
+	 * hits as text.
+	 *
+	 * @param latitude	the latitude coordinate of the user-specified location
+	 * @param longitude	the longitude coordinate of the user-specified location
+	 * @param distance	the distance relative to the given location
+	 * @param offset	the number of ranked cities to skip
+	 * @param limit	the largest number of cities to return
+	 * @return the nearby destinations in rank order.
+	 */
+	List<NearbyHit> findNearbyDestinations(double latitude, double longitude, int distance, int offset, int limit);
+
+	/**
+	 * Finds the shortest distances between the tourist destinations, one row per
+	 * destination with the distance to every destination.
+	 * The rows are created as they are iterated, so they can be written out without
+	 * holding every distance as text. listDistances renders these rows as text.
+	 *
+	 * @return the distance rows.
+	 */
+	Iterable<DistanceRow> findDistances();
+
+	/**
+	 * Finds one page of the distance rows.
+	 *
+	 * @param offset	the number of destinations to skip
+	 * @param limit	the largest number of destinations to return
+	 * @return the distance rows of the page.
+	 */
+	List<DistanceRow> findDistances(int offset, int limit);
+
+	/**
+	 * Plans the shortest travel path that covers all the desired cities, as typed legs.
+	 * listShortestPath renders the plan as text.
+	 *
+	 * @param cities2visit an array storing the cities a traveller would like to visit
+	 * @param mode         how the visiting order is found (HEURISTIC or EXACT)
+	 * @return the planned route.
+	 */
+	RoutePlan planShortestPath(String[] cities2visit, RouteMode mode);
+
+	/**
+	 * List the routes between two cities that trade distance off against the cost of
+	 * the cities passed through, marking the single best route for a traveller who
+	 * values one cost point (1 for a Low cost city, 2 for Medium, 3 for High) at
+	 * costWeight km.
+	 *
+	 * @param from       the city the routes start at
+	 * @param to         the city the routes end at
+	 * @param costWeight the km one cost point is worth
+	 * @return a String representation of the routes, from the shortest to the cheapest.
+	 */
+	String listParetoRoutes(String from, String to, double costWeight);
+
+	/**
+	 * Finds the Pareto-optimal routes between two cities - the routes no other route
+	 * is both shorter and cheaper than - as typed routes. listParetoRoutes renders
+	 * them as text.
+	 *
+	 * @param from the city the routes start at
+	 * @param to   the city the routes end at
+	 * @return the routes from the shortest to the cheapest.
+	 */
+	ParetoFront findParetoRoutes(String from, String to);
+
 }
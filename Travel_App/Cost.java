@@ -0,0 +1,72 @@
+package Travel_App;
+
+/**
+ * The living cost categories of a destination, from cheapest to most expensive
+ * The ordinal of a cost is its rank (nearby destinations are listed cheapest first)
+ *
+ * @author usman
+ */
+
+public enum Cost {
+    /**
+     * a cheap destination
+     */
+    LOW("Low"),
+
+    /**
+     * a destination of average cost
+     */
+    MEDIUM("Medium"),
+
+    /**
+     * an expensive destination
+     */
+    HIGH("High");
+
+    //every cost in code order (values() copies its array on each call)
+    private static final Cost[] CODES = values();
+
+    //the name of the cost as written in the CSV file
+    private final String label;
+
+    /**
+     * Constructor - initialises the label of the cost
+     * @param label
+     */
+    Cost(String label) {
+        this.label = label;
+    }
+
+    /**
+     * gets the cost with a code
+     * @param code the ordinal of the cost
+     * @return the cost
+     */
+    public static Cost fromCode(int code) {
+        return CODES[code];
+    }
+
+    /**
+     * gets the cost with a label
+     * @param label "Low", "Medium" or "High"
+     * @return the cost
+     * @throws IllegalArgumentException if the label is not a cost
+     */
+    public static Cost fromLabel(String label) {
+        for (Cost cost : CODES) {
+            if (cost.label.equals(label)) {
+                return cost;
+            }
+        }
+        throw new IllegalArgumentException("unknown cost '" + label + "'");
+    }
+
+    /**
+     * gets the label of the cost as written in the CSV file
+     * @return the label
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,428 @@
+package Travel_App;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * DestinationCsvReader object reads a destinations CSV file (Name, Description, Latitude, Longitude, Cost)
+ * The file is read through a FileChannel in chunks that end at a record boundary - a light scan that only follows
+ * the quoting finds the last line break outside a quoted field. The chunks are then split into records by an
+ * RFC-4180 parser (so quoted fields may contain commas, doubled quotes ("") and line breaks) and converted into
+ * Location objects in parallel, and the locations are handed to the consumer in file order
+ *
+ * A row that cannot be converted is reported as a RowError and the rest of the file is still read
+ *
+ * @author usman
+ */
+
+public final class DestinationCsvReader {
+
+    //the number of bytes parsed by one parallel task (a chunk grows if a single record is longer)
+    static final int CHUNK_SIZE = 1 << 19;
+    //the number of fields of a destination row
+    private static final int FIELD_COUNT = 5;
+
+    //the parser states
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    //the number of chunks that may be parsing at the same time
+    private final int maxInFlight = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * RowError is a row of the file that could not be turned into a location
+     * @param line the line of the file the row starts on
+     * @param message why the row was rejected
+     */
+    public record RowError(long line, String message) {
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+
+    /**
+     * Result object is the summary of reading a file
+     */
+    public static final class Result {
+
+        //the number of locations handed to the consumer
+        private final long locationCount;
+        //the rows that were rejected
+        private final List<RowError> errors;
+
+        /**
+         * Constructor - initialises the location count and the errors
+         * @param locationCount
+         * @param errors
+         */
+        Result(long locationCount, List<RowError> errors) {
+            this.locationCount = locationCount;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * gets the number of locations read
+         * @return the location count
+         */
+        public long getLocationCount() {
+            return locationCount;
+        }
+
+        /**
+         * gets the rows that were rejected (in file order)
+         * @return the row errors
+         */
+        public List<RowError> getErrors() {
+            return errors;
+        }
+    }
+
+    /**
+     * reads the file and hands every location to the consumer (on the calling thread, in file order)
+     * the first record of the file is the header and is skipped
+     * @param file
+     * @param consumer
+     * @return the number of locations read and the rejected rows
+     * @throws IOException if the file cannot be read
+     */
+    public Result read(Path file, Consumer<Location> consumer) throws IOException {
+        List<RowError> errors = new ArrayList<>();
+        long[] locationCount = new long[1];
+        ArrayDeque<CompletableFuture<Parser>> inFlight = new ArrayDeque<>();
+        Consumer<Parser> chunks = chunk -> {
+            // parses the chunk in the background and waits for the oldest chunk if too many are pending
+            inFlight.add(CompletableFuture.supplyAsync(chunk::parse));
+            while (inFlight.size() > maxInFlight) {
+                deliver(inFlight.poll().join(), consumer, errors, locationCount);
+            }
+        };
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] bytes = new byte[CHUNK_SIZE];
+            int length = fill(channel, bytes, 0);
+            if (length >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF) {
+                // skips the UTF-8 byte order mark
+                length -= 3;
+                System.arraycopy(bytes, 3, bytes, 0, length);
+                length = fill(channel, bytes, length);
+            }
+
+            RecordSplitter splitter = new RecordSplitter();
+            long chunkLine = 1;
+            boolean firstChunk = true;
+            int scanned = 0;
+            while (length == bytes.length) {
+                int boundary = splitter.lastBoundary(bytes, scanned, length);
+                scanned = length;
+                if (boundary < 0) {
+                    // one record is longer than the chunk, so the chunk grows until the record ends
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                } else {
+                    // the bytes after the last record boundary start the next chunk
+                    int rest = length - boundary;
+                    byte[] next = new byte[Math.max(CHUNK_SIZE, rest * 2)];
+                    System.arraycopy(bytes, boundary, next, 0, rest);
+                    chunks.accept(new Parser(bytes, boundary, chunkLine, firstChunk));
+                    chunkLine = splitter.boundaryLine;
+                    firstChunk = false;
+                    bytes = next;
+                    length = rest;
+                    scanned = rest;
+                }
+                length = fill(channel, bytes, length);
+            }
+            chunks.accept(new Parser(bytes, length, chunkLine, firstChunk));
+        }
+
+        while (!inFlight.isEmpty()) {
+            deliver(inFlight.poll().join(), consumer, errors, locationCount);
+        }
+        return new Result(locationCount[0], errors);
+    }
+
+    /**
+     * reads from the channel until the bytes are full or the file ends
+     * @param channel
+     * @param bytes
+     * @param length the number of bytes already in the array
+     * @return the number of bytes in the array
+     * @throws IOException if the file cannot be read
+     */
+    private static int fill(FileChannel channel, byte[] bytes, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, length, bytes.length - length);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keeps reading until the buffer is full or the end of the file
+        }
+        return buffer.position();
+    }
+
+    /**
+     * hands the converted locations of a chunk to the consumer and collects its errors
+     * @param chunk
+     * @param consumer
+     * @param errors
+     * @param locationCount
+     */
+    private static void deliver(Parser chunk, Consumer<Location> consumer, List<RowError> errors, long[] locationCount) {
+        for (Location location : chunk.locations) {
+            consumer.accept(location);
+        }
+        locationCount[0] += chunk.locations.size();
+        errors.addAll(chunk.errors);
+    }
+
+    /**
+     * converts the fields of one row into a location
+     * @param fields
+     * @return the location
+     * @throws IllegalArgumentException if the row is not a valid destination
+     */
+    static Location toLocation(String[] fields) {
+        if (fields.length != FIELD_COUNT) {
+            throw new IllegalArgumentException("expected " + FIELD_COUNT + " fields but found " + fields.length);
+        }
+        double latitude;
+        double longitude;
+        try {
+            latitude = Double.parseDouble(fields[2].trim());
+            longitude = Double.parseDouble(fields[3].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid coordinates (" + fields[2] + ", " + fields[3] + ")");
+        }
+        if (!Double.isFinite(latitude) || !Double.isFinite(longitude)
+                || latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("coordinates out of range (" + latitude + ", " + longitude + ")");
+        }
+        String cost = fields[4].trim();
+        if (!cost.equals("Low") && !cost.equals("Medium") && !cost.equals("High")) {
+            throw new IllegalArgumentException("unknown cost '" + cost + "'");
+        }
+        return new Location(fields[0], fields[1], latitude, longitude, cost);
+    }
+
+    /**
+     * RecordSplitter object finds where the records end as the file is read - it follows the same quoting rules as
+     * the Parser (so both agree on every boundary) but only keeps its state, so it is much cheaper than parsing
+     */
+    private static final class RecordSplitter {
+
+        //the current parser state
+        private int state = FIELD_START;
+        //the current line of the file (starting at 1)
+        private long line = 1;
+        //the line the record after the last boundary found starts on
+        private long boundaryLine = 1;
+
+        /**
+         * scans the next bytes of the file
+         * @param bytes
+         * @param from the first byte to scan
+         * @param to the index after the last byte to scan
+         * @return the index after the last line break that ends a record, or -1 if no record ends in the bytes
+         */
+        int lastBoundary(byte[] bytes, int from, int to) {
+            int boundary = -1;
+            int current = state;
+            long currentLine = line;
+            for (int i = from; i < to; i++) {
+                byte b = bytes[i];
+                if (b > ',') {
+                    // an ordinary byte (every delimiter is below the comma) - most bytes take this branch
+                    if (current != QUOTED) {
+                        current = UNQUOTED;
+                    }
+                } else if (current == QUOTED) {
+                    if (b == '"') {
+                        current = QUOTE_IN_QUOTED;
+                    } else if (b == '\n') {
+                        currentLine++;
+                    }
+                } else if (b == '"' && current != UNQUOTED) {
+                    // opens a quoted field, or is a doubled quote inside one
+                    current = QUOTED;
+                } else if (b == ',') {
+                    current = FIELD_START;
+                } else if (b == '\n') {
+                    currentLine++;
+                    current = FIELD_START;
+                    boundary = i + 1;
+                    boundaryLine = currentLine;
+                } else if (b != '\r') {
+                    current = UNQUOTED;
+                }
+            }
+            state = current;
+            line = currentLine;
+            return boundary;
+        }
+    }
+
+    /**
+     * Parser object is the RFC-4180 state machine - it parses one chunk of whole records (on a pool thread) and
+     * converts each record into a location. It works on bytes, which is safe for UTF-8 as every delimiter is ASCII
+     */
+    private static final class Parser {
+
+        //the bytes of the chunk (released once parsed)
+        private byte[] bytes;
+        //the number of bytes in the chunk
+        private final int length;
+
+        //the bytes of the field being read
+        private byte[] field = new byte[256];
+        //the number of bytes in the field
+        private int fieldLength;
+        //the fields of the record being read
+        private final List<String> fields = new ArrayList<>(FIELD_COUNT);
+        //the current parser state
+        private int state = FIELD_START;
+        //the current line of the file
+        private long line;
+        //the line the current record started on
+        private long recordLine;
+        //whether the header record has been skipped (only the first chunk has one)
+        private boolean headerSkipped;
+
+        //the converted locations
+        private final List<Location> locations = new ArrayList<>();
+        //the records that could not be converted
+        private final List<RowError> errors = new ArrayList<>();
+
+        /**
+         * Constructor - initialises the chunk and the line it starts on
+         * @param bytes
+         * @param length
+         * @param firstLine
+         * @param hasHeader true for the first chunk of the file
+         */
+        Parser(byte[] bytes, int length, long firstLine, boolean hasHeader) {
+            this.bytes = bytes;
+            this.length = length;
+            this.line = firstLine;
+            this.recordLine = firstLine;
+            this.headerSkipped = !hasHeader;
+        }
+
+        /**
+         * parses every record of the chunk (the last record of the file may not end with a line break)
+         * @return this parser, holding the locations and errors of the chunk
+         */
+        Parser parse() {
+            for (int i = 0; i < length; i++) {
+                byte b = bytes[i];
+                switch (state) {
+                    case QUOTED:
+                        if (b == '"') {
+                            state = QUOTE_IN_QUOTED;
+                        } else {
+                            if (b == '\n') {
+                                line++;
+                            }
+                            append(b);
+                        }
+                        break;
+                    case QUOTE_IN_QUOTED:
+                        if (b == '"') {
+                            // a doubled quote inside a quoted field is a literal quote
+                            append(b);
+                            state = QUOTED;
+                        } else {
+                            delimiter(b);
+                        }
+                        break;
+                    case FIELD_START:
+                        if (b == '"') {
+                            state = QUOTED;
+                        } else {
+                            delimiter(b);
+                        }
+                        break;
+                    default:
+                        delimiter(b);
+                        break;
+                }
+            }
+            bytes = null;
+
+            if (state == QUOTED) {
+                // a quoted field that is never closed swallows the rest of the file
+                errors.add(new RowError(recordLine, "quoted field is not closed"));
+            } else if (state != FIELD_START || !fields.isEmpty()) {
+                endField();
+                endRecord();
+            }
+            return this;
+        }
+
+        /**
+         * handles a byte outside a quoted field - a comma ends the field and a line feed ends the record
+         * @param b
+         */
+        private void delimiter(byte b) {
+            if (b == ',') {
+                endField();
+            } else if (b == '\n') {
+                endField();
+                endRecord();
+                line++;
+                recordLine = line;
+            } else if (b != '\r') {
+                append(b);
+                state = UNQUOTED;
+            }
+        }
+
+        /**
+         * adds a byte to the current field
+         * @param b
+         */
+        private void append(byte b) {
+            if (fieldLength == field.length) {
+                field = Arrays.copyOf(field, fieldLength * 2);
+            }
+            field[fieldLength++] = b;
+        }
+
+        /**
+         * ends the current field and adds it to the record
+         */
+        private void endField() {
+            fields.add(new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+            fieldLength = 0;
+            state = FIELD_START;
+        }
+
+        /**
+         * ends the current record and converts it (blank lines and the header are skipped)
+         */
+        private void endRecord() {
+            boolean blank = fields.size() == 1 && fields.get(0).isEmpty();
+            if (!blank) {
+                if (!headerSkipped) {
+                    headerSkipped = true;
+                } else {
+                    try {
+                        locations.add(toLocation(fields.toArray(new String[0])));
+                    } catch (IllegalArgumentException e) {
+                        errors.add(new RowError(recordLine, e.getMessage()));
+                    }
+                }
+            }
+            fields.clear();
+        }
+    }
+}
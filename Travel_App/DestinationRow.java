@@ -0,0 +1,16 @@
+package Travel_App;
+
+/**
+ * DestinationRow is the information about one destination returned by Controller.findDestinations
+ *
+ * @param name the name of the destination
+ * @param description a description of the destination
+ * @param latitude the latitude of the destination
+ * @param longitude the longitude of the destination
+ * @param cost the living cost of the destination
+ *
+ * @author usman
+ */
+
+public record DestinationRow(String name, String description, double latitude, double longitude, Cost cost) {
+}
@@ -0,0 +1,479 @@
+package Travel_App;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * DestinationSnapshot object is a compact binary copy of the loaded destinations, the weighted graph and the
+ * distance matrix, so the next start can skip parsing the CSV file and building the graph
+ *
+ * The file has a 64 byte header (magic number, format version, the length and modification time of the CSV
+ * file it was made from, which sections are present, the graph mode and a CRC32 of the payload) followed by
+ * the columns of the DestinationStore (little-endian): coordinates, cost codes, a string table of names and
+ * the block of description bytes, then the CSR arrays of the graph and the distance matrix. It is read back through memory-mapped
+ * windows of the file, so the file may be larger than a single mapping
+ *
+ * A COMPLETE graph is never saved - its n * n edges would take 12 * n * n bytes, and they are rebuilt from the
+ * coordinates of the destinations instead
+ *
+ * A snapshot that does not match its CSV file, has another version or fails its checksum is ignored
+ *
+ * @author usman
+ */
+
+public final class DestinationSnapshot {
+
+    //"TRAV" - identifies a snapshot file
+    private static final int MAGIC = 0x54524156;
+    //the version of the file layout (a snapshot of another version is ignored)
+    private static final int VERSION = 2;
+    //the size of the fixed header
+    private static final int HEADER_SIZE = 64;
+    //the flags of the optional sections
+    private static final int HAS_GRAPH = 1;
+    private static final int HAS_MATRIX = 2;
+    //the largest part of the file mapped at once
+    private static final long WINDOW_SIZE = 1L << 30;
+    //the destinations
+    private final DestinationStore store;
+    //the saved graph (null if none was saved)
+    private final CompactWeightedGraph graph;
+    //the mode the graph was built in
+    private final GraphMode graphMode;
+    //the parameter the graph was built with
+    private final double graphParameter;
+    //the saved distance matrix (null if none was saved)
+    private final DistanceMatrix distanceMatrix;
+
+    /**
+     * Constructor - initialises the loaded sections
+     * @param store
+     * @param graph
+     * @param graphMode
+     * @param graphParameter
+     * @param distanceMatrix
+     */
+    private DestinationSnapshot(DestinationStore store, CompactWeightedGraph graph, GraphMode graphMode,
+                                double graphParameter, DistanceMatrix distanceMatrix) {
+        this.store = store;
+        this.graph = graph;
+        this.graphMode = graphMode;
+        this.graphParameter = graphParameter;
+        this.distanceMatrix = distanceMatrix;
+    }
+
+    /**
+     * gets the destinations (a destination's id is its vertex id in the graph)
+     * @return the destination store
+     */
+    public DestinationStore getStore() {
+        return store;
+    }
+
+    /**
+     * gets the saved graph if it was built in the given mode
+     * @param mode
+     * @param parameter
+     * @return the graph, or null if there is none for that mode
+     */
+    public CompactWeightedGraph getGraph(GraphMode mode, double parameter) {
+        return graph != null && graphMode == mode && graphParameter == parameter ? graph : null;
+    }
+
+    /**
+     * gets the saved distance matrix of the graph
+     * @return the matrix, or null if none was saved
+     */
+    public DistanceMatrix getDistanceMatrix() {
+        return distanceMatrix;
+    }
+
+    /**
+     * loads a snapshot if it exists and still matches its CSV file
+     * @param snapshotFile
+     * @param sourceFile the CSV file the snapshot was made from
+     * @return the snapshot, or null if it is missing, stale or damaged
+     */
+    public static DestinationSnapshot load(File snapshotFile, File sourceFile) {
+        if (!snapshotFile.isFile() || !sourceFile.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getLong() != sourceFile.length() || header.getLong() != sourceFile.lastModified()) {
+                return null;
+            }
+            int flags = header.getInt();
+            int modeOrdinal = header.getInt();
+            double graphParameter = header.getDouble();
+            long payloadLength = header.getLong();
+            long checksum = header.getLong();
+            if (payloadLength != channel.size() - HEADER_SIZE || checksum(channel, payloadLength) != checksum) {
+                return null;
+            }
+
+            PayloadReader in = new PayloadReader(channel, HEADER_SIZE);
+            int size = in.readInt();
+            double[] latitudes = in.readDoubles(size);
+            double[] longitudes = in.readDoubles(size);
+            byte[] costs = in.readBytes(size);
+            String[] names = in.readStrings(size);
+            int[] descriptionOffsets = in.readInts(size + 1);
+            byte[] descriptions = in.readBytes(descriptionOffsets[size]);
+            DestinationStore store = new DestinationStore(size, names, latitudes, longitudes, costs, descriptions, descriptionOffsets);
+
+            CompactWeightedGraph graph = null;
+            GraphMode graphMode = null;
+            if ((flags & HAS_GRAPH) != 0) {
+                int edgeCount = in.readInt();
+                int[] offsets = in.readInts(size + 1);
+                int[] targets = in.readInts(edgeCount);
+                double[] weights = in.readDoubles(edgeCount);
+                graph = CompactWeightedGraph.fromArrays(names, latitudes, longitudes, offsets, targets, weights);
+                // only graphs built by GeometricGraphBuilder (without route changes) are saved
+                graph.markHeuristicAdmissible();
+                graphMode = GraphMode.values()[modeOrdinal];
+            }
+
+            DistanceMatrix distanceMatrix = null;
+            if (graph != null && (flags & HAS_MATRIX) != 0) {
+                distanceMatrix = new DistanceMatrix(graph, in.readDoubles(size * size));
+            }
+            return new DestinationSnapshot(store, graph, graphMode, graphParameter, distanceMatrix);
+        } catch (IOException | RuntimeException e) {
+            // a damaged snapshot is never fatal - the CSV file is read instead
+            System.out.println("Ignoring snapshot " + snapshotFile + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * writes a snapshot of the destinations (and optionally the graph and its distance matrix)
+     * the file is written next to its final name and then moved into place, so a reader never sees half a file
+     * @param snapshotFile
+     * @param sourceFile the CSV file the destinations were read from
+     * @param store the destinations (in vertex id order)
+     * @param graph the graph of the locations (or null - a COMPLETE graph is not written)
+     * @param graphMode the mode the graph was built in
+     * @param graphParameter the parameter the graph was built with
+     * @param distanceMatrix the distance matrix of the graph (or null)
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(File snapshotFile, File sourceFile, DestinationStore store, CompactWeightedGraph graph,
+                             GraphMode graphMode, double graphParameter, DistanceMatrix distanceMatrix) throws IOException {
+        File temporary = new File(snapshotFile.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            PayloadWriter out = new PayloadWriter(channel, HEADER_SIZE);
+            int size = store.size();
+            out.writeInt(size);
+            for (int id = 0; id < size; id++) {
+                out.writeDouble(store.latitudeOf(id));
+            }
+            for (int id = 0; id < size; id++) {
+                out.writeDouble(store.longitudeOf(id));
+            }
+            out.writeBytes(store.costCodes(), size);
+            for (int id = 0; id < size; id++) {
+                out.writeString(store.nameOf(id));
+            }
+            for (int offset : store.descriptionOffsets()) {
+                out.writeInt(offset);
+            }
+            out.writeBytes(store.descriptionBytes(), store.descriptionOffsets()[size]);
+
+            int flags = 0;
+            if (graph != null && graphMode != GraphMode.COMPLETE) {
+                flags |= HAS_GRAPH;
+                // the edges are written vertex by vertex (a changed version of a graph may keep them out of order)
+                out.writeInt(graph.edgeCount());
+                int offset = 0;
+                for (int vertex = 0; vertex <= size; vertex++) {
+                    out.writeInt(offset);
+                    offset += vertex < size ? graph.endEdge(vertex) - graph.firstEdge(vertex) : 0;
+                }
+                for (int vertex = 0; vertex < size; vertex++) {
+                    for (int edge = graph.firstEdge(vertex); edge < graph.endEdge(vertex); edge++) {
+                        out.writeInt(graph.edgeTarget(edge));
+                    }
+                }
+                for (int vertex = 0; vertex < size; vertex++) {
+                    for (int edge = graph.firstEdge(vertex); edge < graph.endEdge(vertex); edge++) {
+                        out.writeDouble(graph.edgeWeight(edge));
+                    }
+                }
+                if (distanceMatrix != null) {
+                    flags |= HAS_MATRIX;
+                    for (int source = 0; source < size; source++) {
+                        for (int target = 0; target < size; target++) {
+                            out.writeDouble(distanceMatrix.distance(source, target));
+                        }
+                    }
+                }
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(sourceFile.length()).putLong(sourceFile.lastModified());
+            header.putInt(flags).putInt((flags & HAS_GRAPH) != 0 ? graphMode.ordinal() : -1).putDouble(graphParameter);
+            header.putLong(out.written).putLong(out.crc.getValue());
+            header.clear();
+            channel.write(header, 0);
+        }
+        Files.move(temporary.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * works out the CRC32 of the payload through mapped windows of the file
+     * @param channel
+     * @param payloadLength
+     * @return the checksum
+     * @throws IOException
+     */
+    private static long checksum(FileChannel channel, long payloadLength) throws IOException {
+        CRC32 crc = new CRC32();
+        for (long position = 0; position < payloadLength; position += WINDOW_SIZE) {
+            long length = Math.min(WINDOW_SIZE, payloadLength - position);
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + position, length));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * PayloadReader object reads primitive columns from the file through a memory-mapped window that is moved
+     * along the file as it is read
+     */
+    private static final class PayloadReader {
+
+        //the snapshot file
+        private final FileChannel channel;
+        //the file position of the start of the window
+        private long windowStart;
+        //the mapped part of the file
+        private MappedByteBuffer window;
+
+        /**
+         * Constructor - maps the first window at a file position
+         * @param channel
+         * @param position
+         * @throws IOException
+         */
+        PayloadReader(FileChannel channel, long position) throws IOException {
+            this.channel = channel;
+            map(position);
+        }
+
+        /**
+         * makes sure the window holds at least the given number of bytes from the current position
+         * @param bytes (at most WINDOW_SIZE)
+         * @throws IOException
+         */
+        private void ensure(long bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                map(windowStart + window.position());
+            }
+        }
+
+        /**
+         * maps a new window starting at a file position
+         * @param position
+         * @throws IOException
+         */
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, channel.size() - position));
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * reads an int
+         * @return the value
+         * @throws IOException
+         */
+        int readInt() throws IOException {
+            ensure(Integer.BYTES);
+            return window.getInt();
+        }
+
+        /**
+         * reads a column of ints
+         * @param count
+         * @return the values
+         * @throws IOException
+         */
+        int[] readInts(int count) throws IOException {
+            int[] values = new int[count];
+            for (int done = 0; done < count; ) {
+                int chunk = (int) Math.min(count - done, WINDOW_SIZE / Integer.BYTES);
+                ensure((long) chunk * Integer.BYTES);
+                window.asIntBuffer().get(values, done, chunk);
+                window.position(window.position() + chunk * Integer.BYTES);
+                done += chunk;
+            }
+            return values;
+        }
+
+        /**
+         * reads a column of doubles
+         * @param count
+         * @return the values
+         * @throws IOException
+         */
+        double[] readDoubles(int count) throws IOException {
+            double[] values = new double[count];
+            for (int done = 0; done < count; ) {
+                int chunk = (int) Math.min(count - done, WINDOW_SIZE / Double.BYTES);
+                ensure((long) chunk * Double.BYTES);
+                window.asDoubleBuffer().get(values, done, chunk);
+                window.position(window.position() + chunk * Double.BYTES);
+                done += chunk;
+            }
+            return values;
+        }
+
+        /**
+         * reads a column of bytes
+         * @param count
+         * @return the values
+         * @throws IOException
+         */
+        byte[] readBytes(int count) throws IOException {
+            byte[] values = new byte[count];
+            for (int done = 0; done < count; ) {
+                int chunk = (int) Math.min(count - done, WINDOW_SIZE);
+                ensure(chunk);
+                window.get(values, done, chunk);
+                done += chunk;
+            }
+            return values;
+        }
+
+        /**
+         * reads a column of strings (each stored as its UTF-8 length followed by its bytes)
+         * @param count
+         * @return the values
+         * @throws IOException
+         */
+        String[] readStrings(int count) throws IOException {
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                int length = readInt();
+                values[i] = new String(readBytes(length), StandardCharsets.UTF_8);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * PayloadWriter object writes primitive values to the file through a buffer, keeping a CRC32 of everything written
+     */
+    private static final class PayloadWriter {
+
+        //the snapshot file
+        private final FileChannel channel;
+        //the buffer the values are collected in
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        //the checksum of the payload
+        private final CRC32 crc = new CRC32();
+        //the file position the next buffer is written to
+        private long position;
+        //the number of payload bytes written
+        private long written;
+
+        /**
+         * Constructor - initialises the file and the position the payload starts at
+         * @param channel
+         * @param position
+         */
+        PayloadWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        /**
+         * writes an int
+         * @param value
+         * @throws IOException
+         */
+        void writeInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        /**
+         * writes a double
+         * @param value
+         * @throws IOException
+         */
+        void writeDouble(double value) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        /**
+         * writes the first bytes of an array
+         * @param values
+         * @param count
+         * @throws IOException
+         */
+        void writeBytes(byte[] values, int count) throws IOException {
+            for (int done = 0; done < count; ) {
+                ensure(1);
+                int chunk = Math.min(count - done, buffer.remaining());
+                buffer.put(values, done, chunk);
+                done += chunk;
+            }
+        }
+
+        /**
+         * writes a string as its UTF-8 length followed by its bytes
+         * @param value
+         * @throws IOException
+         */
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            writeBytes(bytes, bytes.length);
+        }
+
+        /**
+         * writes the buffer out if it does not have room for a value
+         * @param bytes
+         * @throws IOException
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        /**
+         * writes the buffered bytes to the file
+         * @throws IOException
+         */
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.array(), 0, buffer.limit());
+            written += buffer.limit();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package Travel_App;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * DestinationStore object holds every destination in columns of primitive values instead of one Location
+ * object per destination - a destination is identified by an int id (its index in the columns)
+ *
+ * The coordinates are double arrays, the cost is a byte code of the Cost enum, each name is stored once and found
+ * through an open-addressing hash table of ids, and the descriptions are kept as one block of UTF-8 bytes that is
+ * only decoded when a description is asked for (the bytes are read with the rest of the store and addressed by int
+ * offsets, so all the descriptions together may take up to MAX_DESCRIPTION_BYTES). The ids are also sorted by name
+ * so the destinations can be listed in alphabetical order
+ *
+ * A store is immutable once built (use the Builder) and so may be shared between threads
+ *
+ * @author usman
+ */
+
+public final class DestinationStore {
+
+    //the most bytes the descriptions may take together (the largest byte array the JVM can create)
+    public static final int MAX_DESCRIPTION_BYTES = Integer.MAX_VALUE - 8;
+
+    //the number of destinations
+    private final int size;
+    //the name of each destination
+    private final String[] names;
+    //the latitude of each destination
+    private final double[] latitudes;
+    //the longitude of each destination
+    private final double[] longitudes;
+    //the Cost code of each destination
+    private final byte[] costs;
+    //the UTF-8 bytes of every description, one after the other
+    private final byte[] descriptions;
+    //the description of destination i is the bytes from descriptionOffsets[i] to descriptionOffsets[i + 1]
+    private final int[] descriptionOffsets;
+    //open-addressing hash table of (id + 1) by name (0 is an empty slot)
+    private final int[] nameTable;
+    //the ids in alphabetical order of their names
+    private final int[] nameOrder;
+
+    /**
+     * Constructor - initialises the columns (which are used as they are, not copied) and builds the name table and
+     * the name order
+     * @param size
+     * @param names
+     * @param latitudes
+     * @param longitudes
+     * @param costs
+     * @param descriptions
+     * @param descriptionOffsets
+     */
+    DestinationStore(int size, String[] names, double[] latitudes, double[] longitudes, byte[] costs,
+                     byte[] descriptions, int[] descriptionOffsets) {
+        this.size = size;
+        this.names = names;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.costs = costs;
+        this.descriptions = descriptions;
+        this.descriptionOffsets = descriptionOffsets;
+
+        nameTable = new int[tableCapacity(size)];
+        for (int id = 0; id < size; id++) {
+            int slot = slot(nameTable, names, names[id]);
+            if (nameTable[slot] != 0) {
+                throw new IllegalArgumentException("Duplicate location: " + names[id]);
+            }
+            nameTable[slot] = id + 1;
+        }
+
+        // sorts a copy of the names and looks each one up again - this avoids sorting boxed ids with a comparator
+        String[] sorted = Arrays.copyOf(names, size);
+        Arrays.parallelSort(sorted);
+        nameOrder = new int[size];
+        for (int position = 0; position < size; position++) {
+            nameOrder[position] = idOf(sorted[position]);
+        }
+    }
+
+    /**
+     * gets the number of destinations
+     * @return the size of the store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * gets the id of a destination
+     * @param name
+     * @return the id, or -1 if there is no destination with that name
+     */
+    public int idOf(String name) {
+        return nameTable[slot(nameTable, names, name)] - 1;
+    }
+
+    /**
+     * gets the id of the destination at a position of the alphabetical order
+     * @param position
+     * @return the id
+     */
+    public int idInNameOrder(int position) {
+        return nameOrder[position];
+    }
+
+    /**
+     * gets the name of a destination
+     * @param id
+     * @return the name
+     */
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * gets the description of a destination (decoded from its UTF-8 bytes on every call)
+     * @param id
+     * @return the description
+     */
+    public String descriptionOf(int id) {
+        int start = descriptionOffsets[id];
+        return new String(descriptions, start, descriptionOffsets[id + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * gets the latitude of a destination
+     * @param id
+     * @return the latitude
+     */
+    public double latitudeOf(int id) {
+        return latitudes[id];
+    }
+
+    /**
+     * gets the longitude of a destination
+     * @param id
+     * @return the longitude
+     */
+    public double longitudeOf(int id) {
+        return longitudes[id];
+    }
+
+    /**
+     * gets the cost of a destination
+     * @param id
+     * @return the cost
+     */
+    public Cost costOf(int id) {
+        return Cost.fromCode(costs[id]);
+    }
+
+    /**
+     * gets the cost code (the ordinal of the Cost) of a destination without looking up the enum
+     * @param id
+     * @return the cost code
+     */
+    public int costCodeOf(int id) {
+        return costs[id];
+    }
+
+    /**
+     * creates a Location object for a destination (for code that still works with locations)
+     * @param id
+     * @return a new location
+     */
+    public Location toLocation(int id) {
+        return new Location(names[id], descriptionOf(id), latitudes[id], longitudes[id], costOf(id).toString());
+    }
+
+    /**
+     * gets the names column (not copied - it must not be changed)
+     * @return the name of each id
+     */
+    String[] names() {
+        return names;
+    }
+
+    /**
+     * gets the latitude column (not copied - it must not be changed)
+     * @return the latitude of each id
+     */
+    double[] latitudes() {
+        return latitudes;
+    }
+
+    /**
+     * gets the longitude column (not copied - it must not be changed)
+     * @return the longitude of each id
+     */
+    double[] longitudes() {
+        return longitudes;
+    }
+
+    /**
+     * gets the cost code column (not copied - it must not be changed)
+     * @return the cost code of each id
+     */
+    byte[] costCodes() {
+        return costs;
+    }
+
+    /**
+     * gets the UTF-8 bytes of all the descriptions (not copied - it must not be changed)
+     * @return the description bytes
+     */
+    byte[] descriptionBytes() {
+        return descriptions;
+    }
+
+    /**
+     * gets where each description starts in the description bytes (not copied - it must not be changed)
+     * @return size + 1 offsets
+     */
+    int[] descriptionOffsets() {
+        return descriptionOffsets;
+    }
+
+    /**
+     * works out the capacity of a name table for a number of names (a power of two at least twice the count)
+     * @param count
+     * @return the capacity
+     */
+    private static int tableCapacity(int count) {
+        return Integer.highestOneBit(Math.max(4, count) * 2 - 1) << 1;
+    }
+
+    /**
+     * finds the slot of a name in a name table by linear probing
+     * @param table
+     * @param names the names the table's ids refer to
+     * @param name
+     * @return the slot holding the name, or the empty slot where it would be added
+     */
+    private static int slot(int[] table, String[] names, String name) {
+        int mask = table.length - 1;
+        int hash = name.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (table[slot] != 0 && !names[table[slot] - 1].equals(name)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Builder object collects the destinations into growing columns and then creates the store
+     * adding a destination with a name that was already added replaces it (it keeps its id)
+     */
+    public static final class Builder {
+
+        //initial capacity of the columns
+        private static final int INITIAL_CAPACITY = 16;
+
+        //the number of destinations added
+        private int size;
+        //the name of each destination
+        private String[] names = new String[INITIAL_CAPACITY];
+        //the latitude of each destination
+        private double[] latitudes = new double[INITIAL_CAPACITY];
+        //the longitude of each destination
+        private double[] longitudes = new double[INITIAL_CAPACITY];
+        //the Cost code of each destination
+        private byte[] costs = new byte[INITIAL_CAPACITY];
+        //the UTF-8 bytes of the descriptions in the order they were added
+        private byte[] descriptions = new byte[INITIAL_CAPACITY * 64];
+        //the number of description bytes used
+        private int descriptionLength;
+        //where the description of each destination starts in the description bytes
+        private int[] descriptionStarts = new int[INITIAL_CAPACITY];
+        //the number of description bytes of each destination
+        private int[] descriptionLengths = new int[INITIAL_CAPACITY];
+        //set when a destination has been replaced (its old description bytes are then left unused)
+        private boolean replaced;
+        //open-addressing hash table of (id + 1) by name
+        private int[] nameTable = new int[tableCapacity(INITIAL_CAPACITY)];
+
+        /**
+         * adds a location
+         * @param location
+         * @return the id of the destination
+         */
+        public int add(Location location) {
+            return add(location.getName(), location.getDescription(), location.getLatitude(), location.getLongitude(),
+                    Cost.fromLabel(location.getCost()));
+        }
+
+        /**
+         * adds a destination
+         * @param name
+         * @param description
+         * @param latitude
+         * @param longitude
+         * @param cost
+         * @return the id of the destination
+         * @throws IllegalStateException if the descriptions would take more than MAX_DESCRIPTION_BYTES
+         */
+        public int add(String name, String description, double latitude, double longitude, Cost cost) {
+            byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_DESCRIPTION_BYTES - descriptionLength) {
+                // checked before anything is changed, so the destinations added so far can still be built
+                throw new IllegalStateException("The descriptions would take more than " + MAX_DESCRIPTION_BYTES + " bytes");
+            }
+            int slot = slot(nameTable, names, name);
+            int id;
+            if (nameTable[slot] != 0) {
+                id = nameTable[slot] - 1;
+                replaced = true;
+            } else {
+                id = size++;
+                if (id == names.length) {
+                    grow();
+                }
+                names[id] = name;
+                nameTable[slot] = id + 1;
+                if (size * 2 > nameTable.length) {
+                    rehash();
+                }
+            }
+            latitudes[id] = latitude;
+            longitudes[id] = longitude;
+            costs[id] = (byte) cost.ordinal();
+
+            if (descriptionLength + bytes.length > descriptions.length) {
+                long capacity = Math.max((long) descriptions.length * 2, descriptionLength + bytes.length);
+                descriptions = Arrays.copyOf(descriptions, (int) Math.min(capacity, MAX_DESCRIPTION_BYTES));
+            }
+            System.arraycopy(bytes, 0, descriptions, descriptionLength, bytes.length);
+            descriptionStarts[id] = descriptionLength;
+            descriptionLengths[id] = bytes.length;
+            descriptionLength += bytes.length;
+            return id;
+        }
+
+        /**
+         * doubles the capacity of the columns
+         */
+        private void grow() {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            descriptionStarts = Arrays.copyOf(descriptionStarts, capacity);
+            descriptionLengths = Arrays.copyOf(descriptionLengths, capacity);
+        }
+
+        /**
+         * doubles the capacity of the name table
+         */
+        private void rehash() {
+            nameTable = new int[nameTable.length * 2];
+            for (int id = 0; id < size; id++) {
+                nameTable[slot(nameTable, names, names[id])] = id + 1;
+            }
+        }
+
+        /**
+         * creates the store from the destinations added so far
+         * @return the store
+         */
+        public DestinationStore build() {
+            byte[] packed;
+            int[] offsets = new int[size + 1];
+            if (replaced) {
+                // copies the descriptions in id order, leaving out the bytes of replaced descriptions
+                int length = 0;
+                for (int id = 0; id < size; id++) {
+                    length += descriptionLengths[id];
+                }
+                packed = new byte[length];
+                for (int id = 0; id < size; id++) {
+                    System.arraycopy(descriptions, descriptionStarts[id], packed, offsets[id], descriptionLengths[id]);
+                    offsets[id + 1] = offsets[id] + descriptionLengths[id];
+                }
+            } else {
+                // descriptions were added in id order so they are already packed
+                packed = Arrays.copyOf(descriptions, descriptionLength);
+                for (int id = 0; id < size; id++) {
+                    offsets[id + 1] = offsets[id] + descriptionLengths[id];
+                }
+            }
+            return new DestinationStore(size, Arrays.copyOf(names, size), Arrays.copyOf(latitudes, size),
+                    Arrays.copyOf(longitudes, size), Arrays.copyOf(costs, size), packed, offsets);
+        }
+    }
+}
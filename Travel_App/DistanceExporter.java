@@ -0,0 +1,208 @@
+package Travel_App;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * DistanceExporter is a helper class that writes the distances between the destinations to a file one row at a
+ * time, so the memory used does not grow with the number of distances (only the row being written is held)
+ *
+ * The binary format is, in big-endian order:
+ *
+ *   int MAGIC, int VERSION, int n, then the n vertex names (DataOutput.writeUTF)
+ *   then one record per row (in vertex order):
+ *     int -1 followed by n float distances, for a row with a distance to every vertex in vertex order, or
+ *     int count followed by count (int target, float distance) pairs, for a row of the edges of one vertex
+ *
+ * A file is written next to its final name and then moved into place, so a reader never sees half a file
+ *
+ * @author usman
+ */
+
+public final class DistanceExporter {
+
+    //identifies a binary distances file ("TDST")
+    public static final int MAGIC = 0x54445354;
+    //the version of the binary format
+    public static final int VERSION = 1;
+
+    //the size of the write buffers
+    private static final int BUFFER_SIZE = 1 << 16;
+    //the count written before a row with a distance to every vertex
+    private static final int DENSE_ROW = -1;
+
+    /**
+     * private constructor - the class only has static methods
+     */
+    private DistanceExporter() {
+    }
+
+    /**
+     * writes distance rows to a file
+     * @param names the name of every vertex, in vertex order (the rows must be in the same order)
+     * @param rows
+     * @param file
+     * @param format
+     * @param compress true to gzip the file
+     * @return the number of rows written
+     * @throws IOException if the file cannot be written
+     */
+    public static int export(String[] names, Iterable<DistanceRow> rows, Path file, DistanceFormat format,
+                             boolean compress) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            int count;
+            try (OutputStream out = open(temporary, compress)) {
+                switch (format) {
+                    case TEXT:
+                        count = writeText(rows, out);
+                        break;
+                    case CSV:
+                        count = writeCsv(rows, out);
+                        break;
+                    default:
+                        count = writeBinary(names, rows, out);
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * opens a buffered (and, if asked for, gzipped) stream to a file
+     * @param file
+     * @param compress
+     * @return the stream
+     * @throws IOException
+     */
+    private static OutputStream open(Path file, boolean compress) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        return compress ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+    }
+
+    /**
+     * creates a buffered UTF-8 writer over a stream
+     * @param out
+     * @return the writer
+     */
+    private static Writer writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * writes the rows in the listDistances text layout
+     * @param rows
+     * @param out
+     * @return the number of rows written
+     * @throws IOException
+     */
+    private static int writeText(Iterable<DistanceRow> rows, OutputStream out) throws IOException {
+        Writer writer = writer(out);
+        int count;
+        try {
+            count = TextRenderer.writeDistances(rows, writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * writes the rows as "from,to,distance" lines
+     * @param rows
+     * @param out
+     * @return the number of rows written
+     * @throws IOException
+     */
+    private static int writeCsv(Iterable<DistanceRow> rows, OutputStream out) throws IOException {
+        Writer writer = writer(out);
+        writer.write("From,To,Distance\n");
+        StringBuilder line = new StringBuilder(64);
+        int count = 0;
+        for (DistanceRow row : rows) {
+            String from = csvField(row.name());
+            for (int target = 0; target < row.size(); target++) {
+                line.setLength(0);
+                line.append(from).append(',').append(csvField(row.targetAt(target))).append(',');
+                TextRenderer.appendFixed(line, row.distanceAt(target), 3).append('\n');
+                writer.append(line);
+            }
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * quotes a CSV field if it holds a comma, quote or line break
+     * @param value
+     * @return the field
+     */
+    private static String csvField(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    /**
+     * writes the rows in the binary format
+     * @param names
+     * @param rows
+     * @param out
+     * @return the number of rows written
+     * @throws IOException
+     */
+    private static int writeBinary(String[] names, Iterable<DistanceRow> rows, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(names.length);
+        Map<String, Integer> ids = new HashMap<>(names.length * 2);
+        for (int id = 0; id < names.length; id++) {
+            data.writeUTF(names[id]);
+            ids.put(names[id], id);
+        }
+
+        int count = 0;
+        for (DistanceRow row : rows) {
+            if (row.targetNames() == names) {
+                // the row has a distance to every vertex in vertex order, so the targets need not be written
+                data.writeInt(DENSE_ROW);
+                for (int target = 0; target < row.size(); target++) {
+                    data.writeFloat((float) row.distanceAt(target));
+                }
+            } else {
+                data.writeInt(row.size());
+                for (int target = 0; target < row.size(); target++) {
+                    data.writeInt(ids.get(row.targetAt(target)));
+                    data.writeFloat((float) row.distanceAt(target));
+                }
+            }
+            count++;
+        }
+        data.flush();
+        return count;
+    }
+}
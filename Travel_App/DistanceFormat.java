@@ -0,0 +1,43 @@
+package Travel_App;
+
+/**
+ * The file formats the distances between the destinations can be exported in
+ *
+ * @author usman
+ */
+
+public enum DistanceFormat {
+    /**
+     * the listDistances text layout ("Location: X is connected to:" followed by one line per distance)
+     */
+    TEXT(".txt"),
+
+    /**
+     * one "from,to,distance" line per distance, after a header line
+     */
+    CSV(".csv"),
+
+    /**
+     * a compact binary file - the names once, then each row as float distances (see DistanceExporter)
+     */
+    BINARY(".bin");
+
+    //the usual file name extension of the format
+    private final String extension;
+
+    /**
+     * Constructor - initialises the file name extension of the format
+     * @param extension
+     */
+    DistanceFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * gets the usual file name extension of the format (without ".gz")
+     * @return the extension, including its dot
+     */
+    public String getExtension() {
+        return extension;
+    }
+}
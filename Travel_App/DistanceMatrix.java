@@ -0,0 +1,202 @@
+package Travel_App;
+
+import java.util.concurrent.CancellationException;
+import java.util.stream.IntStream;
+
+/**
+ * DistanceMatrix object is an immutable all-pairs table of the shortest distances of a CompactWeightedGraph
+ * The table is a flat n*n array (row = start vertex, column = end vertex) so any pair is answered in O(1)
+ *
+ * @author usman
+ */
+
+public final class DistanceMatrix {
+
+    //the largest graph the controller builds a matrix for (4096 vertices = 128 MB of distances)
+    public static final int DEFAULT_MAX_VERTICES = 4096;
+    //the most work (sources times edges searched) the controller spends on building a matrix up front
+    //(2^30 is roughly a second of searching - a complete graph of 1000 vertices, a sparse one of the largest size)
+    public static final long DEFAULT_MAX_WORK = 1L << 30;
+
+    //how far (relative to the distance) a path through an edge may be from the shortest distance and still be counted
+    //as a shortest path (the sums are not always added up in the same order)
+    private static final double TIGHT_TOLERANCE = 1e-9;
+
+    //the graph the distances were computed from
+    private final CompactWeightedGraph graph;
+    //the number of vertices (rows and columns)
+    private final int size;
+    //the shortest distance from vertex i to vertex j is stored at i * size + j (infinity if not reachable)
+    private final double[] distances;
+
+    /**
+     * Constructor - initialises the matrix from already computed distances (used by build and DestinationSnapshot)
+     * @param graph
+     * @param distances
+     */
+    DistanceMatrix(CompactWeightedGraph graph, double[] distances) {
+        this.graph = graph;
+        this.size = graph.vertexCount();
+        this.distances = distances;
+    }
+
+    /**
+     * checks whether a matrix of a graph is small enough to keep and quick enough to build up front
+     * building one runs Dijkstra's algorithm from every vertex, so it costs about vertices times edges
+     * @param graph
+     * @return true if the graph has at most DEFAULT_MAX_VERTICES vertices and DEFAULT_MAX_WORK vertices times edges
+     */
+    public static boolean isWorthBuilding(CompactWeightedGraph graph) {
+        return graph.vertexCount() <= DEFAULT_MAX_VERTICES && (long) graph.vertexCount() * graph.edgeCount() <= DEFAULT_MAX_WORK;
+    }
+
+    /**
+     * computes the matrix by running Dijkstra's algorithm from every vertex
+     * the sources are searched in parallel (one source per task) and each task writes only its own row
+     * the build stops if the calling thread is interrupted
+     * @param graph
+     * @return the distance matrix of the graph
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    public static DistanceMatrix build(CompactWeightedGraph graph) {
+        int size = graph.vertexCount();
+        if ((long) size * size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many vertices for a distance matrix: " + size);
+        }
+        double[] distances = new double[size * size];
+
+        // the tasks run on pool threads, so they check the interrupt status of the thread that asked for the matrix
+        Thread caller = Thread.currentThread();
+        IntStream.range(0, size).parallel().forEach(source -> {
+            if (caller.isInterrupted()) {
+                throw new CancellationException("Distance matrix build cancelled");
+            }
+            DistanceView view = graph.shortestDistances(source);
+            int row = source * size;
+            for (int target = 0; target < size; target++) {
+                distances[row + target] = view.distanceTo(target);
+            }
+        });
+        return new DistanceMatrix(graph, distances);
+    }
+
+    /**
+     * works out the matrix of a changed version of the graph from this one instead of building it again
+     * each edge that got shorter (or was added) lowers the distances of the rows it gives a shorter path, one edge at a
+     * time, and then the rows that had a shortest path through an edge that got longer (or was removed) are searched
+     * again - rows a change did not touch are only copied
+     * the rows are worked on in parallel, and the update stops if the calling thread is interrupted
+     * @param update a change of the graph this matrix was computed from
+     * @return the matrix of the new version, or null if the vertices changed (the matrix has to be built again)
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    public DistanceMatrix update(GraphUpdate update) {
+        if (update.previous() != graph) {
+            throw new IllegalArgumentException("The update is not a change of the matrix's graph");
+        }
+        if (!update.sameVertices()) {
+            return null;
+        }
+        CompactWeightedGraph changed = update.graph();
+        double[] result = distances.clone();
+        Thread caller = Thread.currentThread();
+
+        // an edge from u to v that got shorter gives row i a shorter path to j if i..u -> v..j is shorter
+        // (row v is never lowered through its own edge, so the rows can read it while they are written)
+        for (EdgeChange change : update.changes()) {
+            if (!change.isDecrease()) {
+                continue;
+            }
+            int from = change.from();
+            int toRow = change.to() * size;
+            double weight = change.newWeight();
+            IntStream.range(0, size).parallel().forEach(source -> {
+                int row = source * size;
+                double viaEdge = result[row + from] + weight;
+                if (viaEdge >= result[row + change.to()]) {
+                    // the edge does not even shorten the path to v
+                    return;
+                }
+                for (int target = 0; target < size; target++) {
+                    double distance = viaEdge + result[toRow + target];
+                    if (distance < result[row + target]) {
+                        result[row + target] = distance;
+                    }
+                }
+            });
+            if (caller.isInterrupted()) {
+                throw new CancellationException("Distance matrix update cancelled");
+            }
+        }
+
+        // a row whose shortest path to v went through an edge from u that got longer is searched again
+        boolean[] stale = new boolean[size];
+        for (EdgeChange change : update.changes()) {
+            if (!change.isIncrease()) {
+                continue;
+            }
+            for (int source = 0; source < size; source++) {
+                int row = source * size;
+                double viaEdge = result[row + change.from()] + change.oldWeight();
+                if (viaEdge != Double.POSITIVE_INFINITY && viaEdge - result[row + change.to()] <= TIGHT_TOLERANCE * viaEdge) {
+                    stale[source] = true;
+                }
+            }
+        }
+        IntStream.range(0, size).filter(source -> stale[source]).parallel().forEach(source -> {
+            if (caller.isInterrupted()) {
+                throw new CancellationException("Distance matrix update cancelled");
+            }
+            DistanceView view = changed.shortestDistances(source);
+            int row = source * size;
+            for (int target = 0; target < size; target++) {
+                result[row + target] = view.distanceTo(target);
+            }
+        });
+        return new DistanceMatrix(changed, result);
+    }
+
+    /**
+     * gets the graph the matrix was computed from
+     * @return the graph
+     */
+    public CompactWeightedGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * gets the number of vertices in the matrix
+     * @return the row (and column) count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * gets the shortest distance between two vertex ids
+     * @param source
+     * @param target
+     * @return the distance, or infinity if the target is not reachable
+     */
+    public double distance(int source, int target) {
+        return distances[source * size + target];
+    }
+
+    /**
+     * gets the shortest distance between two locations
+     * @param startLocation
+     * @param endLocation
+     * @return the distance, or infinity if the end location is not reachable
+     */
+    public double distance(String startLocation, String endLocation) {
+        int source = graph.idOf(startLocation);
+        if (source < 0) {
+            throw new IllegalArgumentException("Unknown location: " + startLocation);
+        }
+        int target = graph.idOf(endLocation);
+        if (target < 0) {
+            throw new IllegalArgumentException("Unknown location: " + endLocation);
+        }
+        return distance(source, target);
+    }
+}
@@ -0,0 +1,43 @@
+package Travel_App;
+
+/**
+ * DistanceRow is the distances from one destination to the destinations it is connected to, returned (one row at a
+ * time) by Controller.findDistances
+ *
+ * The arrays are not copied - a row may share its target names with the other rows, so they must not be changed
+ *
+ * @param name the name of the destination the distances are from
+ * @param targetNames the names of the destinations the distances are to
+ * @param distances the distance (in km) to each target
+ *
+ * @author usman
+ */
+
+public record DistanceRow(String name, String[] targetNames, double[] distances) {
+
+    /**
+     * gets the number of targets of the row
+     * @return the size
+     */
+    public int size() {
+        return distances.length;
+    }
+
+    /**
+     * gets the name of a target
+     * @param index
+     * @return the name
+     */
+    public String targetAt(int index) {
+        return targetNames[index];
+    }
+
+    /**
+     * gets the distance to a target
+     * @param index
+     * @return the distance
+     */
+    public double distanceAt(int index) {
+        return distances[index];
+    }
+}
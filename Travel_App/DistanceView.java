@@ -0,0 +1,117 @@
+package Travel_App;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DistanceView object is a primitive view of the result of a single-source shortest path search
+ * It reads the distances and predecessors by vertex id without boxing them into a Map
+ *
+ * A view returned by CompactWeightedGraph.shortestDistances is backed by the searching thread's reusable buffers,
+ * so it is only valid until the next search on that thread - use copy() to keep it for longer
+ *
+ * @author usman
+ */
+
+public final class DistanceView {
+
+    //the graph that was searched
+    private final CompactWeightedGraph graph;
+    //the start vertex of the search
+    private final int source;
+    //the distance of each vertex from the source (infinity if not reachable)
+    private final double[] distances;
+    //the previous vertex on the shortest path to each vertex (-1 if none)
+    private final int[] predecessors;
+
+    /**
+     * Constructor - initialises the view over the search buffers
+     * @param graph
+     * @param source
+     * @param distances
+     * @param predecessors
+     */
+    DistanceView(CompactWeightedGraph graph, int source, double[] distances, int[] predecessors) {
+        this.graph = graph;
+        this.source = source;
+        this.distances = distances;
+        this.predecessors = predecessors;
+    }
+
+    /**
+     * gets the start vertex of the search
+     * @return the source vertex id
+     */
+    public int source() {
+        return source;
+    }
+
+    /**
+     * gets the number of vertices covered by the view
+     * @return the vertex count of the searched graph
+     */
+    public int vertexCount() {
+        return graph.vertexCount();
+    }
+
+    /**
+     * gets the shortest distance from the source to a vertex
+     * @param vertex
+     * @return the distance, or infinity if the vertex is not reachable
+     */
+    public double distanceTo(int vertex) {
+        return distances[vertex];
+    }
+
+    /**
+     * gets the shortest distance from the source to a location
+     * @param name
+     * @return the distance, or infinity if the location is not reachable or not in the graph
+     */
+    public double distanceTo(String name) {
+        int vertex = graph.idOf(name);
+        return vertex < 0 ? Double.POSITIVE_INFINITY : distances[vertex];
+    }
+
+    /**
+     * checks whether a vertex is reachable from the source
+     * @param vertex
+     * @return true if the distance is finite
+     */
+    public boolean isReachable(int vertex) {
+        return distances[vertex] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * gets the previous vertex on the shortest path from the source to a vertex
+     * @param vertex
+     * @return the predecessor id, or -1 for the source and unreachable vertices
+     */
+    public int predecessorOf(int vertex) {
+        return predecessors[vertex];
+    }
+
+    /**
+     * copies the view so it no longer depends on the searching thread's buffers
+     * @return a detached copy of the view
+     */
+    public DistanceView copy() {
+        int vertexCount = graph.vertexCount();
+        return new DistanceView(graph, source, Arrays.copyOf(distances, vertexCount), Arrays.copyOf(predecessors, vertexCount));
+    }
+
+    /**
+     * converts the view to the location name keyed map used by the ReadOnlyWeightedGraphADT
+     * unreachable locations are mapped to Double.MAX_VALUE
+     * @return a map of the shortest distances of all the locations from the source
+     */
+    public Map<String, Double> toMap() {
+        int vertexCount = graph.vertexCount();
+        Map<String, Double> result = new HashMap<>(vertexCount * 2);
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            result.put(graph.nameOf(vertex), isReachable(vertex) ? distances[vertex] : Double.MAX_VALUE);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,32 @@
+package Travel_App;
+
+/**
+ * EdgeChange is the net change of one edge between two versions of a graph, published by VersionedWeightedGraph
+ * A missing edge has an infinite distance, so an added edge changes from infinity and a removed edge changes to it
+ *
+ * @param from the start vertex id of the edge
+ * @param to the end vertex id of the edge
+ * @param oldWeight the distance (weight) of the edge in the previous version
+ * @param newWeight the distance (weight) of the edge in the new version
+ *
+ * @author usman
+ */
+
+public record EdgeChange(int from, int to, double oldWeight, double newWeight) {
+
+    /**
+     * checks whether the edge got longer (or was removed) - shortest paths that used it may now be longer
+     * @return true if the new distance is larger
+     */
+    public boolean isIncrease() {
+        return newWeight > oldWeight;
+    }
+
+    /**
+     * checks whether the edge got shorter (or was added) - shortest paths may now go through it
+     * @return true if the new distance is smaller
+     */
+    public boolean isDecrease() {
+        return newWeight < oldWeight;
+    }
+}
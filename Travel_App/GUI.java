@@ -4,20 +4,87 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * GUI class provides a simple graphical user interface for the Travel_App.
  * It is designed to be user-friendly, simple and intuitive.
  *
+ * The controller is only called from background workers, so the window stays responsive
+ * while a graph is built or a route is searched. A running task shows a progress bar and
+ * can be cancelled, and its output is added to the text area in small pieces.
+ *
  * @author Usman
  */
 public class GUI {
 
+	/**
+	 * The number of destinations shown per page of the distances.
+	 */
+	private static final int DISTANCES_PAGE_SIZE = 50;
+
+	/**
+	 * The largest number of characters added to the output area at a time.
+	 */
+	private static final int CHUNK_SIZE = 16 * 1024;
+
 	/**
 	 * Controller interface instance to deal with the operations.
 	 */
 	private Controller controller;
 
+	/**
+	 * The main window.
+	 */
+	private JFrame frame;
+
+	/**
+	 * Text area the results are shown in.
+	 */
+	private JTextArea outputArea;
+
+	/**
+	 * Shows what the running task is doing.
+	 */
+	private JLabel statusLabel;
+
+	/**
+	 * Shows the progress of the running task.
+	 */
+	private JProgressBar progressBar;
+
+	/**
+	 * Cancels the running task.
+	 */
+	private JButton btnCancel;
+
+	/**
+	 * Shows the next page of the distances.
+	 */
+	private JButton btnMoreDistances;
+
+	/**
+	 * The buttons that start a task (disabled while a task runs).
+	 */
+	private JButton[] taskButtons;
+
+	/**
+	 * The running task (null if none is running). Only used on the Event Dispatch Thread.
+	 */
+	private OutputWorker currentWorker;
+
+	/**
+	 * The number of destinations whose distances have been shown.
+	 */
+	private volatile int distancesShown;
+
+	/**
+	 * The number of destinations in the distances file.
+	 */
+	private volatile int distancesCount;
+
 	/**
 	 * GUI constructor - provides the controller and initialises the GUI components.
 	 *
@@ -33,7 +100,7 @@ public class GUI {
 	 * Sets up action listeners on buttons to deal with the functionality.
 	 */
 	private void createAndShowGUI() {
-		JFrame frame = new JFrame("Travel App");
+		frame = new JFrame("Travel App");
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		frame.setSize(800, 500);
 		frame.setLocationRelativeTo(null);
@@ -44,7 +111,7 @@ public class GUI {
 		welcomeLabel.setBorder(new EmptyBorder(15, 0, 15, 0));
 
 		// Text area for displaying output and help with the layout alignment
-		JTextArea outputArea = new JTextArea();
+		outputArea = new JTextArea();
 		outputArea.setEditable(false);
 		outputArea.setFont(new Font("Monospaced", Font.PLAIN, 13));
 		outputArea.setMargin(new Insets(0, 10, 10, 10));
@@ -56,12 +123,31 @@ public class GUI {
 		outputPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
 		outputPanel.add(scrollPane, BorderLayout.CENTER);
 
+		// Status bar under the output: what is running, its progress and the cancel and more buttons
+		statusLabel = new JLabel("Ready");
+		progressBar = new JProgressBar(0, 100);
+		progressBar.setVisible(false);
+		btnCancel = new JButton("Cancel");
+		btnCancel.setEnabled(false);
+		btnMoreDistances = new JButton("More distances");
+		btnMoreDistances.setEnabled(false);
+		JPanel statusButtons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+		statusButtons.add(btnMoreDistances);
+		statusButtons.add(btnCancel);
+		JPanel statusPanel = new JPanel(new BorderLayout(10, 0));
+		statusPanel.setBorder(new EmptyBorder(5, 0, 0, 0));
+		statusPanel.add(statusLabel, BorderLayout.WEST);
+		statusPanel.add(progressBar, BorderLayout.CENTER);
+		statusPanel.add(statusButtons, BorderLayout.EAST);
+		outputPanel.add(statusPanel, BorderLayout.SOUTH);
+
 		// Buttons for each travel function
 		JButton btnListDestinations = new JButton("1. List Destination(s)");
 		JButton btnNearby = new JButton("2. Nearby Destinations");
 		JButton btnDistances = new JButton("3. List Distances");
 		JButton btnShortestPath = new JButton("4. Shortest Travel Path");
 		JButton btnExit = new JButton("5. Exit");
+		taskButtons = new JButton[] {btnListDestinations, btnNearby, btnDistances, btnShortestPath};
 
 		// Panel to deal with the layout of the buttons
 		JPanel buttonPanel = new JPanel(new GridLayout(5, 1, 10, 10));
@@ -91,8 +177,9 @@ public class GUI {
 			String city = JOptionPane.showInputDialog(frame,
 					"Enter a city name (or type 'all'):", "City Input", JOptionPane.QUESTION_MESSAGE);
 			if (city != null && !city.isBlank()) {
-				outputArea.setText("Listing information for: " + city + "\n\n");
-				outputArea.append(controller.listDestinations(city.trim()));
+				String name = city.trim();
+				start("Listing information for: " + city + "\n\n", "Listing destinations...",
+						worker -> worker.write(controller.listDestinations(name)));
 			}
 		});
 
@@ -111,8 +198,9 @@ public class GUI {
 					double lon = Double.parseDouble(lonStr.trim());
 					int range = Integer.parseInt(rangeStr.trim());
 
-					outputArea.setText("Nearby destinations from (" + lat + ", " + lon + ") within " + range + " km:\n\n");
-					outputArea.append(controller.listNearbyDestinations(lat, lon, range));
+					start("Nearby destinations from (" + lat + ", " + lon + ") within " + range + " km:\n\n",
+							"Finding nearby destinations...",
+							worker -> worker.write(controller.listNearbyDestinations(lat, lon, range)));
 				}
 			} catch (NumberFormatException ex) {
 				JOptionPane.showMessageDialog(frame, "Invalid number input.", "Error", JOptionPane.ERROR_MESSAGE);
@@ -121,11 +209,35 @@ public class GUI {
 
 		/*
 		 * Action listener for "List Distances"
-		 * Displays distances between all pairs of destinations.
+		 * Stores the distances between all pairs of destinations in a file (streamed, so any
+		 * number of destinations fits) and displays the first page of them.
+		 */
+		btnDistances.addActionListener(e -> start(
+				"List and store the distances between destinations (saved to listDistances.txt):\n\n",
+				"Building the graph and saving the distances...",
+				worker -> {
+					distancesShown = 0;
+					distancesCount = controller.exportDistances("listDistances.txt", DistanceFormat.TEXT, false);
+					showDistancesPage(worker);
+				}));
+
+		/*
+		 * Action listener for "More distances"
+		 * Adds the next page of the distances to the output.
+		 */
+		btnMoreDistances.addActionListener(e -> start(null, "Listing distances...", this::showDistancesPage));
+
+		/*
+		 * Action listener for "Cancel"
+		 * Interrupts the running task - the controller stops at its next check, and the
+		 * task buttons stay disabled until it has.
 		 */
-		btnDistances.addActionListener(e -> {
-			outputArea.setText("List and store the distances between destinations:\n\n");
-			outputArea.append(controller.listDistances());
+		btnCancel.addActionListener(e -> {
+			if (currentWorker != null) {
+				statusLabel.setText("Cancelling...");
+				btnCancel.setEnabled(false);
+				currentWorker.cancel(true);
+			}
 		});
 
 		/*
@@ -143,8 +255,9 @@ public class GUI {
 						.toArray(String[]::new);
 
 				if (cities.length >= 2) {
-					outputArea.setText("Calculating shortest path for: " + String.join(", ", cities) + "\n\n");
-					outputArea.append(controller.listShortestPath(cities));
+					start("Calculating shortest path for: " + String.join(", ", cities) + "\n\n",
+							"Finding the shortest travel path...",
+							worker -> worker.write(controller.listShortestPath(cities)));
 				} else {
 					JOptionPane.showMessageDialog(frame,
 							"Please enter at least two valid city names.",
@@ -159,6 +272,9 @@ public class GUI {
 		 * Displays goodbye message and terminates the application.
 		 */
 		btnExit.addActionListener(e -> {
+			if (currentWorker != null) {
+				currentWorker.cancel(true);
+			}
 			JOptionPane.showMessageDialog(frame, "Goodbye! Thanks for using the Travel App.");
 			System.exit(0);
 		});
@@ -166,5 +282,191 @@ public class GUI {
 		// Show the GUI window
 		frame.setVisible(true);
 	}
-}
 
+	/**
+	 * Starts a task in the background, disabling the task buttons until its job has returned.
+	 * Must be called on the Event Dispatch Thread.
+	 *
+	 * @param heading the text the output area is cleared to (null to add to the current output)
+	 * @param status  what the task is doing
+	 * @param job     the work of the task
+	 */
+	private void start(String heading, String status, Job job) {
+		if (currentWorker != null) {
+			return;
+		}
+		if (heading != null) {
+			outputArea.setText(heading);
+		}
+		for (JButton button : taskButtons) {
+			button.setEnabled(false);
+		}
+		btnMoreDistances.setEnabled(false);
+		btnCancel.setEnabled(true);
+		statusLabel.setText(status);
+		progressBar.setIndeterminate(true);
+		progressBar.setVisible(true);
+
+		currentWorker = new OutputWorker(job);
+		currentWorker.execute();
+	}
+
+	/**
+	 * Adds the next page of the distances to the output, one destination at a time.
+	 * Runs in the background.
+	 *
+	 * @param worker the task the page is shown by
+	 */
+	private void showDistancesPage(OutputWorker worker) {
+		worker.status("Listing distances...");
+		List<DistanceRow> rows = controller.findDistances(distancesShown, DISTANCES_PAGE_SIZE);
+		for (int i = 0; i < rows.size(); i++) {
+			worker.write(TextRenderer.distances(List.of(rows.get(i))));
+			worker.progress(i + 1, rows.size());
+		}
+		distancesShown += rows.size();
+		if (distancesShown < distancesCount) {
+			worker.write("\n(showing " + distancesShown + " of " + distancesCount
+					+ " destinations - press \"More distances\" for the next page, or open listDistances.txt)\n");
+		}
+	}
+
+	/**
+	 * Job interface is the work of a background task.
+	 */
+	private interface Job {
+		/**
+		 * Does the work, writing its output through the worker.
+		 *
+		 * @param worker the worker running the job
+		 * @throws Exception if the work fails
+		 */
+		void run(OutputWorker worker) throws Exception;
+	}
+
+	/**
+	 * OutputWorker runs a job off the Event Dispatch Thread and adds its output to the
+	 * output area in pieces, so a large result never stalls the window.
+	 */
+	private final class OutputWorker extends SwingWorker<Void, String> {
+
+		/**
+		 * The work of the task.
+		 */
+		private final Job job;
+
+		/**
+		 * Constructor - initialises the job.
+		 *
+		 * @param job
+		 */
+		OutputWorker(Job job) {
+			this.job = job;
+		}
+
+		/**
+		 * Runs the job on a worker thread, and restores the buttons once it has returned
+		 * (a cancelled task is done as soon as it is cancelled, while its job may still run).
+		 *
+		 * @return nothing
+		 * @throws Exception if the job fails
+		 */
+		@Override
+		protected Void doInBackground() throws Exception {
+			try {
+				job.run(this);
+				return null;
+			} finally {
+				SwingUtilities.invokeLater(this::finished);
+			}
+		}
+
+		/**
+		 * Restores the buttons after the job has returned (on the Event Dispatch Thread).
+		 */
+		private void finished() {
+			currentWorker = null;
+			for (JButton button : taskButtons) {
+				button.setEnabled(true);
+			}
+			btnCancel.setEnabled(false);
+			btnMoreDistances.setEnabled(distancesShown < distancesCount);
+			progressBar.setVisible(false);
+			statusLabel.setText(isCancelled() ? "Cancelled" : "Ready");
+		}
+
+		/**
+		 * Adds text to the output, in pieces of at most CHUNK_SIZE characters.
+		 *
+		 * @param text
+		 * @throws CancellationException if the task has been cancelled
+		 */
+		void write(String text) {
+			for (int start = 0; start < text.length(); start += CHUNK_SIZE) {
+				if (isCancelled()) {
+					throw new CancellationException();
+				}
+				publish(text.substring(start, Math.min(text.length(), start + CHUNK_SIZE)));
+			}
+		}
+
+		/**
+		 * Shows what the task is doing.
+		 *
+		 * @param text
+		 */
+		void status(String text) {
+			SwingUtilities.invokeLater(() -> statusLabel.setText(text));
+		}
+
+		/**
+		 * Shows how much of the task is done.
+		 *
+		 * @param done
+		 * @param total
+		 */
+		void progress(int done, int total) {
+			int percent = total == 0 ? 100 : (int) (100L * done / total);
+			SwingUtilities.invokeLater(() -> {
+				progressBar.setIndeterminate(false);
+				progressBar.setValue(percent);
+			});
+		}
+
+		/**
+		 * Adds published text to the output area (on the Event Dispatch Thread).
+		 *
+		 * @param chunks
+		 */
+		@Override
+		protected void process(List<String> chunks) {
+			for (String chunk : chunks) {
+				outputArea.append(chunk);
+			}
+		}
+
+		/**
+		 * Reports a failure or cancellation when the task ends (on the Event Dispatch Thread).
+		 * The buttons are restored by finished, once the job has returned.
+		 */
+		@Override
+		protected void done() {
+			try {
+				get();
+			} catch (CancellationException e) {
+				outputArea.append("\n(cancelled)\n");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IllegalArgumentException) {
+					JOptionPane.showMessageDialog(frame, cause.getMessage(), "Input Error", JOptionPane.WARNING_MESSAGE);
+				} else if (cause instanceof CancellationException) {
+					outputArea.append("\n(cancelled)\n");
+				} else {
+					JOptionPane.showMessageDialog(frame, "Something went wrong: " + cause, "Error", JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		}
+	}
+}
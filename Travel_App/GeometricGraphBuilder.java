@@ -0,0 +1,430 @@
+package Travel_App;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * GeometricGraphBuilder is a helper class that builds a CompactWeightedGraph from the destinations of a
+ * DestinationStore, weighting every edge by the great-circle distance between its two locations
+ *
+ * The sparse modes (K_NEAREST and RADIUS) use a SpatialIndex to find the neighbours of each location, make
+ * every edge two-way, and then join any separate groups of locations by their closest pair so the graph
+ * stays connected
+ *
+ * The graph can also be built in a fork/join pool - the source vertices are split across the pool and every row
+ * is written into preallocated CSR arrays, giving the same graph as the sequential build
+ *
+ * @author usman
+ */
+
+public final class GeometricGraphBuilder {
+
+    //roughly how many distances one fork/join task works out before it stops splitting
+    private static final int TASK_WORK = 1 << 15;
+    //the rough cost of one row of a sparse graph (a spatial index search)
+    private static final int SPARSE_ROW_COST = 64;
+
+    /**
+     * private constructor - the class only has static methods
+     */
+    private GeometricGraphBuilder() {
+    }
+
+    /**
+     * builds the graph of the destinations of a store in the chosen mode, splitting the source vertices across a
+     * fork/join pool - each task writes the rows of its own vertices straight into the arrays of the graph
+     * @param store
+     * @param index the spatial index of the destinations (null to build one if the mode needs it)
+     * @param mode
+     * @param parameter k for K_NEAREST, the radius in km for RADIUS (ignored for COMPLETE)
+     * @param pool the pool to build in (null to build on the calling thread)
+     * @return the built graph
+     * @throws IllegalArgumentException if the parameter does not suit the mode
+     */
+    public static CompactWeightedGraph build(DestinationStore store, SpatialIndex index, GraphMode mode, double parameter,
+                                             ForkJoinPool pool) {
+        mode.checkParameter(parameter);
+        return build(store.names(), store.latitudes(), store.longitudes(), index, mode, parameter, pool);
+    }
+
+    /**
+     * builds the graph of the columns of the locations in the chosen mode
+     * @param names
+     * @param latitudes
+     * @param longitudes
+     * @param index
+     * @param mode
+     * @param parameter
+     * @param pool the pool to build in (null to build on the calling thread)
+     * @return the built graph
+     */
+    private static CompactWeightedGraph build(String[] names, double[] latitudes, double[] longitudes, SpatialIndex index,
+                                              GraphMode mode, double parameter, ForkJoinPool pool) {
+        // converts each location to a unit vector once so no edge weight needs more trigonometry than an arctangent
+        Utility.Points points = new Utility.Points(latitudes, longitudes, names.length);
+        CompactWeightedGraph graph;
+        switch (mode) {
+            case K_NEAREST:
+            case RADIUS:
+                graph = sparse(names, latitudes, longitudes, points, index, mode, parameter, pool);
+                break;
+            default:
+                graph = pool == null ? complete(names, latitudes, longitudes, points)
+                        : completeParallel(names, latitudes, longitudes, points, pool);
+        }
+        // every edge is a great-circle distance, so A* can search the graph without checking its edges first
+        graph.markHeuristicAdmissible();
+        return graph;
+    }
+
+    /**
+     * builds the complete graph of the columns of the locations
+     * @param names
+     * @param latitudes
+     * @param longitudes
+     * @param points the unit vectors of the locations
+     * @return the complete graph
+     */
+    private static CompactWeightedGraph complete(String[] names, double[] latitudes, double[] longitudes, Utility.Points points) {
+        CompactWeightedGraph.Builder builder = vertices(names, latitudes, longitudes);
+        double[] row = new double[names.length];
+        for (int i = 0; i < names.length; i++) {
+            // works out the whole row of distances from location i in one batch
+            points.distances(i, row);
+            for (int j = 0; j < names.length; j++) {
+                builder.addEdge(i, j, row[j]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * builds the complete graph of the columns of the locations in parallel
+     * every row has exactly size edges, so the CSR arrays are allocated up front and each task fills in its own
+     * rows without locking
+     * @param names
+     * @param latitudes
+     * @param longitudes
+     * @param points the unit vectors of the locations
+     * @param pool
+     * @return the complete graph
+     */
+    private static CompactWeightedGraph completeParallel(String[] names, double[] latitudes, double[] longitudes,
+                                                         Utility.Points points, ForkJoinPool pool) {
+        int size = names.length;
+        if ((long) size * size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many locations for a complete graph: " + size);
+        }
+        int[] offsets = new int[size + 1];
+        for (int i = 0; i <= size; i++) {
+            offsets[i] = i * size;
+        }
+        int[] targets = new int[size * size];
+        double[] weights = new double[size * size];
+
+        forEachRow(pool, size, size, i -> {
+            int row = offsets[i];
+            for (int j = 0; j < size; j++) {
+                targets[row + j] = j;
+            }
+            points.distances(i, weights, row);
+        });
+        return CompactWeightedGraph.fromArrays(names, latitudes, longitudes, offsets, targets, weights);
+    }
+
+    /**
+     * builds a sparse graph - each location is connected to its nearest neighbours or the neighbours within a radius
+     * the neighbour searches (and, with a pool, the edge weights) of the locations are split across the pool
+     * @param names
+     * @param latitudes
+     * @param longitudes
+     * @param points the unit vectors of the locations
+     * @param index
+     * @param mode
+     * @param parameter
+     * @param pool the pool to build in (null to build on the calling thread)
+     * @return the sparse, connected graph
+     */
+    private static CompactWeightedGraph sparse(String[] names, double[] latitudes, double[] longitudes, Utility.Points points,
+                                               SpatialIndex index, GraphMode mode, double parameter, ForkJoinPool pool) {
+        int size = names.length;
+        if (index == null) {
+            index = new SpatialIndex(latitudes, longitudes, size);
+        }
+
+        // finds the neighbours of every location (the spatial index can be searched by many threads at once)
+        SpatialIndex searchIndex = index;
+        int[][] neighbours = new int[size][];
+        forEachRow(pool, size, SPARSE_ROW_COST, i -> {
+            int[] found = mode == GraphMode.K_NEAREST
+                    ? searchIndex.nearest(latitudes[i], longitudes[i], (int) parameter + 1)
+                    : searchIndex.withinDistance(latitudes[i], longitudes[i], parameter);
+            int kept = 0;
+            for (int neighbour : found) {
+                if (neighbour != i && (mode == GraphMode.K_NEAREST
+                        || points.distance(i, neighbour) <= parameter)) {
+                    found[kept++] = neighbour;
+                }
+            }
+            neighbours[i] = Arrays.copyOf(found, kept);
+        });
+
+        // collects every neighbour pair once as (smaller id, larger id)
+        PairList pairs = new PairList();
+        for (int i = 0; i < size; i++) {
+            for (int neighbour : neighbours[i]) {
+                pairs.add(i, neighbour);
+            }
+            neighbours[i] = null;
+        }
+
+        connectComponents(index, latitudes, longitudes, points, pairs);
+        long[] sorted = pairs.sortedDistinct();
+
+        if (pool != null) {
+            return sparseParallel(names, latitudes, longitudes, points, sorted, pool);
+        }
+
+        // adds each distinct pair as two edges (one in each direction)
+        CompactWeightedGraph.Builder builder = vertices(names, latitudes, longitudes);
+        for (long pair : sorted) {
+            int a = (int) (pair >>> 32);
+            int b = (int) pair;
+            double distance = points.distance(a, b);
+            builder.addEdge(a, b, distance);
+            builder.addEdge(b, a, distance);
+        }
+        return builder.build();
+    }
+
+    /**
+     * lays out the edges of the sorted pairs as CSR arrays (two edges per pair, in the same order as the builder
+     * would) and works out the weights of the rows in parallel
+     * @param names
+     * @param latitudes
+     * @param longitudes
+     * @param points
+     * @param sorted the distinct pairs in order
+     * @param pool
+     * @return the sparse graph
+     */
+    private static CompactWeightedGraph sparseParallel(String[] names, double[] latitudes, double[] longitudes,
+                                                       Utility.Points points, long[] sorted, ForkJoinPool pool) {
+        int size = names.length;
+        if (2L * sorted.length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many edges for a graph: " + 2L * sorted.length);
+        }
+        int[] offsets = new int[size + 1];
+        for (long pair : sorted) {
+            offsets[(int) (pair >>> 32) + 1]++;
+            offsets[(int) pair + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] targets = new int[offsets[size]];
+        int[] next = Arrays.copyOf(offsets, size);
+        for (long pair : sorted) {
+            int a = (int) (pair >>> 32);
+            int b = (int) pair;
+            targets[next[a]++] = b;
+            targets[next[b]++] = a;
+        }
+
+        double[] weights = new double[targets.length];
+        forEachRow(pool, size, SPARSE_ROW_COST, i -> {
+            for (int edge = offsets[i]; edge < offsets[i + 1]; edge++) {
+                weights[edge] = points.distance(i, targets[edge]);
+            }
+        });
+        return CompactWeightedGraph.fromArrays(names, latitudes, longitudes, offsets, targets, weights);
+    }
+
+    /**
+     * runs an action for every row (source vertex) - split across the pool, or on the calling thread without one
+     * @param pool the pool (or null)
+     * @param size the number of rows
+     * @param rowCost roughly how many distances one row works out (used to size the tasks)
+     * @param row the action for one row
+     */
+    private static void forEachRow(ForkJoinPool pool, int size, int rowCost, IntConsumer row) {
+        if (pool == null) {
+            for (int i = 0; i < size; i++) {
+                row.accept(i);
+            }
+        } else {
+            pool.invoke(new RowTask(row, 0, size, Math.max(1, TASK_WORK / Math.max(1, rowCost))));
+        }
+    }
+
+    /**
+     * creates a graph builder with a vertex for every location (the vertex id is the index of the location)
+     * @param names
+     * @param latitudes
+     * @param longitudes
+     * @return the builder
+     */
+    private static CompactWeightedGraph.Builder vertices(String[] names, double[] latitudes, double[] longitudes) {
+        CompactWeightedGraph.Builder builder = new CompactWeightedGraph.Builder();
+        for (int i = 0; i < names.length; i++) {
+            builder.addVertex(names[i], latitudes[i], longitudes[i]);
+        }
+        return builder;
+    }
+
+    /**
+     * joins the separate groups (components) of locations until there is only one
+     * every round, each group except the largest finds its closest location outside the group and is joined
+     * to it, so the number of groups at least halves each round. The search skips the parts of the spatial index
+     * inside the searching group and anything further away than the closest location the group has found so far,
+     * so a large group does not search through itself once for each of its locations
+     * @param index
+     * @param latitudes
+     * @param longitudes
+     * @param points
+     * @param pairs
+     */
+    private static void connectComponents(SpatialIndex index, double[] latitudes, double[] longitudes, Utility.Points points,
+                                          PairList pairs) {
+        int size = latitudes.length;
+        UnionFind components = new UnionFind(size);
+        for (int i = 0; i < pairs.size; i++) {
+            components.union((int) (pairs.pairs[i] >>> 32), (int) pairs.pairs[i]);
+        }
+
+        if (components.count == 1) {
+            return;
+        }
+        SpatialIndex.GroupSearch search = index.groupSearch();
+        // searches from the locations in tree order, so consecutive searches visit the same part of the tree
+        int[] order = search.order();
+        int[] groups = new int[size];
+        double[] bestDistance = new double[size];
+        int[] bestFrom = new int[size];
+        int[] bestTo = new int[size];
+        while (components.count > 1) {
+            // the largest group is never searched from - the other groups will join it
+            int largest = 0;
+            for (int i = 0; i < size; i++) {
+                groups[i] = components.find(i);
+                if (components.sizeOf(i) > components.sizeOf(largest)) {
+                    largest = i;
+                }
+            }
+            int largestRoot = groups[largest];
+            search.setGroups(groups);
+
+            Arrays.fill(bestDistance, Double.POSITIVE_INFINITY);
+            for (int i : order) {
+                int root = groups[i];
+                if (root == largestRoot) {
+                    continue;
+                }
+                int nearest = search.nearestOutside(latitudes[i], longitudes[i], root, bestDistance[root]);
+                if (nearest >= 0) {
+                    double distance = points.distance(i, nearest);
+                    if (distance < bestDistance[root]) {
+                        bestDistance[root] = distance;
+                        bestFrom[root] = i;
+                        bestTo[root] = nearest;
+                    }
+                }
+            }
+
+            for (int root = 0; root < size; root++) {
+                if (bestDistance[root] != Double.POSITIVE_INFINITY) {
+                    pairs.add(bestFrom[root], bestTo[root]);
+                    components.union(bestFrom[root], bestTo[root]);
+                }
+            }
+        }
+    }
+
+    /**
+     * RowTask object runs the action of a range of rows, splitting the range in half until it is small enough
+     */
+    private static final class RowTask extends RecursiveAction {
+
+        //the serialisation version of the task
+        private static final long serialVersionUID = 1L;
+
+        //the action for one row
+        private final IntConsumer row;
+        //the first row of the range
+        private final int from;
+        //the row after the last row of the range
+        private final int to;
+        //the largest number of rows a task runs without splitting
+        private final int grain;
+
+        /**
+         * Constructor - initialises the action and the range of rows
+         * @param row
+         * @param from
+         * @param to
+         * @param grain
+         */
+        RowTask(IntConsumer row, int from, int to, int grain) {
+            this.row = row;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        /**
+         * runs the range directly if it is small enough, otherwise splits it in half
+         */
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RowTask(row, from, middle, grain), new RowTask(row, middle, to, grain));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                row.accept(i);
+            }
+        }
+    }
+
+    /**
+     * PairList object is a growable list of vertex pairs packed into longs (smaller id in the high half)
+     */
+    private static final class PairList {
+
+        //the packed pairs
+        private long[] pairs = new long[16];
+        //the number of pairs
+        private int size;
+
+        /**
+         * adds the pair of two vertex ids
+         * @param a
+         * @param b
+         */
+        void add(int a, int b) {
+            if (size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, size * 2);
+            }
+            pairs[size++] = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+        }
+
+        /**
+         * sorts the pairs and removes the duplicates
+         * @return the distinct pairs in order
+         */
+        long[] sortedDistinct() {
+            long[] sorted = Arrays.copyOf(pairs, size);
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, distinct);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package Travel_App;
+
+/**
+ * The ways the weighted graph can connect the destinations to each other
+ *
+ * @author usman
+ */
+
+public enum GraphMode {
+    /**
+     * every location is connected to every location (n * n edges)
+     */
+    COMPLETE,
+
+    /**
+     * every location is connected to its k nearest locations (the parameter is k)
+     */
+    K_NEAREST,
+
+    /**
+     * every location is connected to the locations within a distance (the parameter is the radius in km)
+     */
+    RADIUS;
+
+    /**
+     * checks that a parameter suits the mode - k must be at least 1 for K_NEAREST and the radius must be a finite
+     * distance above 0 km for RADIUS (COMPLETE has no parameter)
+     * @param parameter
+     * @throws IllegalArgumentException if the parameter does not suit the mode
+     */
+    public void checkParameter(double parameter) {
+        switch (this) {
+            case K_NEAREST:
+                if (!(parameter >= 1 && parameter < Integer.MAX_VALUE)) {
+                    throw new IllegalArgumentException("k must be at least 1 (and below " + Integer.MAX_VALUE + "): " + parameter);
+                }
+                break;
+            case RADIUS:
+                if (!(parameter > 0 && parameter < Double.POSITIVE_INFINITY)) {
+                    throw new IllegalArgumentException("The radius must be a finite distance above 0 km: " + parameter);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package Travel_App;
+
+import java.util.List;
+
+/**
+ * GraphUpdate is one change published by VersionedWeightedGraph - the version readers had, the version that replaces
+ * it and the edges that differ between them, so caches of the old version can be repaired instead of thrown away
+ *
+ * @param previous the version before the change
+ * @param graph the new version
+ * @param changes the net change of each edge that differs (in the vertex ids of the new version)
+ * @param renumbered true if a vertex was removed, so the vertex ids of the two versions do not match and the
+ *                   changes are empty
+ *
+ * @author usman
+ */
+
+public record GraphUpdate(CompactWeightedGraph previous, CompactWeightedGraph graph, List<EdgeChange> changes,
+                          boolean renumbered) {
+
+    /**
+     * checks whether the new version has the same vertices (with the same ids) as the previous one
+     * @return true if only edges changed
+     */
+    public boolean sameVertices() {
+        return !renumbered && previous.vertexCount() == graph.vertexCount();
+    }
+}
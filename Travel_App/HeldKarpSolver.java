@@ -0,0 +1,247 @@
+package Travel_App;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * HeldKarpSolver object finds the provably shortest visiting order of a small list of cities
+ * It uses the Held-Karp dynamic programme over subsets: best[set][j] is the shortest route that starts at
+ * city 0, visits exactly the cities in set and ends at city j. Every subset of one size only depends on the
+ * subsets one city smaller, so each size (layer) is split across the fork/join pool
+ *
+ * Like RouteOptimiser, the route starts at city 0 and does not return to it
+ *
+ * @author usman
+ */
+
+public final class HeldKarpSolver {
+
+    //the largest number of cities the solver accepts (2^19 subsets * 19 end cities of state)
+    public static final int MAX_CITIES = 20;
+
+    //the number of subsets a single fork/join task works through
+    private static final int TASK_SIZE = 1 << 10;
+
+    //the time allowed for the solver in nanoseconds
+    private final long deadlineNanos;
+    //the pool the layers are split across
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor - initialises the deadline and uses the common fork/join pool
+     * @param deadlineMillis
+     */
+    public HeldKarpSolver(long deadlineMillis) {
+        this(deadlineMillis, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor - initialises the deadline and the fork/join pool
+     * @param deadlineMillis
+     * @param pool
+     */
+    public HeldKarpSolver(long deadlineMillis, ForkJoinPool pool) {
+        this.deadlineNanos = deadlineMillis * 1_000_000L;
+        this.pool = pool;
+    }
+
+    /**
+     * finds the shortest route through all the cities, starting at city 0
+     * @param distances the size*size pairwise distances (the distance from i to j is at i * size + j)
+     * @param size the number of cities
+     * @return the optimal route, or null if the deadline passed before it was found (or no route reaches every city)
+     */
+    public Route solve(double[] distances, int size) {
+        if (size > MAX_CITIES) {
+            throw new IllegalArgumentException("Too many cities for the exact solver: " + size);
+        }
+        if (size <= 2) {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            return new Route(order, RouteOptimiser.length(order, distances, size), 0, true);
+        }
+
+        long deadline = System.nanoTime() + deadlineNanos;
+        Table table = new Table(distances, size, deadline);
+
+        // the single-city subsets are the direct legs from the start city
+        for (int j = 0; j < table.cities; j++) {
+            table.best[(1 << j) * table.cities + j] = distances[j + 1];
+        }
+
+        // fills in each layer of subsets (by size) in parallel
+        for (int layer = 2; layer <= table.cities; layer++) {
+            pool.invoke(new LayerTask(table, table.layerStart[layer], table.layerStart[layer + 1]));
+            if (table.expired || Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+        }
+        return table.route();
+    }
+
+    /**
+     * Table object holds the state of one Held-Karp run in primitive arrays
+     * city i of the subsets is input city i + 1 (city 0 is the fixed start and is never in a subset)
+     */
+    private static final class Table {
+
+        //the pairwise distances of the input cities
+        private final double[] distances;
+        //the number of input cities
+        private final int size;
+        //the number of cities that appear in the subsets (every city but the start)
+        private final int cities;
+        //the time the solver has to finish by
+        private final long deadline;
+        //the shortest route length for each (subset, end city) state
+        private final double[] best;
+        //the city visited before the end city on the shortest route of each state
+        private final byte[] previous;
+        //all the subsets ordered by their size
+        private final int[] subsets;
+        //the subsets of size s are stored between layerStart[s] (inclusive) and layerStart[s + 1] (exclusive)
+        private final int[] layerStart;
+        //set when a task finds the deadline has passed
+        private volatile boolean expired;
+
+        /**
+         * Constructor - allocates the state arrays and orders the subsets by size
+         * @param distances
+         * @param size
+         * @param deadline
+         */
+        Table(double[] distances, int size, long deadline) {
+            this.distances = distances;
+            this.size = size;
+            this.cities = size - 1;
+            this.deadline = deadline;
+            int subsetCount = 1 << cities;
+            best = new double[subsetCount * cities];
+            previous = new byte[subsetCount * cities];
+            Arrays.fill(best, Double.POSITIVE_INFINITY);
+
+            // counting sort of the subsets by their number of cities
+            layerStart = new int[cities + 2];
+            for (int subset = 1; subset < subsetCount; subset++) {
+                layerStart[Integer.bitCount(subset) + 1]++;
+            }
+            for (int layer = 1; layer <= cities + 1; layer++) {
+                layerStart[layer] += layerStart[layer - 1];
+            }
+            subsets = new int[subsetCount];
+            int[] next = Arrays.copyOf(layerStart, cities + 1);
+            for (int subset = 1; subset < subsetCount; subset++) {
+                subsets[next[Integer.bitCount(subset)]++] = subset;
+            }
+        }
+
+        /**
+         * works out the shortest route length of every state of a subset
+         * @param subset
+         */
+        void solveSubset(int subset) {
+            int row = subset * cities;
+            for (int end = 0; end < cities; end++) {
+                if ((subset & (1 << end)) == 0) {
+                    continue;
+                }
+                int rest = subset ^ (1 << end);
+                int restRow = rest * cities;
+                double shortest = Double.POSITIVE_INFINITY;
+                int before = -1;
+                for (int last = 0; last < cities; last++) {
+                    if ((rest & (1 << last)) != 0) {
+                        double length = best[restRow + last] + distances[(last + 1) * size + end + 1];
+                        if (length < shortest) {
+                            shortest = length;
+                            before = last;
+                        }
+                    }
+                }
+                best[row + end] = shortest;
+                previous[row + end] = (byte) before;
+            }
+        }
+
+        /**
+         * rebuilds the route from the full subset by following the previous city of each state
+         * @return the optimal route, or null if some city cannot be reached
+         */
+        Route route() {
+            int full = (1 << cities) - 1;
+            int end = 0;
+            for (int j = 1; j < cities; j++) {
+                if (best[full * cities + j] < best[full * cities + end]) {
+                    end = j;
+                }
+            }
+            double length = best[full * cities + end];
+            if (length == Double.POSITIVE_INFINITY) {
+                return null;
+            }
+
+            int[] order = new int[size];
+            int subset = full;
+            for (int position = size - 1; position >= 1; position--) {
+                order[position] = end + 1;
+                int before = previous[subset * cities + end];
+                subset ^= 1 << end;
+                end = before;
+            }
+            return new Route(order, length, 0, true);
+        }
+    }
+
+    /**
+     * LayerTask object solves a range of the subsets of one layer, splitting the range until it is small enough
+     */
+    private static final class LayerTask extends RecursiveAction {
+
+        //the serialisation version of the task
+        private static final long serialVersionUID = 1L;
+
+        //the state of the run
+        private final Table table;
+        //the first index (into Table.subsets) of the range
+        private final int from;
+        //the index after the last index of the range
+        private final int to;
+
+        /**
+         * Constructor - initialises the table and the range of subsets
+         * @param table
+         * @param from
+         * @param to
+         */
+        LayerTask(Table table, int from, int to) {
+            this.table = table;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * solves the range directly if it is small enough, otherwise splits it in half
+         */
+        @Override
+        protected void compute() {
+            if (table.expired) {
+                return;
+            }
+            if (to - from > TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LayerTask(table, from, middle), new LayerTask(table, middle, to));
+                return;
+            }
+            if (System.nanoTime() > table.deadline) {
+                table.expired = true;
+                return;
+            }
+            for (int index = from; index < to; index++) {
+                table.solveSubset(table.subsets[index]);
+            }
+        }
+    }
+}
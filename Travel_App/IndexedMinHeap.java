@@ -0,0 +1,176 @@
+package Travel_App;
+
+import java.util.Arrays;
+
+/**
+ * IndexedMinHeap object is a binary min-heap of int vertex ids keyed by double distances
+ * Each vertex can be in the heap at most once, so a shorter distance is applied with decrease-key
+ * instead of pushing a duplicate entry - no objects are allocated per push
+ *
+ * @author usman
+ */
+
+final class IndexedMinHeap {
+
+    //position marker of a vertex that is not (and has not been) in the heap
+    private static final int ABSENT = -1;
+    //position marker of a vertex that has been removed from the heap
+    private static final int POLLED = -2;
+
+    //the vertex ids in heap order
+    private int[] heap;
+    //the heap position of each vertex (or ABSENT / POLLED)
+    private int[] positions;
+    //the key (distance) of each vertex in the heap
+    private double[] keys;
+    //the number of vertices currently in the heap
+    private int size;
+
+    /**
+     * Constructor - initialises an empty heap for vertex ids below the capacity
+     * @param capacity
+     */
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    /**
+     * grows the heap so it can hold vertex ids below the vertex count
+     * @param vertexCount
+     */
+    void ensureCapacity(int vertexCount) {
+        if (vertexCount > positions.length) {
+            int oldCapacity = positions.length;
+            heap = Arrays.copyOf(heap, vertexCount);
+            positions = Arrays.copyOf(positions, vertexCount);
+            keys = Arrays.copyOf(keys, vertexCount);
+            Arrays.fill(positions, oldCapacity, vertexCount, ABSENT);
+        }
+    }
+
+    /**
+     * checks whether the heap is empty
+     * @return true if there are no vertices in the heap
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * checks whether a vertex has already been removed from the heap (i.e. it is settled)
+     * @param vertex
+     * @return true if the vertex was polled since the last reset
+     */
+    boolean wasPolled(int vertex) {
+        return positions[vertex] == POLLED;
+    }
+
+    /**
+     * gets the smallest key in the heap
+     * @return the minimum key (infinity if the heap is empty)
+     */
+    double minKey() {
+        return size == 0 ? Double.POSITIVE_INFINITY : keys[heap[0]];
+    }
+
+    /**
+     * adds a vertex to the heap, or lowers its key if it is already in the heap
+     * a polled vertex is added back (used when a search re-opens a vertex)
+     * @param vertex
+     * @param key
+     */
+    void insertOrDecrease(int vertex, double key) {
+        int position = positions[vertex];
+        if (position < 0) {
+            position = size++;
+            heap[position] = vertex;
+        } else if (key >= keys[vertex]) {
+            return;
+        }
+        keys[vertex] = key;
+        siftUp(position, vertex);
+    }
+
+    /**
+     * removes the vertex with the smallest key from the heap
+     * @return the removed vertex id
+     */
+    int pollMin() {
+        int min = heap[0];
+        positions[min] = POLLED;
+        size--;
+        if (size > 0) {
+            siftDown(0, heap[size]);
+        }
+        return min;
+    }
+
+    /**
+     * forgets everything the heap knows about a vertex (used to reset only the vertices a search touched)
+     * @param vertex
+     */
+    void forget(int vertex) {
+        positions[vertex] = ABSENT;
+    }
+
+    /**
+     * empties the heap - the vertices still in it are forgotten
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    /**
+     * moves a vertex up from a position until its parent has a smaller key
+     * @param position
+     * @param vertex
+     */
+    private void siftUp(int position, int vertex) {
+        double key = keys[vertex];
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int parent = heap[parentPosition];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[position] = parent;
+            positions[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = vertex;
+        positions[vertex] = position;
+    }
+
+    /**
+     * moves a vertex down from a position until both children have larger keys
+     * @param position
+     * @param vertex
+     */
+    private void siftDown(int position, int vertex) {
+        double key = keys[vertex];
+        int half = size >>> 1;
+        while (position < half) {
+            int childPosition = 2 * position + 1;
+            int child = heap[childPosition];
+            int rightPosition = childPosition + 1;
+            if (rightPosition < size && keys[heap[rightPosition]] < keys[child]) {
+                childPosition = rightPosition;
+                child = heap[childPosition];
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            heap[position] = child;
+            positions[child] = position;
+            position = childPosition;
+        }
+        heap[position] = vertex;
+        positions[vertex] = position;
+    }
+}
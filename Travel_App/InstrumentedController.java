@@ -0,0 +1,132 @@
+package Travel_App;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * InstrumentedController object wraps another Controller and records the latency of every call in Metrics (and
+ * counts the calls that fail), so the controller itself only has to time its inner phases
+ *
+ * It is as safe to share between threads as the controller it wraps
+ *
+ * @author usman
+ */
+
+public final class InstrumentedController implements Controller {
+
+    //the controller the calls are passed to
+    private final Controller controller;
+
+    /**
+     * Constructor - initialises the wrapped controller
+     * @param controller
+     */
+    public InstrumentedController(Controller controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    public String listDestinations(String destination) {
+        return time(Metrics.Timer.LIST_DESTINATIONS, () -> controller.listDestinations(destination));
+    }
+
+    @Override
+    public String listNearbyDestinations(double latitude, double longitude, int distance) {
+        return time(Metrics.Timer.LIST_NEARBY_DESTINATIONS, () -> controller.listNearbyDestinations(latitude, longitude, distance));
+    }
+
+    @Override
+    public String listNearbyDestinations(double latitude, double longitude, int distance, int offset, int limit) {
+        return time(Metrics.Timer.LIST_NEARBY_DESTINATIONS,
+                () -> controller.listNearbyDestinations(latitude, longitude, distance, offset, limit));
+    }
+
+    @Override
+    public String listDistances() {
+        return time(Metrics.Timer.LIST_DISTANCES, controller::listDistances);
+    }
+
+    @Override
+    public String listDistances(int offset, int limit) {
+        return time(Metrics.Timer.LIST_DISTANCES, () -> controller.listDistances(offset, limit));
+    }
+
+    @Override
+    public int exportDistances(String fileName, DistanceFormat format, boolean compress) throws IOException {
+        long start = Metrics.start();
+        try {
+            return controller.exportDistances(fileName, format, compress);
+        } catch (IOException | RuntimeException e) {
+            Metrics.increment(Metrics.Counter.FAILED_OPERATIONS);
+            throw e;
+        } finally {
+            Metrics.stop(Metrics.Timer.EXPORT_DISTANCES, start);
+        }
+    }
+
+    @Override
+    public String listShortestPath(String[] cities2visit) {
+        return time(Metrics.Timer.LIST_SHORTEST_PATH, () -> controller.listShortestPath(cities2visit));
+    }
+
+    @Override
+    public String listShortestPath(String[] cities2visit, RouteMode mode) {
+        return time(Metrics.Timer.LIST_SHORTEST_PATH, () -> controller.listShortestPath(cities2visit, mode));
+    }
+
+    @Override
+    public List<DestinationRow> findDestinations(String destination) {
+        return time(Metrics.Timer.FIND_DESTINATIONS, () -> controller.findDestinations(destination));
+    }
+
+    @Override
+    public List<NearbyHit> findNearbyDestinations(double latitude, double longitude, int distance, int offset, int limit) {
+        return time(Metrics.Timer.FIND_NEARBY_DESTINATIONS,
+                () -> controller.findNearbyDestinations(latitude, longitude, distance, offset, limit));
+    }
+
+    @Override
+    public Iterable<DistanceRow> findDistances() {
+        return time(Metrics.Timer.FIND_DISTANCES, controller::findDistances);
+    }
+
+    @Override
+    public List<DistanceRow> findDistances(int offset, int limit) {
+        return time(Metrics.Timer.FIND_DISTANCES, () -> controller.findDistances(offset, limit));
+    }
+
+    @Override
+    public RoutePlan planShortestPath(String[] cities2visit, RouteMode mode) {
+        return time(Metrics.Timer.PLAN_SHORTEST_PATH, () -> controller.planShortestPath(cities2visit, mode));
+    }
+
+    @Override
+    public String listParetoRoutes(String from, String to, double costWeight) {
+        return time(Metrics.Timer.LIST_PARETO_ROUTES, () -> controller.listParetoRoutes(from, to, costWeight));
+    }
+
+    @Override
+    public ParetoFront findParetoRoutes(String from, String to) {
+        return time(Metrics.Timer.FIND_PARETO_ROUTES, () -> controller.findParetoRoutes(from, to));
+    }
+
+    /**
+     * times a call, counting it as failed if it throws
+     * @param timer
+     * @param call
+     * @param <T> the type of the result
+     * @return the result of the call
+     */
+    private static <T> T time(Metrics.Timer timer, Supplier<T> call) {
+        long start = Metrics.start();
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            Metrics.increment(Metrics.Counter.FAILED_OPERATIONS);
+            throw e;
+        } finally {
+            Metrics.stop(timer, start);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package Travel_App;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram object counts latencies (in nanoseconds) in log-linear buckets, like HdrHistogram: every power of
+ * two is split into SUB_BUCKETS equal buckets, so a value is kept to within 1/SUB_BUCKETS (6.25%) of itself from one
+ * nanosecond up to the largest long, in a fixed array of counters
+ *
+ * Recording is lock-free (one atomic increment of the value's bucket plus two striped adders), so any number of
+ * threads may record at once. A snapshot is a copy of the counters that percentiles are then read from
+ *
+ * @author usman
+ */
+
+final class LatencyHistogram {
+
+    //log2 of the number of buckets each power of two is split into
+    private static final int SUB_BUCKET_BITS = 4;
+    //the number of buckets each power of two is split into
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    //values below this are counted exactly (one bucket per value)
+    private static final int EXACT_LIMIT = SUB_BUCKETS;
+    //the number of buckets needed for every non-negative long
+    static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    //the number of values in each bucket
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    //the sum of the values
+    private final LongAdder sum = new LongAdder();
+    //the largest value
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * records a value
+     * @param nanos the latency (negative values are counted as 0)
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * clears every count
+     */
+    void reset() {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            counts.set(bucket, 0);
+        }
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * copies the counts (values recorded while the copy is made may or may not be included)
+     * @return the snapshot
+     */
+    Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            copy[bucket] = counts.get(bucket);
+            total += copy[bucket];
+        }
+        return new Snapshot(copy, total, sum.sum(), max.get());
+    }
+
+    /**
+     * works out the bucket of a value
+     * @param value a non-negative value
+     * @return the bucket
+     */
+    static int bucketOf(long value) {
+        if (value < EXACT_LIMIT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * works out the smallest value of a bucket
+     * @param bucket
+     * @return the value
+     */
+    static long lowestValueOf(int bucket) {
+        if (bucket < EXACT_LIMIT) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * works out the largest value of a bucket
+     * @param bucket
+     * @return the value
+     */
+    static long highestValueOf(int bucket) {
+        return bucket + 1 < BUCKET_COUNT ? lowestValueOf(bucket + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    /**
+     * Snapshot object is a copy of the counts of a histogram at one time
+     */
+    static final class Snapshot {
+
+        //the number of values in each bucket
+        private final long[] counts;
+        //the number of values
+        private final long count;
+        //the sum of the values
+        private final long sum;
+        //the largest value
+        private final long max;
+
+        /**
+         * Constructor - initialises the copied counts
+         * @param counts
+         * @param count
+         * @param sum
+         * @param max
+         */
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * gets the number of values
+         * @return the count
+         */
+        long getCount() {
+            return count;
+        }
+
+        /**
+         * gets the mean of the values
+         * @return the mean in nanoseconds (0 if there are none)
+         */
+        double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * gets the largest value
+         * @return the value in nanoseconds
+         */
+        long getMax() {
+            return max;
+        }
+
+        /**
+         * gets the value a percentage of the values are at or below (to within the bucket width)
+         * @param percentile from 0 to 100
+         * @return the value in nanoseconds - the largest value of its bucket, but never more than the largest
+         *         value recorded (0 if there are no values)
+         */
+        long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(bucket), max);
+                }
+            }
+            return max;
+        }
+    }
+}
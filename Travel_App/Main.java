@@ -1,5 +1,7 @@
 package Travel_App;
 
+import java.io.IOException;
+
 /**
  * Main class contains the main method which is used to execute the program
  *
@@ -7,13 +9,49 @@ package Travel_App;
  */
 
 public class Main {
+
+	//how often the metrics are printed when they are turned on (seconds)
+	private static final int METRICS_PERIOD_SECONDS = 60;
+
 	/**
 	 * The main method is executed when the program is run
+	 * With "--server [port]" it runs the headless HTTP server instead of the GUI
+	 * With "--metrics" it records the latency of every controller call and the work of the graph searches,
+	 * publishes them to JMX and prints them every minute (as JSON for the server, as text for the GUI)
 	 * @param args
+	 * @throws IOException if the server cannot listen on its port
 	 */
 
-	public static void main(String[] args) {
-		new GUI(new MyController());
+	public static void main(String[] args) throws IOException {
+		boolean server = false;
+		boolean metrics = false;
+		int port = TravelServer.DEFAULT_PORT;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--server")) {
+				server = true;
+				if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+					port = Integer.parseInt(args[++i]);
+				}
+			} else if (args[i].equals("--metrics")) {
+				metrics = true;
+			}
+		}
+
+		// turns the metrics on first, so loading the destinations is recorded too
+		if (metrics) {
+			Metrics.setEnabled(true);
+			Metrics.registerMBean();
+			Metrics.startDump(System.out, METRICS_PERIOD_SECONDS, server);
+		}
+		Controller controller = metrics ? new InstrumentedController(new MyController()) : new MyController();
+
+		if (server) {
+			TravelServer travelServer = new TravelServer(controller, port);
+			travelServer.start();
+			System.out.println("Travel App server listening on port " + travelServer.getPort());
+		} else {
+			new GUI(controller);
+		}
 	}
 
 }
@@ -0,0 +1,544 @@
+package Travel_App;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics is a helper class that records how long the Controller operations and their phases take (in lock-free
+ * latency histograms) and counts the work they do (in striped counters)
+ *
+ * Recording is off until setEnabled(true) is called. While it is off, start() returns 0 and stop and add return
+ * after reading one volatile flag, so the instrumented code costs next to nothing. The searches of the graph count
+ * their work in local variables and add it once per search, never per edge
+ *
+ * The metrics can be read as text or JSON, dumped periodically to a stream (startDump), and are published to JMX as
+ * the MXBean "Travel_App:type=Metrics" by registerMBean()
+ *
+ * @author usman
+ */
+
+public final class Metrics {
+
+    /**
+     * The timed operations and phases
+     */
+    public enum Timer {
+        /**
+         * Controller.listDestinations
+         */
+        LIST_DESTINATIONS,
+        /**
+         * Controller.listNearbyDestinations
+         */
+        LIST_NEARBY_DESTINATIONS,
+        /**
+         * Controller.listDistances
+         */
+        LIST_DISTANCES,
+        /**
+         * Controller.listShortestPath
+         */
+        LIST_SHORTEST_PATH,
+        /**
+         * Controller.findDestinations
+         */
+        FIND_DESTINATIONS,
+        /**
+         * Controller.findNearbyDestinations
+         */
+        FIND_NEARBY_DESTINATIONS,
+        /**
+         * Controller.findDistances (getting the rows, not iterating them)
+         */
+        FIND_DISTANCES,
+        /**
+         * Controller.planShortestPath
+         */
+        PLAN_SHORTEST_PATH,
+        /**
+         * Controller.exportDistances
+         */
+        EXPORT_DISTANCES,
+        /**
+         * Controller.listParetoRoutes
+         */
+        LIST_PARETO_ROUTES,
+        /**
+         * Controller.findParetoRoutes
+         */
+        FIND_PARETO_ROUTES,
+        /**
+         * reading the CSV file
+         */
+        CSV_PARSE,
+        /**
+         * loading the snapshot file (whether or not it is usable)
+         */
+        SNAPSHOT_LOAD,
+        /**
+         * writing the snapshot file (in the background after a graph build)
+         */
+        SNAPSHOT_WRITE,
+        /**
+         * building the weighted graph
+         */
+        GRAPH_BUILD,
+        /**
+         * building the all-pairs distance matrix
+         */
+        DISTANCE_MATRIX,
+        /**
+         * publishing a changed version of the graph (including repairing its distance matrix and tree cache)
+         */
+        GRAPH_UPDATE,
+        /**
+         * one single-source Dijkstra search (to every vertex)
+         */
+        SHORTEST_DISTANCES,
+        /**
+         * one point-to-point search (Dijkstra, A* or bidirectional)
+         */
+        SHORTEST_PATH,
+        /**
+         * ordering the cities of a route
+         */
+        ROUTE_SOLVE,
+        /**
+         * one distance versus cost route search (the labels it takes count as settled vertices)
+         */
+        PARETO_SEARCH,
+        /**
+         * formatting a result as text
+         */
+        RENDER
+    }
+
+    /**
+     * The counted events
+     */
+    public enum Counter {
+        /**
+         * vertices taken from the heap by the searches
+         */
+        VERTICES_SETTLED,
+        /**
+         * edges looked at by the searches
+         */
+        EDGES_RELAXED,
+        /**
+         * vertices added to the heap or moved up it by the searches
+         */
+        HEAP_PUSHES,
+        /**
+         * queries that found the graph already built (or being built by another query)
+         */
+        GRAPH_CACHE_HITS,
+        /**
+         * queries that had to build the graph
+         */
+        GRAPH_CACHE_MISSES,
+        /**
+         * edges of the graphs built (over the GRAPH_BUILD time, the edges built per second)
+         */
+        GRAPH_EDGES_BUILT,
+        /**
+         * loads that used the snapshot file
+         */
+        SNAPSHOT_HITS,
+        /**
+         * loads that had to read the CSV file
+         */
+        SNAPSHOT_MISSES,
+        /**
+         * shortest path tree lookups that found the tree cached (or being searched for)
+         */
+        SHORTEST_PATH_CACHE_HITS,
+        /**
+         * shortest path tree lookups that had to search the graph
+         */
+        SHORTEST_PATH_CACHE_MISSES,
+        /**
+         * shortest path trees evicted from the cache to stay within its memory budget
+         */
+        SHORTEST_PATH_CACHE_EVICTIONS,
+        /**
+         * cached shortest path trees kept (and repaired if needed) when the graph changed
+         */
+        SHORTEST_PATH_TREES_REPAIRED,
+        /**
+         * cached shortest path trees dropped because the graph changed under them
+         */
+        SHORTEST_PATH_TREES_DROPPED,
+        /**
+         * 2-opt and Or-opt moves made by the heuristic route optimiser
+         */
+        ROUTE_IMPROVEMENTS,
+        /**
+         * Controller operations that threw an exception
+         */
+        FAILED_OPERATIONS
+    }
+
+    //the name the MXBean is registered under
+    public static final String OBJECT_NAME = "Travel_App:type=Metrics";
+
+    //the percentiles reported for each timer
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    //the histogram of each timer (by ordinal)
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[Timer.values().length];
+    //the adder of each counter (by ordinal)
+    private static final LongAdder[] COUNTERS = new LongAdder[Counter.values().length];
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < COUNTERS.length; i++) {
+            COUNTERS[i] = new LongAdder();
+        }
+    }
+
+    //true while metrics are recorded
+    private static volatile boolean enabled = Boolean.getBoolean("travel.metrics");
+    //runs the periodic dump (created on first use)
+    private static ScheduledExecutorService dumpExecutor;
+    //the running periodic dump (null if none)
+    private static ScheduledFuture<?> dump;
+
+    /**
+     * private constructor - the class only has static methods
+     */
+    private Metrics() {
+    }
+
+    /**
+     * checks whether metrics are recorded
+     * @return true if they are
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * turns recording on or off (the values recorded so far are kept)
+     * @param on
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * starts timing
+     * @return the start time to pass to stop (0 if metrics are off)
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * stops timing and records the time
+     * @param timer
+     * @param start the value returned by start()
+     */
+    public static void stop(Timer timer, long start) {
+        if (start != 0 && enabled) {
+            HISTOGRAMS[timer.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * records a time that was measured elsewhere
+     * @param timer
+     * @param nanos
+     */
+    public static void record(Timer timer, long nanos) {
+        if (enabled) {
+            HISTOGRAMS[timer.ordinal()].record(nanos);
+        }
+    }
+
+    /**
+     * adds one to a counter
+     * @param counter
+     */
+    public static void increment(Counter counter) {
+        if (enabled) {
+            COUNTERS[counter.ordinal()].increment();
+        }
+    }
+
+    /**
+     * adds to a counter
+     * @param counter
+     * @param amount
+     */
+    public static void add(Counter counter, long amount) {
+        if (enabled) {
+            COUNTERS[counter.ordinal()].add(amount);
+        }
+    }
+
+    /**
+     * records one search of the graph - its time and the work it did
+     * @param timer SHORTEST_DISTANCES or SHORTEST_PATH
+     * @param start the value returned by start()
+     * @param settled the vertices taken from the heap
+     * @param relaxed the edges looked at
+     * @param pushes the vertices added to or moved up the heap
+     */
+    static void recordSearch(Timer timer, long start, long settled, long relaxed, long pushes) {
+        if (start != 0 && enabled) {
+            HISTOGRAMS[timer.ordinal()].record(System.nanoTime() - start);
+            COUNTERS[Counter.VERTICES_SETTLED.ordinal()].add(settled);
+            COUNTERS[Counter.EDGES_RELAXED.ordinal()].add(relaxed);
+            COUNTERS[Counter.HEAP_PUSHES.ordinal()].add(pushes);
+        }
+    }
+
+    /**
+     * gets the value of a counter
+     * @param counter
+     * @return the value
+     */
+    public static long get(Counter counter) {
+        return COUNTERS[counter.ordinal()].sum();
+    }
+
+    /**
+     * gets the number of times recorded by a timer
+     * @param timer
+     * @return the count
+     */
+    public static long count(Timer timer) {
+        return HISTOGRAMS[timer.ordinal()].snapshot().getCount();
+    }
+
+    /**
+     * clears every timer and counter
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        for (LongAdder counter : COUNTERS) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * formats the metrics as text - one line per timer that has recorded something, then one line per counter
+     * @return the text
+     */
+    public static String toText() {
+        StringBuilder text = new StringBuilder(2048);
+        text.append(String.format(Locale.ROOT, "%-26s %10s %10s %10s %10s %10s %10s %10s\n",
+                "Timer (ms)", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (Timer timer : Timer.values()) {
+            LatencyHistogram.Snapshot snapshot = HISTOGRAMS[timer.ordinal()].snapshot();
+            if (snapshot.getCount() == 0) {
+                continue;
+            }
+            text.append(String.format(Locale.ROOT, "%-26s %10d %10.3f", timer, snapshot.getCount(), snapshot.getMean() / 1e6));
+            for (double percentile : PERCENTILES) {
+                text.append(String.format(Locale.ROOT, " %10.3f", snapshot.getValueAtPercentile(percentile) / 1e6));
+            }
+            text.append(String.format(Locale.ROOT, " %10.3f\n", snapshot.getMax() / 1e6));
+        }
+        for (Counter counter : Counter.values()) {
+            text.append(String.format(Locale.ROOT, "%-26s %10d\n", counter, get(counter)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * formats the metrics as JSON - {"enabled": ..., "timers": {NAME: {"count": ..., "meanMillis": ..., ...}},
+     * "counters": {NAME: ...}}
+     * @return the JSON
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\"enabled\":").append(enabled).append(",\"timers\":{");
+        boolean first = true;
+        for (Timer timer : Timer.values()) {
+            LatencyHistogram.Snapshot snapshot = HISTOGRAMS[timer.ordinal()].snapshot();
+            if (snapshot.getCount() == 0) {
+                continue;
+            }
+            json.append(first ? "\"" : ",\"").append(timer).append("\":{\"count\":").append(snapshot.getCount())
+                    .append(",\"meanMillis\":").append(snapshot.getMean() / 1e6);
+            for (double percentile : PERCENTILES) {
+                json.append(",\"p").append(percentileName(percentile)).append("Millis\":")
+                        .append(snapshot.getValueAtPercentile(percentile) / 1e6);
+            }
+            json.append(",\"maxMillis\":").append(snapshot.getMax() / 1e6).append('}');
+            first = false;
+        }
+        json.append("},\"counters\":{");
+        first = true;
+        for (Counter counter : Counter.values()) {
+            json.append(first ? "\"" : ",\"").append(counter).append("\":").append(get(counter));
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * names a percentile for a JSON key or MXBean item (99.9 is "99_9")
+     * @param percentile
+     * @return the name
+     */
+    private static String percentileName(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile)
+                : String.valueOf(percentile).replace('.', '_');
+    }
+
+    /**
+     * starts printing the metrics to a stream at a fixed period (replacing any dump already running)
+     * @param out
+     * @param periodSeconds
+     * @param json true for JSON (one line per dump), false for text
+     */
+    public static synchronized void startDump(PrintStream out, long periodSeconds, boolean json) {
+        stopDump();
+        if (dumpExecutor == null) {
+            dumpExecutor = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "travel-metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        dump = dumpExecutor.scheduleAtFixedRate(() -> out.println(json ? toJson() : toText()),
+                periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * stops the periodic dump (if one is running)
+     */
+    public static synchronized void stopDump() {
+        if (dump != null) {
+            dump.cancel(false);
+            dump = null;
+        }
+    }
+
+    /**
+     * publishes the metrics to the platform MBean server (does nothing if they already are)
+     * @throws IllegalStateException if the MXBean cannot be registered
+     */
+    public static void registerMBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new MBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // already registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * MetricsMXBean interface is the JMX view of the metrics
+     */
+    public interface MetricsMXBean {
+        /**
+         * checks whether metrics are recorded
+         * @return true if they are
+         */
+        boolean isEnabled();
+
+        /**
+         * turns recording on or off
+         * @param on
+         */
+        void setEnabled(boolean on);
+
+        /**
+         * gets every counter
+         * @return the value of each counter by name
+         */
+        Map<String, Long> getCounters();
+
+        /**
+         * gets the latencies of every timer that has recorded something
+         * @return "TIMER.count", "TIMER.meanMillis", "TIMER.p50Millis" ... "TIMER.maxMillis" by name
+         */
+        Map<String, Double> getLatencies();
+
+        /**
+         * gets every metric as JSON
+         * @return the JSON
+         */
+        String getJson();
+
+        /**
+         * clears every timer and counter
+         */
+        void reset();
+    }
+
+    /**
+     * MBean object publishes the static metrics through the MetricsMXBean interface
+     */
+    private static final class MBean implements MetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return Metrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean on) {
+            Metrics.setEnabled(on);
+        }
+
+        @Override
+        public Map<String, Long> getCounters() {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            for (Counter counter : Counter.values()) {
+                counters.put(counter.name(), get(counter));
+            }
+            return counters;
+        }
+
+        @Override
+        public Map<String, Double> getLatencies() {
+            Map<String, Double> latencies = new LinkedHashMap<>();
+            for (Timer timer : Timer.values()) {
+                LatencyHistogram.Snapshot snapshot = HISTOGRAMS[timer.ordinal()].snapshot();
+                if (snapshot.getCount() == 0) {
+                    continue;
+                }
+                latencies.put(timer + ".count", (double) snapshot.getCount());
+                latencies.put(timer + ".meanMillis", snapshot.getMean() / 1e6);
+                for (double percentile : PERCENTILES) {
+                    latencies.put(timer + ".p" + percentileName(percentile) + "Millis", snapshot.getValueAtPercentile(percentile) / 1e6);
+                }
+                latencies.put(timer + ".maxMillis", snapshot.getMax() / 1e6);
+            }
+            return latencies;
+        }
+
+        @Override
+        public String getJson() {
+            return toJson();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
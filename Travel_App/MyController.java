@@ -2,29 +2,91 @@ package Travel_App;
 
 import java.util.*;
 import java.io.*;
-import java.util.zip.DataFormatException;
+import java.nio.file.Paths;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * MyController class implements the Controller interface - it implements the 4 functional requirements of the system and private methods which aid in implementing the 4 functional requirements
  *
+ * One controller can be shared by many threads. The destinations, their indexes and the graph settings are held in an
+ * immutable Dataset that is replaced as a whole (copy-on-write) when the destinations are reloaded or the graph mode
+ * changes, so every query reads one consistent Dataset without locking. The graph of a Dataset is built once, by the
+ * first query that needs it, while any other query that needs it at the same time waits for that build
+ *
+ * Route changes (new distances and closures) do not rebuild the graph - they publish a new version of it in a new
+ * Dataset, with its distance matrix and shortest path trees repaired where the change affects them
+ *
  * @author usman
  */
 
 public class MyController implements Controller {
 
-
-    //destinationList is the map that holds all the locations after being read from the CSV file
-    private Map<String, Location> destinationList;
-    //Graph that holds the locations and distances between each location
-    private WeightedGraphADT graph;
+    //writes the snapshots of built graphs in the background, so the query that built the graph does not wait for the file
+    private static final ExecutorService SNAPSHOT_WRITER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "travel-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //the current destinations, their indexes and graph (replaced as a whole, never changed)
+    private final AtomicReference<Dataset> dataset = new AtomicReference<>();
+    //the CSV file the destinations are read from
+    private final File sourceFile;
+    //the binary snapshot of the destinations, graph and distance matrix that is loaded instead of the CSV file when up to date
+    private final File snapshotFile;
+    //held while the snapshot file is written (two writers would share the temporary file)
+    private final Object snapshotLock = new Object();
+    //held while the listDistances text file is written
+    private final Object distancesFileLock = new Object();
+    //held while a route is changed (one change at a time makes the next version of the graph)
+    private final Object routeLock = new Object();
+    //the time the exact route solver may run before the heuristic route is used instead
+    private volatile long exactRouteDeadlineMillis = 2000;
+    //the pool the graph is built in (null to build it on the calling thread)
+    private volatile ForkJoinPool graphBuildPool = ForkJoinPool.commonPool();
+    //the memory budget of the shortest path tree cache of each graph
+    private volatile long shortestPathCacheBytes = ShortestPathCache.DEFAULT_MAX_BYTES;
+    //the largest number of labels a distance versus cost route search may create
+    private volatile int paretoLabelBudget = ParetoRouter.DEFAULT_MAX_LABELS;
 
     /**
-     * Constructor - it initialise the destinationList Map and calls the private method Readfile to read the CSV file
+     * Constructor - it loads the destinations (from the snapshot file if it is up to date, otherwise from the CSV file)
      */
     public MyController(){
-        destinationList = new HashMap<>();
-        readFile("destinations.csv");
+        this("destinations.csv");
+    }
+
+    /**
+     * Constructor - it loads the destinations of a CSV file (from its snapshot file if it is up to date)
+     * @param fileName
+     */
+    public MyController(String fileName) {
+        sourceFile = new File(fileName);
+        snapshotFile = new File(fileName.replaceFirst("\\.csv$", "") + ".snapshot");
+        dataset.set(loadDestinations(GraphMode.COMPLETE, 0));
+    }
 
+    /**
+     * reads the destinations again and publishes them in place of the current ones - queries that are already running
+     * finish with the destinations they started with
+     */
+    public void reload() {
+        Dataset current = dataset.get();
+        Dataset loaded = loadDestinations(current.graphMode, current.graphParameter);
+        // keeps any graph mode set while the file was being read, and the route changes (the graph of the new
+        // destinations is built with them)
+        dataset.updateAndGet(latest -> {
+            Dataset result = latest.graphMode == loaded.graphMode && latest.graphParameter == loaded.graphParameter
+                    ? loaded : loaded.withGraphMode(latest.graphMode, latest.graphParameter);
+            return latest.routeEdits.isEmpty() ? result : result.withRouteEdits(latest.routeEdits, null);
+        });
     }
 
     /**
@@ -33,31 +95,44 @@ public class MyController implements Controller {
      * @param destination	"all" for listing information about all destination cities;
      *                      specific city name, e.g. "London", for listing information about
      *                      the specified city.
-     * @return a string of the destinations from the DestinationList Map in a formatted layout
+     * @return a string of the destinations from the destination store in a formatted layout
      */
 
     @Override
     public String listDestinations(String destination) {
-        StringBuilder result = new StringBuilder();
-        // adds the titles under which the destinations will be displayed to the result String
-        result.append(String.format("%-10s %-85s %-10s %s %6s\n","Name","Description","Latitude","Longitude","Cost" ));
+        List<DestinationRow> rows = findDestinations(destination);
+        long start = Metrics.start();
+        String text = TextRenderer.destinations(rows, destination.equalsIgnoreCase("all"));
+        Metrics.stop(Metrics.Timer.RENDER, start);
+        return text;
+    }
 
-        //loops through all the destinationList Map (if "all" is parameter specified)
-        if (destination.equalsIgnoreCase("all")){
-            for (Map.Entry<String, Location> entry: destinationList.entrySet()) {
-                String key = entry.getKey();
+    /**
+     * finds all or a specified destination
+     *
+     * @param destination	"all" for every destination (in alphabetical order); a specific city name for that city
+     * @return the destination rows
+     */
+    @Override
+    public List<DestinationRow> findDestinations(String destination) {
+        DestinationStore store = dataset.get().store;
 
-                //adds the location key and values to the results string (in the specified format layout using String.format())
-                result.append(String.format("%-10s %-85s %.4f %10.4f %9s\n",key,entry.getValue().getDescription(),entry.getValue().getLatitude(), entry.getValue().getLongitude(),entry.getValue().getCost()));
+        //adds all the destinations in alphabetical order (if "all" is parameter specified)
+        if (destination.equalsIgnoreCase("all")){
+            List<DestinationRow> rows = new ArrayList<>(store.size());
+            for (int position = 0; position < store.size(); position++) {
+                rows.add(row(store, store.idInNameOrder(position)));
             }
-        } else{
-            // if a specified location is passed as parameter - then the key and values for that location are added to the result string instead
-            result.append(String.format("%-10s %-85s %.4f %10.4f %9s",destination, destinationList.get(destination).getDescription(),destinationList.get(destination).getLatitude(), destinationList.get(destination).getLongitude(), destinationList.get(destination).getCost() ));
+            return rows;
         }
-        return result.toString();
+        // if a specified location is passed as parameter - then only that location is added
+        int id = store.idOf(destination);
+        if (id < 0) {
+            throw new IllegalArgumentException("Unknown location: " + destination);
+        }
+        return Collections.singletonList(row(store, id));
     }
 
-
     /**
      * produces a string of nearby locations (within a specified distance) ordered cost and distance (in a user-friendly formatted layout)
      *
@@ -68,63 +143,155 @@ public class MyController implements Controller {
      */
     @Override
     public String listNearbyDestinations(double latitude1, double longitude1, int distance) {
+        return listNearbyDestinations(latitude1, longitude1, distance, 0, Integer.MAX_VALUE);
+    }
 
-        //priority queue that prioritises locations initially by cost and then by distance
-        PriorityQueue<Location> nearbyDestinations = new PriorityQueue<>(new LocationComparator(latitude1, longitude1));
-        StringBuilder results = new StringBuilder();
-
-        //enhanced for loop that iterates through all the locations within destinationList (via entrySet.())
-        for (Map.Entry<String, Location> entry: destinationList.entrySet()) {
-            //retrieves latitude of location (in destinationList)
-            double latitude2 = entry.getValue().getLatitude();
-            //retrieves latitude of location (in destinationList)
-            double longitude2 = entry.getValue().getLongitude();
-            //calculates the distance of the destination (in destinationList) from the current location
-            double calculatedDistance = Utility.calculateDistance(latitude2, longitude2, latitude1, longitude1);
-
-
-            // adds locations (from destinationList) to the priority queue if they are within the specified distance
-           if(calculatedDistance <= distance){
-               nearbyDestinations.add(entry.getValue());
-           }
+    /**
+     * produces a string of one page of the nearby locations (within a specified distance) ordered cost and distance (in a user-friendly formatted layout)
+     *
+     * @param latitude1	the latitude coordinate of the user-specified location
+     * @param longitude1	the longitude coordinate of the user-specified location
+     * @param distance	the distance relative to the given location
+     * @param offset	the number of ordered locations to skip
+     * @param limit	the largest number of locations to list
+     * @return a String of locations ordered by cost and distance in a formatted layout
+     */
+    @Override
+    public String listNearbyDestinations(double latitude1, double longitude1, int distance, int offset, int limit) {
+        List<NearbyHit> hits = findNearbyDestinations(latitude1, longitude1, distance, offset, limit);
+        long start = Metrics.start();
+        String text = TextRenderer.nearby(latitude1, longitude1, hits);
+        Metrics.stop(Metrics.Timer.RENDER, start);
+        return text;
+    }
 
+    /**
+     * finds one page of the nearby locations (within a specified distance) ordered by cost and distance
+     *
+     * @param latitude1	the latitude coordinate of the user-specified location
+     * @param longitude1	the longitude coordinate of the user-specified location
+     * @param distance	the distance relative to the given location
+     * @param offset	the number of ordered locations to skip
+     * @param limit	the largest number of locations to return
+     * @return the locations of the page in order
+     */
+    @Override
+    public List<NearbyHit> findNearbyDestinations(double latitude1, double longitude1, int distance, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
         }
-
-        // adds the current location and titles of the column (in a user-friendly layout) to the results String
-        results.append(String.format("Current Location: (Lat) %.2f (Lon) %.2f\n",latitude1,longitude1));
-        results.append(String.format("%-15s %-10s %s", "Name","Cost", "Distance to current Location (KM)\n"));
-
-        //loops through the priority queue and adds the correctly ordered locations to the results String (in a user-friendly formatted layout)
-        while (!nearbyDestinations.isEmpty()) {
-            Location location = nearbyDestinations.poll();
-            results.append(String.format("%-15s %-10s %.1f\n", location.getName(),location.getCost(), Utility.calculateDistance(location.getLatitude(), location.getLongitude(), latitude1, longitude1)));
+        Dataset data = dataset.get();
+        DestinationStore store = data.store;
+
+        //the spatial index only visits the parts of the tree that can hold a location within the distance
+        int[] candidates = data.spatialIndex.withinDistance(latitude1, longitude1, distance);
+        //calculates the distance of every candidate from the current location in one batch
+        double[] calculatedDistances = new double[candidates.length];
+        data.points.distances(latitude1, longitude1, candidates, calculatedDistances);
+
+        //records the cost and distance of each location within the specified distance once, so ordering them does not work them out again
+        NearbyCandidates nearbyDestinations = new NearbyCandidates(candidates.length);
+        for (int k = 0; k < candidates.length; k++) {
+            if (calculatedDistances[k] <= distance) {
+                nearbyDestinations.add(candidates[k], store.costCodeOf(candidates[k]), calculatedDistances[k]);
+            }
         }
 
-
-        return results.toString();
+        //adds the requested page of the ordered locations
+        int[] page = nearbyDestinations.select(offset, limit);
+        List<NearbyHit> hits = new ArrayList<>(page.length);
+        for (int candidate : page) {
+            hits.add(new NearbyHit(store.nameOf(nearbyDestinations.idOf(candidate)),
+                    Cost.fromCode(nearbyDestinations.costOf(candidate)), nearbyDestinations.distanceOf(candidate)));
+        }
+        return hits;
     }
 
     /**
-     * Shows all the locations and their distances to each location in the destinationList Map
+     * Shows all the locations and their distances to each location in the destination store.
+     * The whole text is built on every call, so use listDistances(offset, limit) or exportDistances for large datasets
      * @return String of all the locations and their distance from all the other locations (in a user-firendly formatted layout)
      */
 
     @Override
     public String listDistances() {
-        // if the weighted graph is null - creates a new graph (otherwise this step is skipped)
-        if(graph == null){
-            createWeightedGraph();
+        // gets the weighted graph (creating it if this is the first query that needs it)
+        GraphData graphData = graphOf(dataset.get());
+
+        //writes the distances to a new text file the first time they are listed from this graph (streamed one row at a
+        //time) and prints the return string to show the file was created successfully - later calls leave the file alone
+        if (!graphData.distancesFileWritten) {
+            System.out.println(writeNewFile(graphData));
         }
-        String result = graph.printGraph();
 
-        //writes the content of the printGraph function to a new text file and prints the return string to show the file was created successfully
-        System.out.println(writeNewFile(result));
+        // formats the distances on every call and keeps nothing - the text grows with the square of the destinations,
+        // so large datasets should be paged with listDistances(offset, limit) or saved with exportDistances instead
+        long start = Metrics.start();
+        String result = TextRenderer.distances(distanceRows(graphData, 0, Integer.MAX_VALUE));
+        Metrics.stop(Metrics.Timer.RENDER, start);
 
-        //returns the results of the printGraph function
+        //returns the distances
         return result;
 
     }
 
+    /**
+     * Shows one page of the locations and their distances to each location (only the rows of the page are created)
+     * @param offset	the number of locations to skip
+     * @param limit	the largest number of locations to show
+     * @return String of the locations of the page and their distances (in the listDistances layout)
+     */
+    @Override
+    public String listDistances(int offset, int limit) {
+        List<DistanceRow> rows = findDistances(offset, limit);
+        long start = Metrics.start();
+        String text = TextRenderer.distances(rows);
+        Metrics.stop(Metrics.Timer.RENDER, start);
+        return text;
+    }
+
+    /**
+     * finds the shortest distances from every location to every location
+     * @return the distance rows, created one at a time as they are iterated
+     */
+    @Override
+    public Iterable<DistanceRow> findDistances() {
+        return distanceRows(graphOf(dataset.get()), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * finds one page of the distance rows
+     * @param offset	the number of locations to skip
+     * @param limit	the largest number of locations to return
+     * @return the distance rows of the page
+     */
+    @Override
+    public List<DistanceRow> findDistances(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        List<DistanceRow> rows = new ArrayList<>();
+        for (DistanceRow row : distanceRows(graphOf(dataset.get()), offset, limit)) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * writes the distances between the locations to a file one row at a time
+     * @param fileName	the file to write
+     * @param format	the layout of the file
+     * @param compress	true to gzip the file
+     * @return the number of locations written
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public int exportDistances(String fileName, DistanceFormat format, boolean compress) throws IOException {
+        GraphData graphData = graphOf(dataset.get());
+        return DistanceExporter.export(graphData.names, distanceRows(graphData, 0, Integer.MAX_VALUE),
+                Paths.get(fileName), format, compress);
+    }
+
     /**
      *
      * @param cities2visit an array storing the cities a traveller would like to visit
@@ -133,159 +300,815 @@ public class MyController implements Controller {
 
    @Override
     public String listShortestPath(String[] cities2visit) {
+        return listShortestPath(cities2visit, RouteMode.HEURISTIC);
+    }
 
-       // if the weighted graph is null - creates a new graph (otherwise this step is skipped)
-        if(graph == null){
-            createWeightedGraph();
-        }
+    /**
+     *
+     * @param cities2visit an array storing the cities a traveller would like to visit
+     * @param mode         how the visiting order is found (HEURISTIC or EXACT)
+     * @return a string of all the locations in order of the shortest path a traveller would take (in a user-friendly formatted layout)
+     */
+    @Override
+    public String listShortestPath(String[] cities2visit, RouteMode mode) {
+        RoutePlan plan = planShortestPath(cities2visit, mode);
+        long start = Metrics.start();
+        String text = TextRenderer.route(plan);
+        Metrics.stop(Metrics.Timer.RENDER, start);
+        return text;
+    }
 
-        StringBuilder result = new StringBuilder();
+    /**
+     * plans the shortest travel path that visits all the cities, starting at the first city
+     *
+     * @param cities2visit an array storing the cities a traveller would like to visit
+     * @param mode         how the visiting order is found (HEURISTIC or EXACT)
+     * @return the legs of the route in travel order, its total distance and the improvement moves that found it
+     */
+    @Override
+    public RoutePlan planShortestPath(String[] cities2visit, RouteMode mode) {
+
+       // gets the weighted graph (creating it if this is the first query that needs it)
+        GraphData graphData = graphOf(dataset.get());
 
-        // the order number of the location paths to travel
-        int orderNum = 0;
+        // the distance between every pair of the cities to visit
+        double[] distances = cityDistances(graphData, cities2visit);
 
-        //stores the total distance that needs to be travelled to visit all the specified cities.
-        double totalDistance = 0;
+        // finds the visiting order that starts at the first city (the solvers stop early if the thread is interrupted)
+        Route route = findRoute(distances, cities2visit.length, mode);
+        checkCancelled();
 
+        // add every leg of the route in travel order
+        List<RouteLeg> legs = new ArrayList<>(Math.max(0, route.size() - 1));
+        for (int position = 0; position + 1 < route.size(); position++) {
+            int from = route.cityAt(position);
+            int to = route.cityAt(position + 1);
+            legs.add(new RouteLeg(cities2visit[from], cities2visit[to], distances[from * cities2visit.length + to]));
+        }
+        return new RoutePlan(legs, route.getLength(), route.isOptimal(), route.getIterations());
+    }
 
-        // map that stores the locations and the shortest distance of those location from the start location
-        Map<String, Double> shortestPath = graph.dijkstraAlgorithm(cities2visit[0]);
+    /**
+     * sets how the graph connects the locations - the graph is rebuilt on next use
+     * @param mode
+     * @param parameter the k of K_NEAREST mode or the radius (in km) of RADIUS mode
+     * @throws IllegalArgumentException if k is below 1 or the radius is not a finite distance above 0
+     */
+    public void setGraphMode(GraphMode mode, double parameter) {
+        mode.checkParameter(parameter);
+        dataset.updateAndGet(data -> data.withGraphMode(mode, parameter));
+    }
+
+    /**
+     * lists the routes between two cities that trade distance off against the cost of the cities passed through
+     *
+     * @param from       the city the routes start at
+     * @param to         the city the routes end at
+     * @param costWeight the km one cost point is worth (picks the route marked as the best)
+     * @return the routes from the shortest to the cheapest in a formatted layout
+     */
+    @Override
+    public String listParetoRoutes(String from, String to, double costWeight) {
+        ParetoFront front = findParetoRoutes(from, to);
+        long start = Metrics.start();
+        String text = TextRenderer.paretoRoutes(front, costWeight);
+        Metrics.stop(Metrics.Timer.RENDER, start);
+        return text;
+    }
 
-        //priority queue that order locations via the shortest distances
-        PriorityQueue<Node> shortDistOrder = new PriorityQueue<>(Comparator.comparingDouble(Node::getDistance));
+    /**
+     * finds the Pareto-optimal routes between two cities - each city passed through after the first adds the cost
+     * points of its cost (1 for LOW, 2 for MEDIUM and 3 for HIGH)
+     *
+     * @param from the city the routes start at
+     * @param to   the city the routes end at
+     * @return the routes from the shortest to the cheapest
+     */
+    @Override
+    public ParetoFront findParetoRoutes(String from, String to) {
+        Dataset data = dataset.get();
+        GraphData graphData = graphOf(data);
 
-       // iterate through the cities to visit array to add specified locations and distance to priority queue
-        for (String city : cities2visit) {
-            double distance = shortestPath.get(city);
-            shortDistOrder.add(new Node(city, distance));
+        // the graph's vertex ids are the ids of the destination store
+        return new ParetoRouter(graphData.graph, data.stopCosts(), paretoLabelBudget).search(from, to);
+    }
 
+    /**
+     * sets the largest number of labels (partial routes) a distance versus cost route search may create - a search
+     * that runs out answers with the shortest part of the front
+     * @param maxLabels
+     */
+    public void setParetoLabelBudget(int maxLabels) {
+        if (maxLabels < 1) {
+            throw new IllegalArgumentException("The label budget must be positive: " + maxLabels);
         }
+        paretoLabelBudget = maxLabels;
+    }
 
+    /**
+     * sets the distance of the route between two locations (both ways), adding the route if they are not connected
+     * the graph is not rebuilt - a new version of it is published, and queries that are already running finish with
+     * the version they started with. The change is kept if the graph is built again (in another mode or after a reload)
+     * @param from
+     * @param to
+     * @param distance the distance in km
+     */
+    public void setRouteDistance(String from, String to, double distance) {
+        if (!(distance >= 0) || distance == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("Distance must be a non-negative number: " + distance);
+        }
+        changeRoute(new RouteEdit(from, to, distance));
+    }
 
+    /**
+     * closes the route between two locations (both ways) - like setRouteDistance it publishes a new version of the graph
+     * @param from
+     * @param to
+     * @return true if the locations were connected
+     */
+    public boolean closeRoute(String from, String to) {
+        return changeRoute(new RouteEdit(from, to, Double.POSITIVE_INFINITY));
+    }
 
-       // add a title to the result string to indicate the order of the shortest travel path
-        result.append("Order of the shortest travel path: \n");
+    /**
+     * gets the version of the current graph
+     * @return the number of route changes published since the graph was built (0 if it has not been built yet)
+     */
+    public long getGraphVersion() {
+        GraphData graphData = builtGraph(dataset.get());
+        return graphData == null ? 0 : graphData.graph.getVersion();
+    }
 
+    /**
+     * gets the number of connected components of the current graph (1 if every location can reach every other location)
+     * - how long the graph took to build and how many edges it has are recorded by the GRAPH_BUILD timer and the
+     * GRAPH_EDGES_BUILT counter of Metrics
+     * @return the number of components (0 if the graph has not been built yet)
+     */
+    public int getGraphComponents() {
+        GraphData graphData = builtGraph(dataset.get());
+        return graphData == null ? 0 : graphData.graph.countComponents();
+    }
 
-        // Iterate through the priority queue and add the shortest travel path in the correct order
-        while(!shortDistOrder.isEmpty()){
-            String location1 = shortDistOrder.poll().getName();
-            //update the order number
-            orderNum++;
+    /**
+     * sets the pool the graph is built in (used from the next graph build)
+     * @param pool the fork/join pool, or null to build the graph on the calling thread
+     */
+    public void setGraphBuildPool(ForkJoinPool pool) {
+        graphBuildPool = pool;
+    }
 
+    /**
+     * sets how long the exact route solver may run before the heuristic route is used instead
+     * @param deadlineMillis
+     */
+    public void setExactRouteDeadline(long deadlineMillis) {
+        exactRouteDeadlineMillis = deadlineMillis;
+    }
 
-            // Check if there are more locations in the queue to prevent error
-            if(!shortDistOrder.isEmpty()) {
-                String location2 = shortDistOrder.peek().getName();
+    /**
+     * sets the memory budget of the shortest path tree cache (the trees from the cities of past routes, kept so
+     * later routes from the same cities do not search the graph again) - it applies to the current graph and every
+     * graph built later
+     * @param maxBytes 0 to cache no trees
+     */
+    public void setShortestPathCacheSize(long maxBytes) {
+        shortestPathCacheBytes = maxBytes;
+        GraphData graphData = builtGraph(dataset.get());
+        if (graphData != null) {
+            graphData.trees.setMaxBytes(maxBytes);
+        }
+    }
 
-                // Calculate the shortest distance between location1 and location2 using Dijkstra's algorithm
-                double shortestDistance = graph.dijkstraAlgorithm(location1).get(location2);
+    /**
+     * gets the hit and miss statistics of the shortest path tree cache of the current graph
+     * @return the statistics (all 0 if the graph has not been built yet)
+     */
+    public ShortestPathCache.Stats getShortestPathCacheStats() {
+        GraphData graphData = builtGraph(dataset.get());
+        return graphData == null ? new ShortestPathCache.Stats(0, 0, 0, 0, 0, 0) : graphData.trees.stats();
+    }
+
+    /**
+     * private method that makes a route change in a new version of the graph and publishes it in a new dataset
+     * if the dataset is replaced while the change is being made (by a reload or a new graph mode) it is made again on
+     * the new dataset
+     * @param edit
+     * @return true if the graph changed
+     */
+    private boolean changeRoute(RouteEdit edit) {
+        synchronized (routeLock) {
+            while (true) {
+                Dataset data = dataset.get();
+                GraphData graphData = graphOf(data);
+                for (String name : new String[] {edit.from(), edit.to()}) {
+                    if (graphData.graph.idOf(name) < 0) {
+                        throw new IllegalArgumentException("Unknown location: " + name);
+                    }
+                }
 
-                totalDistance += shortestDistance;
+                long start = Metrics.start();
+                VersionedWeightedGraph versions = graphData.versions != null ? graphData.versions : new VersionedWeightedGraph(graphData.graph);
+                GraphUpdate update = versions.update(graph -> applyRouteEdit(graph, edit));
+                if (update.graph() == graphData.graph) {
+                    // nothing to change (a closed route that was not there, or the same distance)
+                    return false;
+                }
+                GraphData updated = graphData.update(update, versions);
+                Metrics.stop(Metrics.Timer.GRAPH_UPDATE, start);
 
-                // add the order number, locations, and the shortest distance to the result string (in a user-friendly formatted layout)
-                result.append(orderNum).append(") ").append("(").append(location1).append(") ").append("--(").append(String.format("%.1f KM",shortestDistance)).append(")--> ").append("(").append(location2).append(") \n");
+                if (dataset.compareAndSet(data, data.withRouteEdits(withEdit(data.routeEdits, edit), updated))) {
+                    return true;
+                }
             }
+        }
+    }
 
+    /**
+     * private method that makes a route change in both directions
+     * @param graph
+     * @param edit
+     */
+    private static void applyRouteEdit(VersionedWeightedGraph graph, RouteEdit edit) {
+        if (edit.distance() == Double.POSITIVE_INFINITY) {
+            graph.removeEdge(edit.from(), edit.to());
+            graph.removeEdge(edit.to(), edit.from());
+        } else {
+            graph.addEdge(edit.from(), edit.to(), edit.distance());
+            graph.addEdge(edit.to(), edit.from(), edit.distance());
         }
-        // adds the total distance of travel to the result string
-       result.append(String.format("Total distance of travel: %.1f KM \n", totalDistance));
+    }
 
+    /**
+     * private method that adds a route change to the changes of a dataset, in place of any earlier change of the same route
+     * @param edits
+     * @param edit
+     * @return the new list of changes
+     */
+    private static List<RouteEdit> withEdit(List<RouteEdit> edits, RouteEdit edit) {
+        List<RouteEdit> result = new ArrayList<>(edits.size() + 1);
+        for (RouteEdit earlier : edits) {
+            if (!earlier.sameRoute(edit)) {
+                result.add(earlier);
+            }
+        }
+        result.add(edit);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * private method that finds the visiting order of the cities
+     * EXACT mode uses the Held-Karp solver for small itineraries and falls back to the heuristic route
+     * if there are too many cities or the solver passes its deadline
+     * @param distances
+     * @param size
+     * @param mode
+     * @return the route (starting at the first city)
+     */
+    private Route findRoute(double[] distances, int size, RouteMode mode) {
+        long start = Metrics.start();
+        try {
+            if (mode == RouteMode.EXACT && size <= HeldKarpSolver.MAX_CITIES) {
+                Route route = new HeldKarpSolver(exactRouteDeadlineMillis).solve(distances, size);
+                if (route != null) {
+                    return route;
+                }
+            }
+            // nearest-neighbour route improved by 2-opt and Or-opt moves
+            Route route = new RouteOptimiser().optimise(distances, size);
+            Metrics.add(Metrics.Counter.ROUTE_IMPROVEMENTS, route.getIterations());
+            return route;
+        } finally {
+            Metrics.stop(Metrics.Timer.ROUTE_SOLVE, start);
+        }
+    }
+
+    /**
+     * private method that works out the shortest distance between every pair of the given cities
+     * reads the distance matrix if there is one, the direct distances if the direct edge between two cities is their
+     * shortest path (an unchanged complete graph), otherwise runs Dijkstra's algorithm once from each city
+     * @param graphData
+     * @param cities
+     * @return the cities.length * cities.length pairwise distances (the distance from i to j is at i * length + j)
+     */
+    private double[] cityDistances(GraphData graphData, String[] cities) {
+        CompactWeightedGraph graph = graphData.graph;
+        DistanceMatrix distanceMatrix = graphData.distanceMatrix;
+        int size = cities.length;
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = graph.idOf(cities[i]);
+            if (ids[i] < 0) {
+                throw new IllegalArgumentException("Unknown location: " + cities[i]);
+            }
+        }
 
-        return result.toString();
+        double[] distances = new double[size * size];
+        Utility.Points directDistances = graphData.directDistances;
+        for (int i = 0; i < size; i++) {
+            checkCancelled();
+            if (directDistances != null) {
+                for (int j = 0; j < size; j++) {
+                    distances[i * size + j] = directDistances.distance(ids[i], ids[j]);
+                }
+                continue;
+            }
+            // without a matrix the tree from each city is taken from the cache (searched once per city, then shared)
+            DistanceView view = distanceMatrix == null ? graphData.trees.get(ids[i]) : null;
+            for (int j = 0; j < size; j++) {
+                distances[i * size + j] = view == null ? distanceMatrix.distance(ids[i], ids[j]) : view.distanceTo(ids[j]);
+            }
+        }
+        return distances;
     }
 
     /**
-     *private method that reads the CSV file and creates a location object for each destination and adds it to the destinationList Map
+     *private method that reads the CSV file and adds each destination to the columns of a new destination store
      * @param fileName
+     * @return the destination store
      */
-    private void readFile(String fileName) {
-        // try-catch block to catch any file not found or wrong format error
+    private DestinationStore readFile(String fileName) {
+        DestinationStore.Builder builder = new DestinationStore.Builder();
+        // try-catch block to catch any file not found or read error
         try {
-            //Scanner object ot read file
-            Scanner scanner = new Scanner(new File(fileName));
+            // streams the file through the RFC-4180 parser (quoted descriptions may contain commas) - a later row with the same name replaces the earlier one
+            long start = Metrics.start();
+            DestinationCsvReader.Result result = new DestinationCsvReader().read(Paths.get(fileName), builder::add);
+            Metrics.stop(Metrics.Timer.CSV_PARSE, start);
+
+            // rows that could not be read are reported without stopping the rest of the file from loading
+            for (DestinationCsvReader.RowError error : result.getErrors()) {
+                System.out.println(fileName + " - " + error);
+            }
 
-            // reads the headers of the CSV file and ignores them
-            String line = scanner.nextLine();
+        } catch (IOException e) {
+            //prints error to the screen
+            System.out.print(e.toString());
+        }
 
-            //loop through the CSV file as long as there is another line
-            while (scanner.hasNextLine()) {
-                // reads a line of the CVS file
-                line = scanner.nextLine();
-                // splits the line into tokens (separated by commas) and stores the tokensS into a string array
-                String[] fields = line.split(",");
+        return builder.build();
 
+    }
 
-                // checks if there are 5 tokens or throws an error
-                if (fields.length == 5) {
-                    //uses the tokens to create a new location object for each of the destinations and store them int the destinationList Map
-                    destinationList.put(fields[0], new Location(fields[0], fields[1], Double.parseDouble(fields[2]), Double.parseDouble(fields[3]), fields[4]));
-                } else {
-                    throw new DataFormatException("Incompatible data format");
+    /**
+     * private method that loads the destinations - from the snapshot file if it matches the CSV file, otherwise from
+     * the CSV file (and then saves a new snapshot)
+     * @param graphMode the graph mode of the new dataset
+     * @param graphParameter
+     * @return the new dataset
+     */
+    private Dataset loadDestinations(GraphMode graphMode, double graphParameter) {
+        long start = Metrics.start();
+        DestinationSnapshot snapshot = DestinationSnapshot.load(snapshotFile, sourceFile);
+        Metrics.stop(Metrics.Timer.SNAPSHOT_LOAD, start);
+        Metrics.increment(snapshot != null ? Metrics.Counter.SNAPSHOT_HITS : Metrics.Counter.SNAPSHOT_MISSES);
+        if (snapshot != null) {
+            // reuses the saved graph and distance matrix if they were built in the graph mode
+            CompactWeightedGraph graph = snapshot.getGraph(graphMode, graphParameter);
+            DestinationStore store = snapshot.getStore();
+            GraphData graphData = graph != null ? new GraphData(graph, snapshot.getDistanceMatrix(),
+                    directDistances(graphMode, store), shortestPathCacheBytes) : null;
+            return new Dataset(store, graphMode, graphParameter, graphData);
+        }
+        Dataset data = new Dataset(readFile(sourceFile.getPath()), graphMode, graphParameter, null);
+        saveSnapshot(data, null);
+        return data;
+    }
+
+    /**
+     * private method that saves the destinations, the graph and the distance matrix to the snapshot file
+     * @param data
+     * @param graphData the graph of the dataset (or null)
+     */
+    private void saveSnapshot(Dataset data, GraphData graphData) {
+        if (!sourceFile.isFile()) {
+            return;
+        }
+        synchronized (snapshotLock) {
+            long start = Metrics.start();
+            try {
+                DestinationSnapshot.write(snapshotFile, sourceFile, data.store, graphData != null ? graphData.graph : null,
+                        data.graphMode, data.graphParameter, graphData != null ? graphData.distanceMatrix : null);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            Metrics.stop(Metrics.Timer.SNAPSHOT_WRITE, start);
+        }
+    }
+
+    /**
+     * private method that gets the graph of a dataset - the first thread to ask builds it, any other thread that asks
+     * before it is finished waits for the same build
+     * @param data
+     * @return the graph and its distance matrix
+     */
+    private GraphData graphOf(Dataset data) {
+        while (true) {
+            CompletableFuture<GraphData> future = data.graph.get();
+            Metrics.increment(future != null ? Metrics.Counter.GRAPH_CACHE_HITS : Metrics.Counter.GRAPH_CACHE_MISSES);
+            if (future == null) {
+                CompletableFuture<GraphData> building = new CompletableFuture<>();
+                if (!data.graph.compareAndSet(null, building)) {
+                    // another thread has just started the build
+                    continue;
                 }
+                try {
+                    building.complete(createWeightedGraph(data));
+                } catch (RuntimeException | Error e) {
+                    // lets a later query try again instead of failing forever
+                    data.graph.compareAndSet(building, null);
+                    building.completeExceptionally(e);
+                    throw e;
+                }
+                future = building;
             }
+            try {
+                // waits interruptibly, so a cancelled query stops waiting while the build carries on for the others
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Cancelled while waiting for the graph");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CancellationException) {
+                    // the thread that was building the graph was cancelled - this query builds it instead
+                    checkCancelled();
+                    continue;
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new CompletionException(e.getCause());
+            }
+        }
+    }
 
-        } catch (FileNotFoundException | DataFormatException e) {
-            //prints error to the screen
-            System.out.print(e.toString());
+    /**
+     * private method that creates a compact weighted graph from the destination store
+     * COMPLETE mode connects every location to every location, the sparse modes only connect nearby locations
+     * @param data
+     * @return the graph and its distance matrix
+     */
+    private GraphData createWeightedGraph(Dataset data){
+
+        long start = Metrics.start();
+        CompactWeightedGraph graph = GeometricGraphBuilder.build(data.store, data.spatialIndex, data.graphMode, data.graphParameter, graphBuildPool);
+        Metrics.stop(Metrics.Timer.GRAPH_BUILD, start);
+        Metrics.add(Metrics.Counter.GRAPH_EDGES_BUILT, graph.edgeCount());
+        checkCancelled();
+
+        // makes the route changes (of locations that are still in the graph) in a new version of the graph
+        VersionedWeightedGraph versions = null;
+        if (!data.routeEdits.isEmpty()) {
+            versions = new VersionedWeightedGraph(graph);
+            versions.update(edited -> {
+                for (RouteEdit edit : data.routeEdits) {
+                    if (edited.snapshot().idOf(edit.from()) >= 0 && edited.snapshot().idOf(edit.to()) >= 0) {
+                        applyRouteEdit(edited, edit);
+                    }
+                }
+            });
+            graph = versions.snapshot();
         }
 
+        // precomputes the distances between every pair of locations if that pays off - not for an unchanged complete
+        // graph (great-circle distances obey the triangle inequality, so its direct edges are already the shortest
+        // paths) or when it would not fit in memory or take longer to build than the queries it saves
+        Utility.Points directDistances = versions == null ? directDistances(data.graphMode, data.store) : null;
+        long matrixStart = Metrics.start();
+        DistanceMatrix distanceMatrix = directDistances == null && DistanceMatrix.isWorthBuilding(graph) ? DistanceMatrix.build(graph) : null;
+        if (distanceMatrix != null) {
+            Metrics.stop(Metrics.Timer.DISTANCE_MATRIX, matrixStart);
+        }
+        GraphData graphData = new GraphData(graph, distanceMatrix, directDistances,
+                new ShortestPathCache(graph, shortestPathCacheBytes), versions);
+
+        // saves a sparse graph in the background so the next start does not have to build it again - not a complete graph
+        // (its n * n edges are rebuilt from the coordinates rather than stored), nor one with route changes or whose
+        // dataset has already been replaced (the snapshot only holds graphs built from the current destinations)
+        if (directDistances == null && data.routeEdits.isEmpty()) {
+            SNAPSHOT_WRITER.execute(() -> {
+                if (dataset.get() == data) {
+                    saveSnapshot(data, graphData);
+                }
+            });
+        }
+        return graphData;
+    }
 
+    /**
+     * private method that gets the graph of a dataset if it has already been built (without building it)
+     * @param data
+     * @return the graph data, or null if it has not been built (or is still being built)
+     */
+    private static GraphData builtGraph(Dataset data) {
+        CompletableFuture<GraphData> future = data.graph.get();
+        return future == null || !future.isDone() || future.isCompletedExceptionally() ? null : future.getNow(null);
     }
 
     /**
-     * private method that creates a weighted graph from the destinationList Map
+     * private method that gets the distances of the direct edges of an unchanged graph if they are its shortest paths -
+     * in COMPLETE mode every edge is the great-circle distance between its locations, which no path through other
+     * locations can beat
+     * @param graphMode
+     * @param store
+     * @return the unit vectors of the destinations (whose ids are the vertex ids), or null if the mode is not COMPLETE
      */
-    private void createWeightedGraph(){
+    private static Utility.Points directDistances(GraphMode graphMode, DestinationStore store) {
+        return graphMode == GraphMode.COMPLETE ? new Utility.Points(store.latitudes(), store.longitudes(), store.size()) : null;
+    }
 
-        // creates new weighted graph object
-        graph = new WeightedGraph();
+    /**
+     * private method that stops a query if its thread has been interrupted (for example by the GUI's cancel button)
+     * @throws CancellationException if the thread is interrupted (its interrupt status is kept)
+     */
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Cancelled");
+        }
+    }
 
+    /**
+     * private method that creates the row of a destination
+     * @param store
+     * @param id
+     * @return the destination row
+     */
+    private static DestinationRow row(DestinationStore store, int id) {
+        return new DestinationRow(store.nameOf(id), store.descriptionOf(id), store.latitudeOf(id), store.longitudeOf(id), store.costOf(id));
+    }
 
+    /**
+     * private method that creates the distance rows of a graph lazily - each row is only created when the iteration
+     * reaches it. Every row holds the shortest distance from its location to every location, read from the distance
+     * matrix or the direct distances if there are any, otherwise found with Dijkstra's algorithm from the location
+     * @param graphData
+     * @param offset the number of rows to skip
+     * @param limit the largest number of rows
+     * @return the rows in vertex id order
+     */
+    private static Iterable<DistanceRow> distanceRows(GraphData graphData, int offset, int limit) {
+        CompactWeightedGraph graph = graphData.graph;
+        DistanceMatrix distanceMatrix = graphData.distanceMatrix;
+        Utility.Points directDistances = graphData.directDistances;
+        String[] names = graphData.names;
+        int size = names.length;
+        int start = Math.min(offset, size);
+        int end = (int) Math.min(size, (long) start + limit);
+        return () -> new Iterator<DistanceRow>() {
+            //the vertex of the next row
+            private int source = start;
+
+            @Override
+            public boolean hasNext() {
+                return source < end;
+            }
 
-        // iterates through destinationList map and add a vertex for every location (key) and for each key iterates through the destination list again to add associated edges
-        for(Map.Entry<String, Location> entry: destinationList.entrySet()){ // creates the initial vertices
-            String key = entry.getKey();
-            Location value = entry.getValue();
-            //adds vertex to weighted graph
-            graph.addVertex(key);
+            @Override
+            public DistanceRow next() {
+                if (source >= end) {
+                    throw new NoSuchElementException();
+                }
+                checkCancelled();
+                int vertex = source++;
+                // every row shares the names array (DistanceExporter writes such rows without their targets)
+                double[] distances = new double[size];
+                if (distanceMatrix != null) {
+                    for (int target = 0; target < size; target++) {
+                        distances[target] = distanceMatrix.distance(vertex, target);
+                    }
+                } else if (directDistances != null) {
+                    directDistances.distances(vertex, distances);
+                } else {
+                    // the view is only valid until the next search on this thread, so it is copied straight away
+                    DistanceView view = graph.shortestDistances(vertex);
+                    for (int target = 0; target < size; target++) {
+                        distances[target] = view.distanceTo(target);
+                    }
+                }
+                return new DistanceRow(names[vertex], names, distances);
+            }
+        };
+    }
 
-            for(Map.Entry<String, Location> secondEntry: destinationList.entrySet()){ //inner loop iterates through destination list map again to add edges
-                Location secondValue = secondEntry.getValue();
-                //adds edges to weighted graph
-                graph.addEdge(value,secondValue, Utility.calculateDistance(value.getLatitude(),value.getLongitude(),secondValue.getLatitude(),secondValue.getLongitude()));
+    /**
+     * private method that gets the name of every vertex of a graph
+     * @param graph
+     * @return the names in vertex id order
+     */
+    private static String[] allNames(CompactWeightedGraph graph) {
+        String[] names = new String[graph.vertexCount()];
+        for (int vertex = 0; vertex < names.length; vertex++) {
+            names[vertex] = graph.nameOf(vertex);
+        }
+        return names;
+    }
 
+    /**
+     * private method - writes and saves a new text file of the distances, one row at a time (once per graph)
+     * @param graphData
+     * @return a string to show the file was created successfully
+     */
+    private String writeNewFile(GraphData graphData){
+
+        // try and catch block to catch input/output error (one thread writes the file at a time)
+        synchronized (distancesFileLock) {
+            try {
+                if (!graphData.distancesFileWritten) {
+                    DistanceExporter.export(graphData.names, distanceRows(graphData, 0, Integer.MAX_VALUE),
+                            Paths.get("listDistances.txt"), DistanceFormat.TEXT, false);
+                    graphData.distancesFileWritten = true;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
             }
-
         }
+        return "File created successfully!";
+
     }
 
     /**
-     * private method - writes and saves a new text file
-     * @param fileContent
-     * @return string message to display file was created successfully
+     * Dataset object is one immutable version of the destinations - the store, its indexes and the graph settings.
+     * Its graph is built on first use and then shared by every query of the dataset
      */
-    private String writeNewFile(String fileContent){
+    private static final class Dataset {
+
+        //the columns of all the destinations - a destination's id is also its id in the spatial index and the graph
+        private final DestinationStore store;
+        //k-d tree over the coordinates of the locations (built once after the destinations are read)
+        private final SpatialIndex spatialIndex;
+        //the unit vector of each destination (so distances from the destinations need no trigonometry but an arctangent)
+        private final Utility.Points points;
+        //how the graph connects the locations
+        private final GraphMode graphMode;
+        //the k of K_NEAREST mode or the radius (in km) of RADIUS mode
+        private final double graphParameter;
+        //the route changes made to the graph since the destinations were loaded (in the order they were made)
+        private final List<RouteEdit> routeEdits;
+        //the graph and its distance matrix (null until the first query that needs them starts building them)
+        private final AtomicReference<CompletableFuture<GraphData>> graph = new AtomicReference<>();
+        //the cost points of each destination by id (null until the first distance versus cost route query)
+        private volatile int[] stopCosts;
+
+        /**
+         * Constructor - indexes the coordinates of the destinations once so nearby queries do not scan every destination
+         * @param store
+         * @param graphMode
+         * @param graphParameter
+         * @param graphData a graph already built in the graph mode (or null)
+         */
+        Dataset(DestinationStore store, GraphMode graphMode, double graphParameter, GraphData graphData) {
+            this(store, new SpatialIndex(store.latitudes(), store.longitudes(), store.size()),
+                    new Utility.Points(store.latitudes(), store.longitudes(), store.size()), graphMode, graphParameter,
+                    List.of(), graphData);
+        }
 
-        // try and catch block to catch input/output error
-        try {
-            File file = new File("listDistances.txt");
-            //creates new file writer object
-            FileWriter fileWriter = new FileWriter(file);
-            //create new buffered writer obeject
-            BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
+        /**
+         * Constructor - initialises the destinations, their indexes and the graph settings
+         * @param store
+         * @param spatialIndex
+         * @param points
+         * @param graphMode
+         * @param graphParameter
+         * @param routeEdits
+         * @param graphData a graph already built in the graph mode with the route changes (or null)
+         */
+        private Dataset(DestinationStore store, SpatialIndex spatialIndex, Utility.Points points, GraphMode graphMode,
+                        double graphParameter, List<RouteEdit> routeEdits, GraphData graphData) {
+            this.store = store;
+            this.spatialIndex = spatialIndex;
+            this.points = points;
+            this.graphMode = graphMode;
+            this.graphParameter = graphParameter;
+            this.routeEdits = routeEdits;
+            if (graphData != null) {
+                graph.set(CompletableFuture.completedFuture(graphData));
+            }
+        }
 
-            // Writes the content to the file
-            bufferedWriter.write(fileContent);
+        /**
+         * creates a dataset of the same destinations whose graph is built in another mode
+         * @param mode
+         * @param parameter
+         * @return the new dataset
+         */
+        Dataset withGraphMode(GraphMode mode, double parameter) {
+            return new Dataset(store, spatialIndex, points, mode, parameter, routeEdits, null);
+        }
 
-            //close the buffered writer
-            bufferedWriter.close();
+        /**
+         * gets the cost points of each destination by id, working them out on first use (two threads may both work
+         * them out the first time - the points are the same, so either copy can be kept)
+         * @return the points (shared, so not to be changed)
+         */
+        int[] stopCosts() {
+            int[] costs = stopCosts;
+            if (costs == null) {
+                costs = new int[store.size()];
+                for (int id = 0; id < costs.length; id++) {
+                    costs[id] = ParetoRouter.stopCostOf(store.costOf(id));
+                }
+                stopCosts = costs;
+            }
+            return costs;
+        }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+        /**
+         * creates a dataset of the same destinations with other route changes
+         * @param edits
+         * @param graphData the graph with the route changes (or null to build it on first use)
+         * @return the new dataset
+         */
+        Dataset withRouteEdits(List<RouteEdit> edits, GraphData graphData) {
+            return new Dataset(store, spatialIndex, points, graphMode, graphParameter, edits, graphData);
+        }
+    }
+
+    /**
+     * GraphData object is the graph of a dataset, its distance matrix and the caches of its distances
+     */
+    private static final class GraphData {
+
+        //Graph that holds the locations and distances between each location
+        private final CompactWeightedGraph graph;
+        //all-pairs shortest distances of the graph (null if the graph is too large for a matrix, or has direct distances)
+        private final DistanceMatrix distanceMatrix;
+        //the unit vectors of the locations if every direct edge is the shortest path between its locations (an unchanged
+        //complete graph), so any distance is read from them without a matrix or a search (null otherwise)
+        private final Utility.Points directDistances;
+        //the name of every vertex of the graph in vertex order (shared by the distance rows)
+        private final String[] names;
+        //the shortest path trees of the graph by start vertex (used when there is no distance matrix)
+        private final ShortestPathCache trees;
+        //makes the next versions of the graph (null until a route is changed)
+        private final VersionedWeightedGraph versions;
+        //whether listDistances has already written this graph's distances to listDistances.txt
+        private volatile boolean distancesFileWritten;
+
+        /**
+         * Constructor - initialises the graph, its distance matrix, the names of its vertices and an empty tree cache
+         * @param graph
+         * @param distanceMatrix
+         * @param directDistances (or null)
+         * @param cacheBytes the memory budget of the tree cache
+         */
+        GraphData(CompactWeightedGraph graph, DistanceMatrix distanceMatrix, Utility.Points directDistances, long cacheBytes) {
+            this(graph, distanceMatrix, directDistances, new ShortestPathCache(graph, cacheBytes), null);
+        }
+
+        /**
+         * Constructor - initialises the graph, its distance matrix, its tree cache and the maker of its next versions
+         * @param graph
+         * @param distanceMatrix
+         * @param directDistances (or null)
+         * @param trees
+         * @param versions (or null)
+         */
+        GraphData(CompactWeightedGraph graph, DistanceMatrix distanceMatrix, Utility.Points directDistances,
+                  ShortestPathCache trees, VersionedWeightedGraph versions) {
+            this.graph = graph;
+            this.distanceMatrix = distanceMatrix;
+            this.directDistances = directDistances;
+            this.names = allNames(graph);
+            this.trees = trees;
+            this.versions = versions;
         }
-        return "File created successfully!";
 
+        /**
+         * creates the graph data of a changed version of the graph - the distance matrix and the tree cache are
+         * repaired where the change affects them rather than computed again
+         * @param update a change of this graph
+         * @param versions the maker of the versions
+         * @return the new graph data
+         */
+        GraphData update(GraphUpdate update, VersionedWeightedGraph versions) {
+            CompactWeightedGraph changed = update.graph();
+            DistanceMatrix matrix = distanceMatrix != null ? distanceMatrix.update(update) : null;
+            if (matrix == null && (distanceMatrix != null || directDistances != null && DistanceMatrix.isWorthBuilding(changed))) {
+                // the vertices changed, or the direct distances no longer hold, so a matrix is built
+                matrix = DistanceMatrix.build(changed);
+            }
+            // a changed route can be shorter or longer than the direct distance, so the changed graph has no direct distances
+            return new GraphData(changed, matrix, null, trees.update(update), versions);
+        }
+    }
+
+    /**
+     * RouteEdit is a route change made by setRouteDistance or closeRoute, kept so it can be made again when the graph
+     * is built again
+     * @param from
+     * @param to
+     * @param distance the distance in km (infinity if the route is closed)
+     */
+    private record RouteEdit(String from, String to, double distance) {
+
+        /**
+         * checks whether another change is of the same route (in either direction)
+         * @param other
+         * @return true if it connects the same two locations
+         */
+        boolean sameRoute(RouteEdit other) {
+            return from.equals(other.from) && to.equals(other.to) || from.equals(other.to) && to.equals(other.from);
+        }
     }
 
 }
@@ -0,0 +1,178 @@
+package Travel_App;
+
+/**
+ * NearbyCandidates object holds the destinations found near a location, each with its cost code and distance
+ * worked out once, in parallel primitive arrays (decorate), so putting them in order never recomputes a distance
+ * or looks up a cost (sort)
+ *
+ * The order is cost first (cheapest first) and then distance (nearest first), with ties broken by id. When only the
+ * first k candidates are wanted they are selected with a bounded max-heap of k entries (O(n log k)) instead of
+ * sorting every candidate
+ *
+ * @author usman
+ */
+
+final class NearbyCandidates {
+
+    //the destination id of each candidate
+    private final int[] ids;
+    //the Cost code of each candidate
+    private final byte[] costs;
+    //the distance of each candidate from the location
+    private final double[] distances;
+    //the number of candidates added
+    private int size;
+
+    /**
+     * Constructor - initialises the arrays for up to capacity candidates
+     * @param capacity
+     */
+    NearbyCandidates(int capacity) {
+        ids = new int[capacity];
+        costs = new byte[capacity];
+        distances = new double[capacity];
+    }
+
+    /**
+     * adds a candidate
+     * @param id
+     * @param cost the cost code of the destination
+     * @param distance
+     */
+    void add(int id, int cost, double distance) {
+        ids[size] = id;
+        costs[size] = (byte) cost;
+        distances[size] = distance;
+        size++;
+    }
+
+    /**
+     * gets the number of candidates
+     * @return the size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * gets the destination id of a candidate
+     * @param candidate
+     * @return the id
+     */
+    int idOf(int candidate) {
+        return ids[candidate];
+    }
+
+    /**
+     * gets the cost code of a candidate
+     * @param candidate
+     * @return the cost code
+     */
+    int costOf(int candidate) {
+        return costs[candidate];
+    }
+
+    /**
+     * gets the distance of a candidate
+     * @param candidate
+     * @return the distance
+     */
+    double distanceOf(int candidate) {
+        return distances[candidate];
+    }
+
+    /**
+     * puts one page of the candidates in order
+     * @param offset the number of ordered candidates to skip
+     * @param limit the largest number of candidates wanted
+     * @return the candidates (indexes for idOf, costOf and distanceOf) of the page in order
+     */
+    int[] select(int offset, int limit) {
+        int wanted = (int) Math.min(size, (long) offset + limit);
+        if (offset >= wanted) {
+            return new int[0];
+        }
+
+        // keeps the best candidates seen so far in a max-heap, so the worst of them is the one to replace
+        int[] heap = new int[wanted];
+        int heapSize = 0;
+        for (int candidate = 0; candidate < size; candidate++) {
+            if (heapSize < wanted) {
+                heap[heapSize] = candidate;
+                siftUp(heap, heapSize++);
+            } else if (before(candidate, heap[0])) {
+                heap[0] = candidate;
+                siftDown(heap, 0, heapSize);
+            }
+        }
+
+        // heap sort - moving the largest to the end each time leaves the heap in ascending order
+        for (int end = heapSize - 1; end > 0; end--) {
+            int largest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = largest;
+            siftDown(heap, 0, end);
+        }
+
+        int[] page = new int[wanted - offset];
+        System.arraycopy(heap, offset, page, 0, page.length);
+        return page;
+    }
+
+    /**
+     * checks whether one candidate comes before another (by cost, then distance, then id)
+     * @param a
+     * @param b
+     * @return true if a is ordered before b
+     */
+    private boolean before(int a, int b) {
+        if (costs[a] != costs[b]) {
+            return costs[a] < costs[b];
+        }
+        int byDistance = Double.compare(distances[a], distances[b]);
+        return byDistance != 0 ? byDistance < 0 : ids[a] < ids[b];
+    }
+
+    /**
+     * moves an entry of the max-heap up until its parent comes after it
+     * @param heap
+     * @param position
+     */
+    private void siftUp(int[] heap, int position) {
+        int candidate = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!before(heap[parent], candidate)) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = candidate;
+    }
+
+    /**
+     * moves an entry of the max-heap down until both its children come before it
+     * @param heap
+     * @param position
+     * @param heapSize
+     */
+    private void siftDown(int[] heap, int position, int heapSize) {
+        int candidate = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && before(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!before(candidate, heap[child])) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = candidate;
+    }
+}
@@ -0,0 +1,14 @@
+package Travel_App;
+
+/**
+ * NearbyHit is one destination returned by Controller.findNearbyDestinations
+ *
+ * @param name the name of the destination
+ * @param cost the living cost of the destination
+ * @param distance the great-circle distance (in km) from the location the search was made from
+ *
+ * @author usman
+ */
+
+public record NearbyHit(String name, Cost cost, double distance) {
+}
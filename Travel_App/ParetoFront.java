@@ -0,0 +1,34 @@
+package Travel_App;
+
+import java.util.List;
+
+/**
+ * ParetoFront is the answer to a distance versus cost route query, returned by ParetoRouter and
+ * Controller.findParetoRoutes - the Pareto-optimal routes between two locations from the shortest (and most
+ * expensive) to the cheapest (and longest)
+ *
+ * @param routes the routes, shortest first (empty if the end location cannot be reached)
+ * @param complete false if the search ran out of labels - the routes are then the shortest part of the front
+ * @param labels the number of labels (partial routes) the search created
+ *
+ * @author usman
+ */
+
+public record ParetoFront(List<ParetoRoute> routes, boolean complete, int labels) {
+
+    /**
+     * gets the route with the smallest weighted sum of distance and cost - the single answer for a traveller who
+     * values one cost point at costWeight km (it is always one of the Pareto-optimal routes)
+     * @param costWeight the km one cost point is worth (0 gives the shortest route)
+     * @return the best route, or null if there are no routes
+     */
+    public ParetoRoute best(double costWeight) {
+        ParetoRoute best = null;
+        for (ParetoRoute route : routes) {
+            if (best == null || route.weightedSum(costWeight) < best.weightedSum(costWeight)) {
+                best = route;
+            }
+        }
+        return best;
+    }
+}
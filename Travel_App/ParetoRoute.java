@@ -0,0 +1,26 @@
+package Travel_App;
+
+import java.util.List;
+
+/**
+ * ParetoRoute is one route of a ParetoFront - no other route between the same two locations is both shorter and
+ * cheaper
+ *
+ * @param path the locations on the route, starting with the start location and ending with the end location
+ * @param distance the distance (in km) of the route
+ * @param cost the stop cost of the route - the sum of the cost points of every location after the start
+ *
+ * @author usman
+ */
+
+public record ParetoRoute(List<String> path, double distance, int cost) {
+
+    /**
+     * works out the weighted sum of the distance and the cost of the route
+     * @param costWeight the km one cost point is worth
+     * @return distance + costWeight * cost
+     */
+    public double weightedSum(double costWeight) {
+        return distance + costWeight * cost;
+    }
+}
@@ -0,0 +1,352 @@
+package Travel_App;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ParetoRouter object finds the routes between two locations that trade distance off against the cost of the stops
+ * on the way - every location a route passes through (after the start) adds its cost points, so a longer route
+ * through cheap destinations can be worth more than a short one through expensive ones
+ *
+ * The search is a bi-criteria label-setting search (Martins' algorithm): a label is a partial route (its vertex,
+ * distance and cost), and labels are taken from a heap in order of distance, so a label is Pareto-optimal when it is
+ * taken unless a label taken earlier at its vertex was as cheap. That makes the dominance test at each vertex one
+ * comparison with the cheapest label taken there. Lower bounds of the remaining distance and cost guide the search to
+ * the end location and prune every label that cannot beat a route already found. The cost bound comes from a Dijkstra
+ * search back from the end location that stops once it reaches the start location (every vertex it has not reached by
+ * then is at least as far). The distance bound is the great-circle distance to the end location if no edge is
+ * shorter than it (the A* heuristic of the graph), so it costs no search, and otherwise comes from a second reverse
+ * search that stops the same way. The number of labels is bounded, so the search stays fast on large graphs - if it
+ * runs out it answers with the part of the front it has found (which is still Pareto-optimal)
+ *
+ * A router does not change after it is created, so one router can be shared by many threads
+ *
+ * @author usman
+ */
+
+public final class ParetoRouter {
+
+    //the default largest number of labels a search may create
+    public static final int DEFAULT_MAX_LABELS = 1 << 20;
+
+    //the initial capacity of the label arrays
+    private static final int INITIAL_CAPACITY = 64;
+
+    //the graph the routes are searched in
+    private final CompactWeightedGraph graph;
+    //the cost points of each vertex (added when a route passes through it)
+    private final int[] stopCosts;
+    //the largest number of labels a search may create
+    private final int maxLabels;
+
+    /**
+     * Constructor - initialises the graph, the cost points of its vertices and the label budget
+     * @param graph
+     * @param stopCosts the cost points of each vertex (by vertex id, none negative)
+     * @param maxLabels the largest number of labels a search may create
+     */
+    public ParetoRouter(CompactWeightedGraph graph, int[] stopCosts, int maxLabels) {
+        if (stopCosts.length != graph.vertexCount()) {
+            throw new IllegalArgumentException("Expected " + graph.vertexCount() + " stop costs, not " + stopCosts.length);
+        }
+        if (maxLabels < 1) {
+            throw new IllegalArgumentException("The label budget must be positive: " + maxLabels);
+        }
+        this.graph = graph;
+        this.stopCosts = stopCosts;
+        this.maxLabels = maxLabels;
+    }
+
+    /**
+     * gets the cost points of a destination - 1 for a LOW cost, 2 for MEDIUM and 3 for HIGH
+     * @param cost
+     * @return the points
+     */
+    public static int stopCostOf(Cost cost) {
+        return cost.ordinal() + 1;
+    }
+
+    /**
+     * finds the Pareto-optimal routes between two locations
+     * @param startLocation
+     * @param endLocation
+     * @return the routes from the shortest to the cheapest
+     */
+    public ParetoFront search(String startLocation, String endLocation) {
+        int source = graph.idOf(startLocation);
+        if (source < 0) {
+            throw new IllegalArgumentException("Unknown location: " + startLocation);
+        }
+        int target = graph.idOf(endLocation);
+        if (target < 0) {
+            throw new IllegalArgumentException("Unknown location: " + endLocation);
+        }
+        return search(source, target);
+    }
+
+    /**
+     * finds the Pareto-optimal routes between two vertex ids
+     * @param source
+     * @param target
+     * @return the routes from the shortest to the cheapest
+     */
+    public ParetoFront search(int source, int target) {
+        long start = Metrics.start();
+        double[] remainingCost = lowerBounds(source, target, true);
+        if (remainingCost[source] == Double.POSITIVE_INFINITY) {
+            return new ParetoFront(Collections.emptyList(), true, 0);
+        }
+        double[] remainingDistance;
+        if (graph.isHeuristicAdmissible()) {
+            // worked out for each vertex the first time a label reaches it (NaN until then)
+            remainingDistance = new double[graph.vertexCount()];
+            Arrays.fill(remainingDistance, Double.NaN);
+        } else {
+            remainingDistance = lowerBounds(source, target, false);
+        }
+
+        Labels labels = new Labels(remainingDistance);
+        // the cost of the cheapest label taken at each vertex (every later label there is at least as long)
+        int[] cheapest = new int[graph.vertexCount()];
+        Arrays.fill(cheapest, Integer.MAX_VALUE);
+        List<Integer> found = new ArrayList<>();
+        boolean complete = true;
+        long settled = 0;
+        long relaxed = 0;
+
+        distanceBound(remainingDistance, source, target);
+        labels.push(source, -1, 0.0, 0);
+        search:
+        while (!labels.isEmpty()) {
+            int label = labels.poll();
+            int vertex = labels.vertices[label];
+            int cost = labels.costs[label];
+            if (cost >= cheapest[vertex] || (vertex != target && cost + remainingCost[vertex] >= cheapest[target])) {
+                // dominated by a label taken earlier at the vertex, or cannot be completed more cheaply than a route found
+                continue;
+            }
+            cheapest[vertex] = cost;
+            settled++;
+            if (vertex == target) {
+                found.add(label);
+                if (cost <= remainingCost[source]) {
+                    // no route is cheaper than this one, so every label left is dominated
+                    break;
+                }
+                continue;
+            }
+
+            double distance = labels.distances[label];
+            relaxed += graph.endEdge(vertex) - graph.firstEdge(vertex);
+            for (int edge = graph.firstEdge(vertex); edge < graph.endEdge(vertex); edge++) {
+                int neighbour = graph.edgeTarget(edge);
+                int newCost = cost + stopCosts[neighbour];
+                if (newCost >= cheapest[neighbour] || newCost + remainingCost[neighbour] >= cheapest[target]
+                        || remainingCost[neighbour] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                if (labels.count == maxLabels) {
+                    complete = false;
+                    break search;
+                }
+                distanceBound(remainingDistance, neighbour, target);
+                labels.push(neighbour, label, distance + graph.edgeWeight(edge), newCost);
+            }
+        }
+
+        List<ParetoRoute> routes = new ArrayList<>(found.size());
+        for (int label : found) {
+            routes.add(new ParetoRoute(labels.pathTo(label), labels.distances[label], labels.costs[label]));
+        }
+        Metrics.recordSearch(Metrics.Timer.PARETO_SEARCH, start, settled, relaxed, labels.count);
+        return new ParetoFront(Collections.unmodifiableList(routes), complete, labels.count);
+    }
+
+    /**
+     * private method that fills in the great-circle bound of the remaining distance of a vertex if it is not known yet
+     * (bounds from a reverse search are always known)
+     * @param remainingDistance
+     * @param vertex
+     * @param target
+     */
+    private void distanceBound(double[] remainingDistance, int vertex, int target) {
+        if (Double.isNaN(remainingDistance[vertex])) {
+            remainingDistance[vertex] = graph.distanceBound(vertex, target);
+        }
+    }
+
+    /**
+     * private method that works out a lower bound of the distance (or cost) from every vertex to the target with
+     * Dijkstra's algorithm over the reversed edges. The search stops once it settles the source, so the vertices it
+     * settled get their exact value and every other vertex gets the source's value (vertices are settled in order,
+     * so none of them is closer) - the bounds stay consistent, which the label order needs
+     * @param source
+     * @param target
+     * @param costs true for the cost of the stops, false for the distance
+     * @return the bound of each vertex (infinity for all of them if the target cannot be reached from the source)
+     */
+    private double[] lowerBounds(int source, int target, boolean costs) {
+        CompactWeightedGraph reverse = graph.reverse();
+        int vertexCount = graph.vertexCount();
+        double[] reached = new double[vertexCount];
+        Arrays.fill(reached, Double.POSITIVE_INFINITY);
+        double[] bounds = new double[vertexCount];
+        Arrays.fill(bounds, Double.POSITIVE_INFINITY);
+        IndexedMinHeap heap = new IndexedMinHeap(vertexCount);
+        reached[target] = 0.0;
+        heap.insertOrDecrease(target, 0.0);
+        while (!heap.isEmpty()) {
+            int vertex = heap.pollMin();
+            bounds[vertex] = reached[vertex];
+            if (vertex == source) {
+                double rest = bounds[vertex];
+                for (int other = 0; other < vertexCount; other++) {
+                    if (bounds[other] == Double.POSITIVE_INFINITY) {
+                        bounds[other] = rest;
+                    }
+                }
+                break;
+            }
+            for (int edge = reverse.firstEdge(vertex); edge < reverse.endEdge(vertex); edge++) {
+                int previous = reverse.edgeTarget(edge);
+                // going from previous to vertex adds the edge's distance, or the cost of stopping at vertex
+                double bound = reached[vertex] + (costs ? stopCosts[vertex] : reverse.edgeWeight(edge));
+                if (bound < reached[previous]) {
+                    reached[previous] = bound;
+                    heap.insertOrDecrease(previous, bound);
+                }
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Labels object holds the labels of one search in growable primitive arrays, and a binary heap of the label ids
+     * ordered by distance plus the remaining distance bound (then by cost), so no object is allocated per label
+     */
+    private final class Labels {
+
+        //the remaining distance bound of each vertex
+        private final double[] remainingDistance;
+        //the vertex of each label
+        private int[] vertices = new int[INITIAL_CAPACITY];
+        //the label each label extends (-1 for the start)
+        private int[] parents = new int[INITIAL_CAPACITY];
+        //the distance of each label
+        private double[] distances = new double[INITIAL_CAPACITY];
+        //the cost of each label
+        private int[] costs = new int[INITIAL_CAPACITY];
+        //the number of labels created
+        private int count;
+        //the label ids in heap order
+        private int[] heap = new int[INITIAL_CAPACITY];
+        //the number of labels in the heap
+        private int size;
+
+        /**
+         * Constructor - initialises an empty set of labels
+         * @param remainingDistance
+         */
+        Labels(double[] remainingDistance) {
+            this.remainingDistance = remainingDistance;
+        }
+
+        /**
+         * checks whether every label has been taken from the heap
+         * @return true if the heap is empty
+         */
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * creates a label and adds it to the heap
+         * @param vertex
+         * @param parent
+         * @param distance
+         * @param cost
+         */
+        void push(int vertex, int parent, double distance, int cost) {
+            if (count == vertices.length) {
+                int capacity = count * 2;
+                vertices = Arrays.copyOf(vertices, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                distances = Arrays.copyOf(distances, capacity);
+                costs = Arrays.copyOf(costs, capacity);
+            }
+            int label = count++;
+            vertices[label] = vertex;
+            parents[label] = parent;
+            distances[label] = distance;
+            costs[label] = cost;
+
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int position = size++;
+            while (position > 0) {
+                int parentPosition = (position - 1) >>> 1;
+                if (!before(label, heap[parentPosition])) {
+                    break;
+                }
+                heap[position] = heap[parentPosition];
+                position = parentPosition;
+            }
+            heap[position] = label;
+        }
+
+        /**
+         * removes the first label from the heap
+         * @return the label id
+         */
+        int poll() {
+            int first = heap[0];
+            int last = heap[--size];
+            int position = 0;
+            int half = size >>> 1;
+            while (position < half) {
+                int child = 2 * position + 1;
+                if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], last)) {
+                    break;
+                }
+                heap[position] = heap[child];
+                position = child;
+            }
+            if (size > 0) {
+                heap[position] = last;
+            }
+            return first;
+        }
+
+        /**
+         * checks whether a label comes before another in the heap
+         * @param label
+         * @param other
+         * @return true if its distance plus bound is smaller, or the same with a smaller cost
+         */
+        private boolean before(int label, int other) {
+            double key = distances[label] + remainingDistance[vertices[label]];
+            double otherKey = distances[other] + remainingDistance[vertices[other]];
+            return key < otherKey || key == otherKey && costs[label] < costs[other];
+        }
+
+        /**
+         * walks the parent chain back from a label to build its route
+         * @param label
+         * @return the location names from the start
+         */
+        List<String> pathTo(int label) {
+            List<String> path = new ArrayList<>();
+            for (int current = label; current >= 0; current = parents[current]) {
+                path.add(graph.nameOf(vertices[current]));
+            }
+            Collections.reverse(path);
+            return Collections.unmodifiableList(path);
+        }
+    }
+}
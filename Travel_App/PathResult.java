@@ -0,0 +1,75 @@
+package Travel_App;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * PathResult object is the answer to a point-to-point shortest path query
+ * It stores the shortest distance between the two locations and the locations visited along the path
+ *
+ * @author usman
+ */
+
+public final class PathResult {
+
+    //the shortest distance from the start location to the end location (infinity if there is no path)
+    private final double distance;
+    //the locations on the path, starting with the start location and ending with the end location
+    private final List<String> path;
+    //the number of vertices the search settled before it found the answer
+    private final int settledCount;
+
+    /**
+     * Constructor - initialises the distance and path
+     * @param distance
+     * @param path
+     */
+    public PathResult(double distance, List<String> path) {
+        this(distance, path, 0);
+    }
+
+    /**
+     * Constructor - initialises the distance, path and the number of settled vertices
+     * @param distance
+     * @param path
+     * @param settledCount
+     */
+    public PathResult(double distance, List<String> path, int settledCount) {
+        this.distance = distance;
+        this.path = Collections.unmodifiableList(path);
+        this.settledCount = settledCount;
+    }
+
+    /**
+     * gets the shortest distance
+     * @return distance, or infinity if the end location is not reachable
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * gets the locations on the shortest path (in travel order)
+     * @return the path, or an empty list if the end location is not reachable
+     */
+    public List<String> getPath() {
+        return path;
+    }
+
+    /**
+     * gets the number of vertices settled (removed from the priority queue) by the search
+     * used to compare how much of the graph each search strategy explored
+     * @return the settled vertex count
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    /**
+     * checks whether a path was found
+     * @return true if the end location is reachable from the start location
+     */
+    public boolean isFound() {
+        return !path.isEmpty();
+    }
+}
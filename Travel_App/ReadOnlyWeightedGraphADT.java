@@ -0,0 +1,44 @@
+package Travel_App;
+
+import java.util.Map;
+
+/**
+ * The Read Only Weighted Graph ADT interface defines the queries that every graph should be able to answer
+ * A graph that cannot be changed (such as a published CompactWeightedGraph version) implements only this interface,
+ * a graph that can be changed implements the WeightedGraphADT
+ *
+ * @author usman
+ */
+
+public interface ReadOnlyWeightedGraphADT {
+    /**
+     * Produces a string that displays the graph (including its vertices (locations) and weights (distances)
+     * @return a string representation of the graph
+     */
+    public String printGraph();
+
+    /**
+     * An algorithm that finds the shorts paths from a start vertex to all the other vertices
+     * @param startLocation
+     * @return a map of the shortest paths to each of the vertices (from the start vertex)
+     */
+    public Map<String, Double>  dijkstraAlgorithm(String startLocation);
+
+    /**
+     * Finds the shortest path between two vertices - the search stops as soon as the end vertex is settled
+     * @param startLocation
+     * @param endLocation
+     * @return the shortest distance and the vertices (locations) on the path
+     */
+    public PathResult shortestPath(String startLocation, String endLocation);
+
+    /**
+     * Finds the shortest path between two vertices using the chosen search strategy
+     * @param startLocation
+     * @param endLocation
+     * @param strategy
+     * @return the shortest distance, the vertices (locations) on the path and the number of settled vertices
+     */
+    public PathResult shortestPath(String startLocation, String endLocation, SearchStrategy strategy);
+
+}
@@ -0,0 +1,93 @@
+package Travel_App;
+
+/**
+ * Route object is the visiting order produced by a route optimiser
+ * The order holds indices into the list of cities that were given to the optimiser (the first one is the start city)
+ *
+ * @author usman
+ */
+
+public final class Route {
+
+    //the indices of the cities in visiting order
+    private final int[] order;
+    //the total distance travelled along the route
+    private final double length;
+    //the number of improvement steps the optimiser made
+    private final int iterations;
+    //whether the route is proven to be the shortest possible order
+    private final boolean optimal;
+
+    /**
+     * Constructor - initialises the order, length and number of iterations of a heuristic route
+     * @param order
+     * @param length
+     * @param iterations
+     */
+    public Route(int[] order, double length, int iterations) {
+        this(order, length, iterations, false);
+    }
+
+    /**
+     * Constructor - initialises the order, length, number of iterations and whether the route is optimal
+     * @param order
+     * @param length
+     * @param iterations
+     * @param optimal
+     */
+    public Route(int[] order, double length, int iterations, boolean optimal) {
+        this.order = order.clone();
+        this.length = length;
+        this.iterations = iterations;
+        this.optimal = optimal;
+    }
+
+    /**
+     * gets the number of cities on the route
+     * @return the city count
+     */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * gets the city visited at a position of the route
+     * @param position
+     * @return the index of the city in the optimiser's input
+     */
+    public int cityAt(int position) {
+        return order[position];
+    }
+
+    /**
+     * gets the visiting order
+     * @return a copy of the city indices in visiting order
+     */
+    public int[] getOrder() {
+        return order.clone();
+    }
+
+    /**
+     * gets the total distance of the route
+     * @return the route length
+     */
+    public double getLength() {
+        return length;
+    }
+
+    /**
+     * gets the number of improvement steps the optimiser made
+     * @return the iteration count
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * checks whether the route was solved exactly
+     * @return true if no shorter visiting order exists
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+}
@@ -0,0 +1,14 @@
+package Travel_App;
+
+/**
+ * RouteLeg is one step of a RoutePlan - travelling from one city to the next
+ *
+ * @param from the city the leg starts at
+ * @param to the city the leg ends at
+ * @param distance the shortest distance (in km) between the two cities
+ *
+ * @author usman
+ */
+
+public record RouteLeg(String from, String to, double distance) {
+}
@@ -0,0 +1,20 @@
+package Travel_App;
+
+/**
+ * The ways a shortest travel path request can order the cities to visit
+ *
+ * @author usman
+ */
+
+public enum RouteMode {
+    /**
+     * a nearest-neighbour route improved with 2-opt and Or-opt moves (fast for any number of cities)
+     */
+    HEURISTIC,
+
+    /**
+     * the provably shortest order found with the Held-Karp algorithm (up to HeldKarpSolver.MAX_CITIES cities)
+     * falls back to the heuristic route for longer itineraries or when the solver runs past its deadline
+     */
+    EXACT
+}
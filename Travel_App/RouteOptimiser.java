@@ -0,0 +1,265 @@
+package Travel_App;
+
+/**
+ * RouteOptimiser object finds a short visiting order for a list of cities given their pairwise distances
+ * The route starts at the first city and does not return to it. A nearest-neighbour route is built first
+ * and then improved with 2-opt (reversing a section) and Or-opt (moving a section of up to 3 cities) moves
+ * until no move helps or the time budget runs out
+ *
+ * The moves assume the distances are symmetric, which holds for the graphs MyController builds
+ *
+ * @author usman
+ */
+
+public final class RouteOptimiser {
+
+    //the default time allowed for the improvement phase
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 200;
+
+    //the longest section moved by an Or-opt move
+    private static final int MAX_SEGMENT = 3;
+    //the smallest saving that counts as an improvement (avoids cycling on rounding errors)
+    private static final double EPSILON = 1e-9;
+
+    //the time allowed for the improvement phase in nanoseconds
+    private final long timeBudgetNanos;
+
+    /**
+     * Constructor - initialises the optimiser with the default time budget
+     */
+    public RouteOptimiser() {
+        this(DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    /**
+     * Constructor - initialises the time budget of the improvement phase
+     * @param timeBudgetMillis
+     */
+    public RouteOptimiser(long timeBudgetMillis) {
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+    }
+
+    /**
+     * finds a short route through all the cities, starting at city 0
+     * @param distances the size*size pairwise distances (the distance from i to j is at i * size + j)
+     * @param size the number of cities
+     * @return the optimised route
+     */
+    public Route optimise(double[] distances, int size) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        Tour tour = new Tour(distances, size);
+
+        int[] order = tour.nearestNeighbour();
+        int iterations = 0;
+        boolean improved = true;
+        // stops improving (keeping the route found so far) at the deadline or if the thread is interrupted
+        while (improved && System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            int moves = tour.twoOpt(order, deadline);
+            moves += tour.orOpt(order, deadline);
+            iterations += moves;
+            improved = moves > 0;
+        }
+        return new Route(order, length(order, distances, size), iterations);
+    }
+
+    /**
+     * works out the total distance of a visiting order
+     * @param order
+     * @param distances
+     * @param size
+     * @return the route length
+     */
+    static double length(int[] order, double[] distances, int size) {
+        double total = 0;
+        for (int i = 0; i + 1 < order.length; i++) {
+            total += distances[order[i] * size + order[i + 1]];
+        }
+        return total;
+    }
+
+    /**
+     * Tour object holds the pairwise distances of one optimisation and the construction and improvement moves over them
+     */
+    private static final class Tour {
+
+        //the pairwise distances (row = from city, column = to city)
+        private final double[] distances;
+        //the number of cities
+        private final int size;
+
+        /**
+         * Constructor - initialises the distances and number of cities
+         * @param distances
+         * @param size
+         */
+        Tour(double[] distances, int size) {
+            this.distances = distances;
+            this.size = size;
+        }
+
+        /**
+         * builds the starting route by always travelling to the nearest city not yet visited
+         * @return the nearest-neighbour order
+         */
+        int[] nearestNeighbour() {
+            int[] order = new int[size];
+            boolean[] visited = new boolean[size];
+            visited[0] = true;
+            for (int position = 1; position < size; position++) {
+                int current = order[position - 1];
+                int nearest = -1;
+                double nearestDistance = Double.POSITIVE_INFINITY;
+                for (int city = 0; city < size; city++) {
+                    if (!visited[city] && (nearest < 0 || distance(current, city) < nearestDistance)) {
+                        nearest = city;
+                        nearestDistance = distance(current, city);
+                    }
+                }
+                order[position] = nearest;
+                visited[nearest] = true;
+            }
+            return order;
+        }
+
+        /**
+         * one pass of 2-opt moves - reverses the section order[i..j] whenever that shortens the route
+         * @param order
+         * @param deadline
+         * @return the number of moves made
+         */
+        int twoOpt(int[] order, long deadline) {
+            int moves = 0;
+            for (int i = 1; i < size - 1; i++) {
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+                int before = order[i - 1];
+                for (int j = i + 1; j < size; j++) {
+                    int first = order[i];
+                    int last = order[j];
+                    // the route is open, so reversing up to the final city has no edge after the section
+                    double removed = distance(before, first);
+                    double added = distance(before, last);
+                    if (j + 1 < size) {
+                        removed += distance(last, order[j + 1]);
+                        added += distance(first, order[j + 1]);
+                    }
+                    if (added - removed < -EPSILON) {
+                        reverse(order, i, j);
+                        moves++;
+                    }
+                }
+            }
+            return moves;
+        }
+
+        /**
+         * one pass of Or-opt moves - moves a section of 1 to MAX_SEGMENT cities (possibly reversed)
+         * to the position where it shortens the route the most
+         * @param order
+         * @param deadline
+         * @return the number of moves made
+         */
+        int orOpt(int[] order, long deadline) {
+            int moves = 0;
+            for (int length = 1; length <= MAX_SEGMENT; length++) {
+                for (int i = 1; i + length <= size; i++) {
+                    if (System.nanoTime() >= deadline) {
+                        return moves;
+                    }
+                    int end = i + length - 1;
+                    int first = order[i];
+                    int last = order[end];
+                    int before = order[i - 1];
+                    int after = end + 1 < size ? order[end + 1] : -1;
+
+                    // the saving from taking the section out and joining its neighbours
+                    double saving = distance(before, first);
+                    if (after >= 0) {
+                        saving += distance(last, after) - distance(before, after);
+                    }
+
+                    // finds the cheapest gap (between order[p] and order[p + 1]) outside the section to insert it into
+                    int bestGap = -1;
+                    boolean bestReversed = false;
+                    double bestDelta = -EPSILON;
+                    for (int p = 0; p < size; p++) {
+                        if (p >= i - 1 && p <= end) {
+                            continue;
+                        }
+                        int left = order[p];
+                        int right = p + 1 < size ? order[p + 1] : -1;
+                        double joined = right >= 0 ? distance(left, right) : 0.0;
+                        double forward = distance(left, first) + (right >= 0 ? distance(last, right) : 0.0) - joined;
+                        double backward = distance(left, last) + (right >= 0 ? distance(first, right) : 0.0) - joined;
+                        if (forward - saving < bestDelta) {
+                            bestDelta = forward - saving;
+                            bestGap = p;
+                            bestReversed = false;
+                        }
+                        if (backward - saving < bestDelta) {
+                            bestDelta = backward - saving;
+                            bestGap = p;
+                            bestReversed = true;
+                        }
+                    }
+
+                    if (bestGap >= 0) {
+                        move(order, i, end, bestGap, bestReversed);
+                        moves++;
+                    }
+                }
+            }
+            return moves;
+        }
+
+        /**
+         * moves the section order[start..end] into the gap after position gap
+         * @param order
+         * @param start
+         * @param end
+         * @param gap
+         * @param reversed
+         */
+        private static void move(int[] order, int start, int end, int gap, boolean reversed) {
+            int length = end - start + 1;
+            int[] section = new int[length];
+            for (int k = 0; k < length; k++) {
+                section[k] = order[reversed ? end - k : start + k];
+            }
+            if (gap < start) {
+                // shifts the cities between the gap and the section to the right
+                System.arraycopy(order, gap + 1, order, gap + 1 + length, start - gap - 1);
+                System.arraycopy(section, 0, order, gap + 1, length);
+            } else {
+                // shifts the cities between the section and the gap to the left
+                System.arraycopy(order, end + 1, order, start, gap - end);
+                System.arraycopy(section, 0, order, gap - length + 1, length);
+            }
+        }
+
+        /**
+         * reverses the section order[i..j]
+         * @param order
+         * @param i
+         * @param j
+         */
+        private static void reverse(int[] order, int i, int j) {
+            while (i < j) {
+                int swap = order[i];
+                order[i++] = order[j];
+                order[j--] = swap;
+            }
+        }
+
+        /**
+         * gets the distance between two cities
+         * @param from
+         * @param to
+         * @return the distance
+         */
+        private double distance(int from, int to) {
+            return distances[from * size + to];
+        }
+    }
+}
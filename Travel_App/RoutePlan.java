@@ -0,0 +1,28 @@
+package Travel_App;
+
+import java.util.List;
+
+/**
+ * RoutePlan is the shortest travel path returned by Controller.planShortestPath
+ *
+ * @param legs the legs of the route in travel order
+ * @param totalDistance the total distance (in km) of the route
+ * @param optimal whether the order is proven to be the shortest (false for the heuristic order)
+ * @param iterations the improvement moves the heuristic optimiser made (0 for an exact order)
+ *
+ * @author usman
+ */
+
+public record RoutePlan(List<RouteLeg> legs, double totalDistance, boolean optimal, int iterations) {
+
+    /**
+     * Constructor - keeps an unmodifiable copy of the legs
+     * @param legs
+     * @param totalDistance
+     * @param optimal
+     * @param iterations
+     */
+    public RoutePlan {
+        legs = List.copyOf(legs);
+    }
+}
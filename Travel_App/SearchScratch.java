@@ -0,0 +1,86 @@
+package Travel_App;
+
+import java.util.Arrays;
+
+/**
+ * SearchScratch object holds the reusable buffers of a shortest path search (distances, predecessors and the heap)
+ * Each thread keeps its own scratch, so after warm-up a search allocates nothing. Only the vertices
+ * touched by the previous search are reset, so the reset cost is proportional to the search and not the graph
+ *
+ * @author usman
+ */
+
+final class SearchScratch {
+
+    //one scratch per thread (reused by every graph the thread searches)
+    private static final ThreadLocal<SearchScratch> SCRATCH = ThreadLocal.withInitial(SearchScratch::new);
+    //a second scratch per thread for the backward half of a bidirectional search
+    private static final ThreadLocal<SearchScratch> BACKWARD_SCRATCH = ThreadLocal.withInitial(SearchScratch::new);
+
+    //the tentative distance of each vertex (infinity if not reached)
+    double[] distances = new double[0];
+    //the previous vertex on the shortest path to each vertex (-1 if none)
+    int[] predecessors = new int[0];
+    //the priority queue of the search
+    final IndexedMinHeap heap = new IndexedMinHeap(0);
+
+    //the vertices whose distance was set by the current search
+    private int[] touched = new int[0];
+    //the number of touched vertices
+    private int touchedCount;
+
+    /**
+     * gets the scratch of the current thread
+     * @return the thread's scratch
+     */
+    static SearchScratch current() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * gets the thread's second scratch (used alongside current() by the backward search)
+     * @return the thread's backward scratch
+     */
+    static SearchScratch currentBackward() {
+        return BACKWARD_SCRATCH.get();
+    }
+
+    /**
+     * resets the buffers touched by the previous search and makes sure they can hold the vertex count
+     * @param vertexCount
+     */
+    void prepare(int vertexCount) {
+        for (int i = 0; i < touchedCount; i++) {
+            int vertex = touched[i];
+            distances[vertex] = Double.POSITIVE_INFINITY;
+            predecessors[vertex] = -1;
+            heap.forget(vertex);
+        }
+        touchedCount = 0;
+        heap.clear();
+
+        if (vertexCount > distances.length) {
+            int oldCapacity = distances.length;
+            distances = Arrays.copyOf(distances, vertexCount);
+            predecessors = Arrays.copyOf(predecessors, vertexCount);
+            touched = Arrays.copyOf(touched, vertexCount);
+            Arrays.fill(distances, oldCapacity, vertexCount, Double.POSITIVE_INFINITY);
+            Arrays.fill(predecessors, oldCapacity, vertexCount, -1);
+            heap.ensureCapacity(vertexCount);
+        }
+    }
+
+    /**
+     * sets the tentative distance and predecessor of a vertex (remembering it for the next reset)
+     * @param vertex
+     * @param distance
+     * @param predecessor
+     */
+    void reach(int vertex, double distance, int predecessor) {
+        if (distances[vertex] == Double.POSITIVE_INFINITY) {
+            touched[touchedCount++] = vertex;
+        }
+        distances[vertex] = distance;
+        predecessors[vertex] = predecessor;
+    }
+}
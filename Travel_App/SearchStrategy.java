@@ -0,0 +1,26 @@
+package Travel_App;
+
+/**
+ * The search algorithms that can answer a point-to-point shortest path query
+ *
+ * @author usman
+ */
+
+public enum SearchStrategy {
+    /**
+     * Dijkstra's algorithm from the start location, stopping once the end location is settled
+     */
+    DIJKSTRA,
+
+    /**
+     * A* search guided by the great-circle (Haversine) distance to the end location
+     * This is only exact while no edge is shorter than the great-circle distance between its two locations, so a
+     * graph with such an edge (a changed route) is searched with Dijkstra's algorithm instead
+     */
+    A_STAR,
+
+    /**
+     * Dijkstra's algorithm run from both the start and the end location until the two searches meet
+     */
+    BIDIRECTIONAL
+}
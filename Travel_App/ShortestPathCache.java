@@ -0,0 +1,404 @@
+package Travel_App;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * ShortestPathCache object keeps the single-source shortest path trees (the distance and predecessor arrays of a
+ * Dijkstra search) of one graph by source vertex, so questions that start from the same locations do not search
+ * the graph again
+ *
+ * The cache is bounded by the memory of its trees (12 bytes per vertex each) and evicts the least recently used
+ * trees when it is over its budget. Lookups go through a ConcurrentHashMap without a lock - a hit only writes the
+ * time to its own entry - and only the thread that takes the eviction lock scans for trees to evict. When many
+ * threads ask for the same tree that is not cached yet, one of them searches the graph and the others wait for its
+ * result (single flight)
+ *
+ * A cache belongs to one immutable graph, so a changed graph gets a new cache. update carries the trees over to a
+ * changed version of the graph - a tree is kept as it is if no change touches it, repaired from the edges that got
+ * shorter, or dropped (and searched again on next use) if it went through an edge that got longer. invalidateAll and
+ * invalidateIf drop trees that may no longer be right
+ *
+ * @author usman
+ */
+
+public final class ShortestPathCache {
+
+    //the default memory budget of the trees (64 MB)
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    //the memory of a tree besides its arrays (the view, the entry, the future and the map node)
+    private static final int ENTRY_OVERHEAD = 160;
+
+    //the graph the trees are searched in
+    private final CompactWeightedGraph graph;
+    //the trees (or the searches for them) by source vertex
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    //the memory of the cached trees (worked out again by every eviction pass)
+    private final AtomicLong usedBytes = new AtomicLong();
+    //held by the thread evicting trees
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    //the memory budget of the trees
+    private volatile long maxBytes;
+
+    //lookups that found the tree cached (or being searched for by another thread)
+    private final LongAdder hits = new LongAdder();
+    //lookups that had to search the graph
+    private final LongAdder misses = new LongAdder();
+    //hits that waited for another thread's search
+    private final LongAdder waits = new LongAdder();
+    //trees evicted to stay within the budget
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Stats is the hit and miss statistics of a cache
+     * @param hits lookups that found the tree cached (or being searched for by another thread)
+     * @param misses lookups that had to search the graph
+     * @param waits hits that waited for another thread's search
+     * @param evictions trees evicted to stay within the budget
+     * @param size the number of cached trees
+     * @param bytes the memory of the cached trees
+     */
+    public record Stats(long hits, long misses, long waits, long evictions, int size, long bytes) {
+
+        /**
+         * gets the share of lookups that were hits
+         * @return from 0 to 1 (0 if there were no lookups)
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * Constructor - initialises an empty cache for a graph
+     * @param graph
+     * @param maxBytes the memory budget of the trees (0 to cache nothing, but still share concurrent searches)
+     */
+    public ShortestPathCache(CompactWeightedGraph graph, long maxBytes) {
+        this.graph = graph;
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+
+    /**
+     * gets the shortest path tree from a source vertex, searching the graph if it is not cached
+     * @param source
+     * @return a detached view of the tree (it stays valid after other searches)
+     * @throws CancellationException if the thread is interrupted while it waits for another thread's search
+     */
+    public DistanceView get(int source) {
+        while (true) {
+            Entry entry = entries.get(source);
+            if (entry == null) {
+                Entry created = new Entry();
+                entry = entries.putIfAbsent(source, created);
+                if (entry == null) {
+                    return load(source, created);
+                }
+            }
+
+            hits.increment();
+            Metrics.increment(Metrics.Counter.SHORTEST_PATH_CACHE_HITS);
+            entry.lastUsed = System.nanoTime();
+            if (!entry.tree.isDone()) {
+                waits.increment();
+            }
+            try {
+                return entry.tree.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Cancelled while waiting for a shortest path tree");
+            } catch (ExecutionException e) {
+                // the search failed and its entry has been removed - this thread searches again (or rethrows)
+                if (!(e.getCause() instanceof CancellationException) && e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+            }
+        }
+    }
+
+    /**
+     * searches the graph for a tree this thread has claimed, and keeps it if it fits the budget
+     * @param source
+     * @param entry the entry claimed for the source
+     * @return the tree
+     */
+    private DistanceView load(int source, Entry entry) {
+        misses.increment();
+        Metrics.increment(Metrics.Counter.SHORTEST_PATH_CACHE_MISSES);
+        DistanceView tree;
+        try {
+            tree = graph.shortestDistances(source).copy();
+        } catch (RuntimeException | Error e) {
+            entries.remove(source, entry);
+            entry.tree.completeExceptionally(e);
+            throw e;
+        }
+        entry.lastUsed = System.nanoTime();
+        entry.tree.complete(tree);
+
+        if (bytesOf(tree) > maxBytes) {
+            // too large to keep - the threads already waiting for it still get it
+            entries.remove(source, entry);
+        } else if (usedBytes.addAndGet(bytesOf(tree)) > maxBytes) {
+            evict();
+        }
+        return tree;
+    }
+
+    /**
+     * evicts the least recently used trees until the cache is within its budget
+     * (does nothing if another thread is already evicting - it will see the new tree)
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long used = 0;
+            for (Entry entry : entries.values()) {
+                used += entry.bytes();
+            }
+            while (used > maxBytes) {
+                Map.Entry<Integer, Entry> oldest = null;
+                for (Map.Entry<Integer, Entry> candidate : entries.entrySet()) {
+                    Entry entry = candidate.getValue();
+                    if (entry.tree.isDone() && (oldest == null || entry.lastUsed < oldest.getValue().lastUsed)) {
+                        oldest = candidate;
+                    }
+                }
+                if (oldest == null) {
+                    break;
+                }
+                if (entries.remove(oldest.getKey(), oldest.getValue())) {
+                    used -= oldest.getValue().bytes();
+                    evictions.increment();
+                    Metrics.increment(Metrics.Counter.SHORTEST_PATH_CACHE_EVICTIONS);
+                }
+            }
+            usedBytes.set(used);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * creates the cache of a changed version of the graph, carrying over the trees the change leaves right and
+     * repairing the ones it only makes shorter - a tree that went through an edge that got longer (or was removed) is
+     * dropped and searched again when it is next asked for. Trees still being searched for are not carried over
+     * @param update a change of this cache's graph
+     * @return the cache of the new version (with the same budget)
+     */
+    public ShortestPathCache update(GraphUpdate update) {
+        if (update.previous() != graph) {
+            throw new IllegalArgumentException("The update is not a change of the cache's graph");
+        }
+        ShortestPathCache result = new ShortestPathCache(update.graph(), maxBytes);
+        int dropped = 0;
+        for (Map.Entry<Integer, Entry> candidate : entries.entrySet()) {
+            DistanceView tree = candidate.getValue().tree.getNow(null);
+            if (tree == null) {
+                continue;
+            }
+            DistanceView repaired = update.renumbered() ? null : repair(tree, update);
+            if (repaired == null) {
+                dropped++;
+                continue;
+            }
+            Entry entry = new Entry();
+            entry.tree.complete(repaired);
+            entry.lastUsed = candidate.getValue().lastUsed;
+            result.entries.put(candidate.getKey(), entry);
+            result.usedBytes.addAndGet(bytesOf(repaired));
+        }
+        if (result.usedBytes.get() > maxBytes) {
+            // added vertices make the trees larger
+            result.evict();
+        }
+        Metrics.add(Metrics.Counter.SHORTEST_PATH_TREES_REPAIRED, result.entries.size());
+        Metrics.add(Metrics.Counter.SHORTEST_PATH_TREES_DROPPED, dropped);
+        return result;
+    }
+
+    /**
+     * works out a tree of a changed version of the graph from the tree of the previous version
+     * the old distances are still the lengths of paths in the new version unless the tree used an edge that got
+     * longer, so only the edges that got shorter can give shorter paths - Dijkstra's algorithm is run from the ends
+     * of those edges and only goes as far as the distances keep getting shorter
+     * @param tree
+     * @param update
+     * @return the repaired tree (the same tree if nothing changed), or null if it has to be searched again
+     */
+    private static DistanceView repair(DistanceView tree, GraphUpdate update) {
+        int oldCount = tree.vertexCount();
+        for (EdgeChange change : update.changes()) {
+            if (change.isIncrease() && change.to() < oldCount && tree.predecessorOf(change.to()) == change.from()) {
+                return null;
+            }
+        }
+
+        CompactWeightedGraph changed = update.graph();
+        int vertexCount = changed.vertexCount();
+        double[] distances = null;
+        int[] predecessors = null;
+        IndexedMinHeap heap = null;
+        for (EdgeChange change : update.changes()) {
+            if (!change.isDecrease() || change.from() >= oldCount) {
+                continue;
+            }
+            double distance = tree.distanceTo(change.from()) + change.newWeight();
+            int to = change.to();
+            double known = distances != null ? distances[to] : to < oldCount ? tree.distanceTo(to) : Double.POSITIVE_INFINITY;
+            if (distance < known) {
+                if (distances == null) {
+                    distances = distancesOf(tree, vertexCount);
+                    predecessors = predecessorsOf(tree, vertexCount);
+                    heap = new IndexedMinHeap(vertexCount);
+                }
+                distances[to] = distance;
+                predecessors[to] = change.from();
+                heap.insertOrDecrease(to, distance);
+            }
+        }
+        if (distances == null) {
+            return vertexCount == oldCount ? tree
+                    : new DistanceView(changed, tree.source(), distancesOf(tree, vertexCount), predecessorsOf(tree, vertexCount));
+        }
+
+        while (!heap.isEmpty()) {
+            int vertex = heap.pollMin();
+            double distance = distances[vertex];
+            for (int edge = changed.firstEdge(vertex); edge < changed.endEdge(vertex); edge++) {
+                int neighbour = changed.edgeTarget(edge);
+                double newDistance = distance + changed.edgeWeight(edge);
+                if (newDistance < distances[neighbour]) {
+                    distances[neighbour] = newDistance;
+                    predecessors[neighbour] = vertex;
+                    heap.insertOrDecrease(neighbour, newDistance);
+                }
+            }
+        }
+        return new DistanceView(changed, tree.source(), distances, predecessors);
+    }
+
+    /**
+     * copies the distances of a tree (the vertices it does not cover are not reachable)
+     * @param tree
+     * @param vertexCount
+     * @return the distances
+     */
+    private static double[] distancesOf(DistanceView tree, int vertexCount) {
+        double[] distances = new double[vertexCount];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        for (int vertex = 0; vertex < tree.vertexCount(); vertex++) {
+            distances[vertex] = tree.distanceTo(vertex);
+        }
+        return distances;
+    }
+
+    /**
+     * copies the predecessors of a tree (the vertices it does not cover have none)
+     * @param tree
+     * @param vertexCount
+     * @return the predecessors
+     */
+    private static int[] predecessorsOf(DistanceView tree, int vertexCount) {
+        int[] predecessors = new int[vertexCount];
+        Arrays.fill(predecessors, -1);
+        for (int vertex = 0; vertex < tree.vertexCount(); vertex++) {
+            predecessors[vertex] = tree.predecessorOf(vertex);
+        }
+        return predecessors;
+    }
+
+    /**
+     * drops every cached tree
+     */
+    public void invalidateAll() {
+        entries.clear();
+        usedBytes.set(0);
+    }
+
+    /**
+     * drops the cached trees that match a test (trees still being searched for are kept)
+     * @param stale returns true for a tree that may no longer be right
+     * @return the number of trees dropped
+     */
+    public int invalidateIf(Predicate<DistanceView> stale) {
+        int dropped = 0;
+        for (Map.Entry<Integer, Entry> candidate : entries.entrySet()) {
+            Entry entry = candidate.getValue();
+            DistanceView tree = entry.tree.getNow(null);
+            if (tree != null && stale.test(tree) && entries.remove(candidate.getKey(), entry)) {
+                usedBytes.addAndGet(-bytesOf(tree));
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * changes the memory budget (evicting trees now if the cache is over the new budget)
+     * @param bytes
+     */
+    public void setMaxBytes(long bytes) {
+        maxBytes = Math.max(0, bytes);
+        if (usedBytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * gets the memory budget
+     * @return the bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * gets the hit and miss statistics
+     * @return the statistics
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), waits.sum(), evictions.sum(), entries.size(), usedBytes.get());
+    }
+
+    /**
+     * works out the memory of a tree
+     * @param tree
+     * @return the bytes (8 per distance and 4 per predecessor, plus the overhead)
+     */
+    private static long bytesOf(DistanceView tree) {
+        return 12L * tree.vertexCount() + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * Entry object is one cached tree (or the search for it) and when it was last used
+     */
+    private static final class Entry {
+
+        //completed with the tree by the thread that searches for it
+        private final CompletableFuture<DistanceView> tree = new CompletableFuture<>();
+        //the System.nanoTime of the last lookup (written without a lock - the latest write wins)
+        private volatile long lastUsed;
+
+        /**
+         * gets the memory of the tree
+         * @return the bytes (0 while it is being searched for)
+         */
+        long bytes() {
+            DistanceView view = tree.getNow(null);
+            return view == null ? 0 : bytesOf(view);
+        }
+    }
+}
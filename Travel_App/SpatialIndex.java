@@ -0,0 +1,580 @@
+package Travel_App;
+
+import java.util.Arrays;
+
+/**
+ * SpatialIndex object is a k-d tree over the coordinates of a set of locations
+ * Each location is stored as a point on the unit sphere (x, y, z), so the straight-line (chord) distance
+ * between two points grows with their great-circle distance and the tree never has to deal with the
+ * longitude wrap-around at +/-180 degrees
+ *
+ * The locations are identified by their index in the arrays the index was built from. The tree is never
+ * changed after it is built, so any number of threads can query it at the same time
+ *
+ * @author usman
+ */
+
+public final class SpatialIndex {
+
+    //the radius of the Earth in kilometres (the same value as Utility.calculateDistance)
+    private static final double EARTH_RADIUS = 6371.0;
+
+    //the number of locations in the index
+    private final int size;
+    //the location ids in tree order (the node of range [lo, hi) is stored at its middle (lo + hi) / 2)
+    private final int[] ids;
+    //the x, y and z coordinates of the points in tree order
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    //the axis (0 = x, 1 = y, 2 = z) each node splits its range on
+    private final byte[] axes;
+
+    /**
+     * Constructor - builds the tree from the latitudes and longitudes (in degrees) of the locations
+     * @param latitudes
+     * @param longitudes
+     * @param size the number of locations to index (the first size entries of the arrays)
+     */
+    public SpatialIndex(double[] latitudes, double[] longitudes, int size) {
+        this.size = size;
+        ids = new int[size];
+        xs = new double[size];
+        ys = new double[size];
+        zs = new double[size];
+        axes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            double latitude = Math.toRadians(latitudes[i]);
+            double longitude = Math.toRadians(longitudes[i]);
+            ids[i] = i;
+            xs[i] = Math.cos(latitude) * Math.cos(longitude);
+            ys[i] = Math.cos(latitude) * Math.sin(longitude);
+            zs[i] = Math.sin(latitude);
+        }
+        build(0, size);
+    }
+
+    /**
+     * gets the number of locations in the index
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * finds the k locations nearest to a point
+     * @param latitude
+     * @param longitude
+     * @param k
+     * @return the ids of up to k locations, nearest first
+     */
+    public int[] nearest(double latitude, double longitude, int k) {
+        if (k <= 0 || size == 0) {
+            return new int[0];
+        }
+        Query query = new Query(latitude, longitude, Math.min(k, size));
+        query.search(0, size);
+        return query.sortedIds();
+    }
+
+    /**
+     * creates a search for the nearest location outside a group of locations
+     * @return the search
+     */
+    public GroupSearch groupSearch() {
+        return new GroupSearch();
+    }
+
+    /**
+     * finds every location within a great-circle distance of a point
+     * the tree is searched with a slightly larger chord so the result never misses a location; callers that
+     * need an exact cut-off should check the returned locations with Utility.calculateDistance
+     * @param latitude
+     * @param longitude
+     * @param distance the radius in kilometres
+     * @return the ids of the locations within the radius (in no particular order)
+     */
+    public int[] withinDistance(double latitude, double longitude, double distance) {
+        double chord = chordLength(distance) + 1e-9;
+        Query query = new Query(latitude, longitude, 0);
+        int count = query.collect(0, size, chord * chord, 0);
+        return Arrays.copyOf(query.collected, count);
+    }
+
+    /**
+     * converts a great-circle distance to the straight-line distance between points on the unit sphere
+     * @param distance in kilometres
+     * @return the chord length (2 for any distance at least half way round the Earth)
+     */
+    static double chordLength(double distance) {
+        double angle = distance / EARTH_RADIUS;
+        return angle >= Math.PI ? 2.0 : 2.0 * Math.sin(angle / 2.0);
+    }
+
+    /**
+     * arranges the range [lo, hi) into a k-d tree - the median on the widest axis becomes the node
+     * @param lo
+     * @param hi
+     */
+    private void build(int lo, int hi) {
+        if (hi - lo <= 1) {
+            if (hi - lo == 1) {
+                axes[lo] = 0;
+            }
+            return;
+        }
+        int axis = widestAxis(lo, hi);
+        int middle = (lo + hi) >>> 1;
+        select(lo, hi - 1, middle, axis);
+        axes[middle] = (byte) axis;
+        build(lo, middle);
+        build(middle + 1, hi);
+    }
+
+    /**
+     * finds the axis with the largest spread of coordinates in a range
+     * @param lo
+     * @param hi
+     * @return 0, 1 or 2 for the x, y or z axis
+     */
+    private int widestAxis(int lo, int hi) {
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double minZ = Double.POSITIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = lo; i < hi; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+            minZ = Math.min(minZ, zs[i]);
+            maxZ = Math.max(maxZ, zs[i]);
+        }
+        double spreadX = maxX - minX, spreadY = maxY - minY, spreadZ = maxZ - minZ;
+        if (spreadX >= spreadY && spreadX >= spreadZ) {
+            return 0;
+        }
+        return spreadY >= spreadZ ? 1 : 2;
+    }
+
+    /**
+     * quickselect - reorders [left, right] so the point at position k has the k-th smallest coordinate on the axis
+     * @param left
+     * @param right
+     * @param k
+     * @param axis
+     */
+    private void select(int left, int right, int k, int axis) {
+        while (right > left) {
+            double pivot = coordinate((left + right) >>> 1, axis);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(i, axis) < pivot) {
+                    i++;
+                }
+                while (coordinate(j, axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * gets a coordinate of the point at a tree position
+     * @param position
+     * @param axis
+     * @return the x, y or z coordinate
+     */
+    private double coordinate(int position, int axis) {
+        return axis == 0 ? xs[position] : axis == 1 ? ys[position] : zs[position];
+    }
+
+    /**
+     * swaps two points of the tree
+     * @param a
+     * @param b
+     */
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double x = xs[a];
+        xs[a] = xs[b];
+        xs[b] = x;
+        double y = ys[a];
+        ys[a] = ys[b];
+        ys[b] = y;
+        double z = zs[a];
+        zs[a] = zs[b];
+        zs[b] = z;
+    }
+
+    /**
+     * GroupSearch object finds the nearest location outside a group, for joining the separate groups (components) of
+     * a graph. Every node of the tree keeps the bounding box of its subtree and is tagged with the group of its
+     * subtree when the whole subtree lies in one group, so a search skips the subtrees inside its own group and every
+     * subtree further away than the nearest location found so far - a location deep inside a large group does not
+     * walk the group, and a location far from the other groups only visits the parts of the tree facing it
+     *
+     * The bounding boxes are worked out once; setGroups is called again whenever the groups change. A search is not
+     * safe to share between threads
+     */
+    public final class GroupSearch {
+
+        //the smallest and largest x, y and z coordinates of the subtree of each tree position
+        private final double[] minXs = new double[size];
+        private final double[] maxXs = new double[size];
+        private final double[] minYs = new double[size];
+        private final double[] maxYs = new double[size];
+        private final double[] minZs = new double[size];
+        private final double[] maxZs = new double[size];
+        //the group of each location id
+        private int[] groups;
+        //the group of the subtree of each tree position (-1 if it holds more than one group)
+        private final int[] subtreeGroups = new int[size];
+
+        //the query point of the current search on the unit sphere
+        private double x;
+        private double y;
+        private double z;
+        //the group the current search looks outside of
+        private int group;
+        //the nearest location found by the current search, and its squared chord distance
+        private int nearestId;
+        private double nearestDistance;
+
+        /**
+         * Constructor - works out the bounding box of every subtree
+         */
+        private GroupSearch() {
+            box(0, size);
+        }
+
+        /**
+         * gets the location ids in tree order - nearby locations are next to each other, so searching from the
+         * locations in this order keeps the part of the tree the searches visit in the cache
+         * @return the ids
+         */
+        public int[] order() {
+            return ids.clone();
+        }
+
+        /**
+         * sets the group of each location and tags the subtrees that lie in one group
+         * @param groups the group of each location id (none negative)
+         */
+        public void setGroups(int[] groups) {
+            this.groups = groups;
+            tag(0, size);
+        }
+
+        /**
+         * finds the location nearest to a point among the locations outside a group
+         * @param latitude
+         * @param longitude
+         * @param group the group to search outside of
+         * @param maxDistance only locations closer than this great-circle distance (km) are looked at
+         * @return the id of the nearest location outside the group, or -1 if there is none within maxDistance
+         */
+        public int nearestOutside(double latitude, double longitude, int group, double maxDistance) {
+            double latitudeRadians = Math.toRadians(latitude);
+            double longitudeRadians = Math.toRadians(longitude);
+            x = Math.cos(latitudeRadians) * Math.cos(longitudeRadians);
+            y = Math.cos(latitudeRadians) * Math.sin(longitudeRadians);
+            z = Math.sin(latitudeRadians);
+            this.group = group;
+            nearestId = -1;
+            nearestDistance = Double.POSITIVE_INFINITY;
+            if (maxDistance != Double.POSITIVE_INFINITY) {
+                double chord = chordLength(maxDistance) + 1e-9;
+                nearestDistance = chord * chord;
+            }
+            search(0, size);
+            return nearestId;
+        }
+
+        /**
+         * works out the bounding boxes of the range [lo, hi) and its subtrees
+         * @param lo
+         * @param hi
+         */
+        private void box(int lo, int hi) {
+            int middle = (lo + hi) >>> 1;
+            minXs[middle] = maxXs[middle] = xs[middle];
+            minYs[middle] = maxYs[middle] = ys[middle];
+            minZs[middle] = maxZs[middle] = zs[middle];
+            if (lo < middle) {
+                box(lo, middle);
+                include(middle, (lo + middle) >>> 1);
+            }
+            if (middle + 1 < hi) {
+                box(middle + 1, hi);
+                include(middle, (middle + 1 + hi) >>> 1);
+            }
+        }
+
+        /**
+         * grows the bounding box of a tree position to hold the box of another
+         * @param position
+         * @param child
+         */
+        private void include(int position, int child) {
+            minXs[position] = Math.min(minXs[position], minXs[child]);
+            maxXs[position] = Math.max(maxXs[position], maxXs[child]);
+            minYs[position] = Math.min(minYs[position], minYs[child]);
+            maxYs[position] = Math.max(maxYs[position], maxYs[child]);
+            minZs[position] = Math.min(minZs[position], minZs[child]);
+            maxZs[position] = Math.max(maxZs[position], maxZs[child]);
+        }
+
+        /**
+         * tags the nodes of the range [lo, hi) with the group of their subtree
+         * @param lo
+         * @param hi
+         * @return the group of the whole range (-1 if it holds more than one group, -2 if it is empty)
+         */
+        private int tag(int lo, int hi) {
+            if (lo >= hi) {
+                return -2;
+            }
+            int middle = (lo + hi) >>> 1;
+            int subtreeGroup = groups[ids[middle]];
+            int left = tag(lo, middle);
+            int right = tag(middle + 1, hi);
+            if ((left != -2 && left != subtreeGroup) || (right != -2 && right != subtreeGroup)) {
+                subtreeGroup = -1;
+            }
+            subtreeGroups[middle] = subtreeGroup;
+            return subtreeGroup;
+        }
+
+        /**
+         * the search of the range [lo, hi) - visits the side of the split containing the query point first
+         * @param lo
+         * @param hi
+         */
+        private void search(int lo, int hi) {
+            if (lo >= hi) {
+                return;
+            }
+            int middle = (lo + hi) >>> 1;
+            if (subtreeGroups[middle] == group || boxDistance(middle) >= nearestDistance) {
+                return;
+            }
+            if (groups[ids[middle]] != group) {
+                double dx = xs[middle] - x, dy = ys[middle] - y, dz = zs[middle] - z;
+                double distance = dx * dx + dy * dy + dz * dz;
+                if (distance < nearestDistance) {
+                    nearestDistance = distance;
+                    nearestId = ids[middle];
+                }
+            }
+            if (hi - lo == 1) {
+                return;
+            }
+            int axis = axes[middle];
+            if ((axis == 0 ? x : axis == 1 ? y : z) < coordinate(middle, axis)) {
+                search(lo, middle);
+                search(middle + 1, hi);
+            } else {
+                search(middle + 1, hi);
+                search(lo, middle);
+            }
+        }
+
+        /**
+         * works out the squared distance from the query point to the bounding box of a subtree
+         * @param position
+         * @return the squared chord distance (0 if the point is inside the box)
+         */
+        private double boxDistance(int position) {
+            double dx = Math.max(0.0, Math.max(minXs[position] - x, x - maxXs[position]));
+            double dy = Math.max(0.0, Math.max(minYs[position] - y, y - maxYs[position]));
+            double dz = Math.max(0.0, Math.max(minZs[position] - z, z - maxZs[position]));
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    /**
+     * Query object holds the state of one search of the tree (the index itself is never modified by a query,
+     * so any number of threads can search it at the same time)
+     */
+    private final class Query {
+
+        //the query point on the unit sphere
+        private final double x;
+        private final double y;
+        private final double z;
+        //the k nearest points found so far, as a max-heap on the squared chord distance
+        private final int[] heapIds;
+        private final double[] heapDistances;
+        //the number of points in the heap
+        private int count;
+        //the ids found by a radius search
+        private int[] collected = new int[16];
+
+        /**
+         * Constructor - initialises the query point and the number of neighbours wanted
+         * @param latitude
+         * @param longitude
+         * @param k
+         */
+        Query(double latitude, double longitude, int k) {
+            double latitudeRadians = Math.toRadians(latitude);
+            double longitudeRadians = Math.toRadians(longitude);
+            x = Math.cos(latitudeRadians) * Math.cos(longitudeRadians);
+            y = Math.cos(latitudeRadians) * Math.sin(longitudeRadians);
+            z = Math.sin(latitudeRadians);
+            heapIds = new int[k];
+            heapDistances = new double[k];
+        }
+
+        /**
+         * the k-nearest search of the range [lo, hi) - visits the side of the split containing the query point
+         * first and the other side only if it could hold a point closer than the current k-th nearest
+         * @param lo
+         * @param hi
+         */
+        void search(int lo, int hi) {
+            if (lo >= hi) {
+                return;
+            }
+            int middle = (lo + hi) >>> 1;
+            double dx = xs[middle] - x, dy = ys[middle] - y, dz = zs[middle] - z;
+            double distance = dx * dx + dy * dy + dz * dz;
+            offer(ids[middle], distance);
+            if (hi - lo == 1) {
+                return;
+            }
+            int axis = axes[middle];
+            double difference = (axis == 0 ? x : axis == 1 ? y : z) - coordinate(middle, axis);
+            if (difference < 0) {
+                search(lo, middle);
+                if (count < heapIds.length || difference * difference < heapDistances[0]) {
+                    search(middle + 1, hi);
+                }
+            } else {
+                search(middle + 1, hi);
+                if (count < heapIds.length || difference * difference < heapDistances[0]) {
+                    search(lo, middle);
+                }
+            }
+        }
+
+        /**
+         * the radius search of the range [lo, hi)
+         * @param lo
+         * @param hi
+         * @param limit the squared chord radius
+         * @param foundCount the number of ids collected so far
+         * @return the new number of collected ids
+         */
+        int collect(int lo, int hi, double limit, int foundCount) {
+            if (lo >= hi) {
+                return foundCount;
+            }
+            int middle = (lo + hi) >>> 1;
+            double dx = xs[middle] - x, dy = ys[middle] - y, dz = zs[middle] - z;
+            if (dx * dx + dy * dy + dz * dz <= limit) {
+                if (foundCount == collected.length) {
+                    collected = Arrays.copyOf(collected, foundCount * 2);
+                }
+                collected[foundCount++] = ids[middle];
+            }
+            if (hi - lo == 1) {
+                return foundCount;
+            }
+            int axis = axes[middle];
+            double difference = (axis == 0 ? x : axis == 1 ? y : z) - coordinate(middle, axis);
+            if (difference < 0 || difference * difference <= limit) {
+                foundCount = collect(lo, middle, limit, foundCount);
+            }
+            if (difference >= 0 || difference * difference <= limit) {
+                foundCount = collect(middle + 1, hi, limit, foundCount);
+            }
+            return foundCount;
+        }
+
+        /**
+         * offers a point to the k-nearest heap (replacing the furthest point if the heap is full)
+         * @param id
+         * @param distance
+         */
+        private void offer(int id, double distance) {
+            if (count < heapIds.length) {
+                int position = count++;
+                while (position > 0) {
+                    int parent = (position - 1) >>> 1;
+                    if (heapDistances[parent] >= distance) {
+                        break;
+                    }
+                    heapIds[position] = heapIds[parent];
+                    heapDistances[position] = heapDistances[parent];
+                    position = parent;
+                }
+                heapIds[position] = id;
+                heapDistances[position] = distance;
+            } else if (distance < heapDistances[0]) {
+                int position = 0;
+                int half = count >>> 1;
+                while (position < half) {
+                    int child = 2 * position + 1;
+                    if (child + 1 < count && heapDistances[child + 1] > heapDistances[child]) {
+                        child++;
+                    }
+                    if (heapDistances[child] <= distance) {
+                        break;
+                    }
+                    heapIds[position] = heapIds[child];
+                    heapDistances[position] = heapDistances[child];
+                    position = child;
+                }
+                heapIds[position] = id;
+                heapDistances[position] = distance;
+            }
+        }
+
+        /**
+         * empties the heap into an array ordered nearest first
+         * @return the ids of the nearest points
+         */
+        int[] sortedIds() {
+            int[] result = new int[count];
+            while (count > 0) {
+                result[count - 1] = heapIds[0];
+                int lastId = heapIds[count - 1];
+                double lastDistance = heapDistances[count - 1];
+                count--;
+                // sifts the last point down from the root
+                int position = 0;
+                int half = count >>> 1;
+                while (position < half) {
+                    int child = 2 * position + 1;
+                    if (child + 1 < count && heapDistances[child + 1] > heapDistances[child]) {
+                        child++;
+                    }
+                    if (heapDistances[child] <= lastDistance) {
+                        break;
+                    }
+                    heapIds[position] = heapIds[child];
+                    heapDistances[position] = heapDistances[child];
+                    position = child;
+                }
+                heapIds[position] = lastId;
+                heapDistances[position] = lastDistance;
+            }
+            return result;
+        }
+    }
+}
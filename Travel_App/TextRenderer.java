@@ -0,0 +1,312 @@
+package Travel_App;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * TextRenderer is a helper class that turns the typed results of the Controller into the user-friendly text layouts
+ * of the list methods. Each layout can be written straight to a Writer (or any Appendable) one row at a time, so a
+ * large result never has to be held as one String
+ *
+ * Numbers are formatted without String.format - a value is rounded to its decimal places with integer arithmetic,
+ * and only a value that is too large or too close to a rounding tie is passed to String.format with Locale.ROOT, so
+ * the text is the same as the String.format layouts in Locale.ROOT (a '.' decimal point, whatever the default locale)
+ *
+ * @author usman
+ */
+
+public final class TextRenderer {
+
+    //the column titles of the destinations layout
+    private static final String DESTINATIONS_HEADER = String.format("%-10s %-85s %-10s %s %6s\n", "Name", "Description", "Latitude", "Longitude", "Cost");
+    //the column titles of the nearby destinations layout
+    private static final String NEARBY_HEADER = String.format("%-15s %-10s %s", "Name", "Cost", "Distance to current Location (KM)\n");
+
+    //values at or above this (after scaling to whole units of the last decimal place) are formatted with String.format
+    private static final double FAST_LIMIT = 1e9;
+    //a scaled value this close to half a unit is a possible rounding tie and is formatted with String.format
+    private static final double TIE_MARGIN = 1e-6;
+    //the powers of ten up to the most decimal places used
+    private static final long[] POWERS = {1, 10, 100, 1000, 10000};
+
+    /**
+     * private constructor - the class only has static methods
+     */
+    private TextRenderer() {
+    }
+
+    /**
+     * renders destination rows in the listDestinations layout
+     * @param rows
+     * @param all true for the layout of every destination (each row ends with a line break), false for the layout
+     *            of one named destination
+     * @return the text
+     */
+    public static String destinations(List<DestinationRow> rows, boolean all) {
+        StringBuilder text = new StringBuilder(DESTINATIONS_HEADER.length() * (rows.size() + 1));
+        writeDestinations(rows, all, text);
+        return text.toString();
+    }
+
+    /**
+     * writes destination rows in the listDestinations layout
+     * @param rows
+     * @param all true for the layout of every destination, false for the layout of one named destination
+     * @param out
+     */
+    public static void writeDestinations(List<DestinationRow> rows, boolean all, Appendable out) {
+        try {
+            out.append(DESTINATIONS_HEADER);
+            StringBuilder line = new StringBuilder(160);
+            for (DestinationRow row : rows) {
+                // "%-10s %-85s %.4f %10.4f %9s"
+                line.setLength(0);
+                padRight(line, row.name(), 10).append(' ');
+                padRight(line, row.description(), 85).append(' ');
+                appendFixed(line, row.latitude(), 4).append(' ');
+                padLeft(line, fixed(row.longitude(), 4), 10).append(' ');
+                padLeft(line, row.cost().toString(), 9);
+                if (all) {
+                    line.append('\n');
+                }
+                out.append(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * renders nearby destinations in the listNearbyDestinations layout
+     * @param latitude the latitude the search was made from
+     * @param longitude the longitude the search was made from
+     * @param hits
+     * @return the text
+     */
+    public static String nearby(double latitude, double longitude, List<NearbyHit> hits) {
+        StringBuilder text = new StringBuilder(NEARBY_HEADER.length() * (hits.size() + 2));
+        writeNearby(latitude, longitude, hits, text);
+        return text.toString();
+    }
+
+    /**
+     * writes nearby destinations in the listNearbyDestinations layout
+     * @param latitude the latitude the search was made from
+     * @param longitude the longitude the search was made from
+     * @param hits
+     * @param out
+     */
+    public static void writeNearby(double latitude, double longitude, List<NearbyHit> hits, Appendable out) {
+        try {
+            out.append(String.format(Locale.ROOT, "Current Location: (Lat) %.2f (Lon) %.2f\n", latitude, longitude));
+            out.append(NEARBY_HEADER);
+            StringBuilder line = new StringBuilder(48);
+            for (NearbyHit hit : hits) {
+                // "%-15s %-10s %.1f\n"
+                line.setLength(0);
+                padRight(line, hit.name(), 15).append(' ');
+                padRight(line, hit.cost().toString(), 10).append(' ');
+                appendFixed(line, hit.distance(), 1).append('\n');
+                out.append(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * renders distance rows in the listDistances layout
+     * @param rows
+     * @return the text
+     */
+    public static String distances(Iterable<DistanceRow> rows) {
+        StringBuilder text = new StringBuilder();
+        writeDistances(rows, text);
+        return text.toString();
+    }
+
+    /**
+     * writes distance rows in the listDistances layout, one row at a time
+     * @param rows
+     * @param out
+     * @return the number of rows written
+     */
+    public static int writeDistances(Iterable<DistanceRow> rows, Appendable out) {
+        try {
+            StringBuilder line = new StringBuilder(64);
+            int count = 0;
+            for (DistanceRow row : rows) {
+                count++;
+                out.append("Location: ").append(row.name()).append(" is connected to: \n");
+                for (int target = 0; target < row.size(); target++) {
+                    // " - %s by a distance of %.1f KM.\n"
+                    line.setLength(0);
+                    line.append(" - ").append(row.targetAt(target)).append(" by a distance of ");
+                    appendFixed(line, row.distanceAt(target), 1).append(" KM.\n");
+                    out.append(line);
+                }
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * renders a route in the listShortestPath layout
+     * @param plan
+     * @return the text
+     */
+    public static String route(RoutePlan plan) {
+        StringBuilder text = new StringBuilder(64 * (plan.legs().size() + 2));
+        writeRoute(plan, text);
+        return text.toString();
+    }
+
+    /**
+     * writes a route in the listShortestPath layout
+     * @param plan
+     * @param out
+     */
+    public static void writeRoute(RoutePlan plan, Appendable out) {
+        try {
+            out.append("Order of the shortest travel path: \n");
+            StringBuilder line = new StringBuilder(64);
+            int position = 1;
+            for (RouteLeg leg : plan.legs()) {
+                line.setLength(0);
+                line.append(position++).append(") (").append(leg.from()).append(") --(");
+                appendFixed(line, leg.distance(), 1).append(" KM)--> (").append(leg.to()).append(") \n");
+                out.append(line);
+            }
+            line.setLength(0);
+            line.append("Total distance of travel: ");
+            appendFixed(line, plan.totalDistance(), 1).append(" KM \n");
+            out.append(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * renders the routes of a Pareto front in the listParetoRoutes layout
+     * @param front
+     * @param costWeight the km one cost point is worth (picks the route marked as the best)
+     * @return the text
+     */
+    public static String paretoRoutes(ParetoFront front, double costWeight) {
+        StringBuilder text = new StringBuilder(96 * (front.routes().size() + 2));
+        writeParetoRoutes(front, costWeight, text);
+        return text.toString();
+    }
+
+    /**
+     * writes the routes of a Pareto front in the listParetoRoutes layout
+     * @param front
+     * @param costWeight the km one cost point is worth (picks the route marked as the best)
+     * @param out
+     */
+    public static void writeParetoRoutes(ParetoFront front, double costWeight, Appendable out) {
+        try {
+            if (front.routes().isEmpty()) {
+                out.append(front.complete() ? "No route connects the cities \n" : "No route found within the label budget \n");
+                return;
+            }
+            out.append("Routes from the shortest to the cheapest: \n");
+            ParetoRoute best = front.best(costWeight);
+            StringBuilder line = new StringBuilder(96);
+            int position = 1;
+            for (ParetoRoute route : front.routes()) {
+                line.setLength(0);
+                line.append(route == best ? "* " : "  ").append(position++).append(") ");
+                appendFixed(line, route.distance(), 1).append(" KM, cost ").append(route.cost()).append(": ");
+                out.append(line);
+                for (int i = 0; i < route.path().size(); i++) {
+                    out.append(i == 0 ? "(" : " --> (").append(route.path().get(i)).append(')');
+                }
+                out.append(" \n");
+            }
+            line.setLength(0);
+            line.append("* best route at ");
+            appendFixed(line, costWeight, 1).append(" KM per cost point");
+            out.append(line).append(front.complete() ? " \n" : " (the label budget ran out - cheaper routes may be missing) \n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * formats a number with a fixed number of decimal places (the same text as String.format(Locale.ROOT, "%.nf"))
+     * @param value
+     * @param decimals from 0 to 4
+     * @return the text
+     */
+    static String fixed(double value, int decimals) {
+        return appendFixed(new StringBuilder(16), value, decimals).toString();
+    }
+
+    /**
+     * appends a number with a fixed number of decimal places (the same text as String.format(Locale.ROOT, "%.nf"))
+     * @param out
+     * @param value
+     * @param decimals from 0 to 4
+     * @return out
+     */
+    static StringBuilder appendFixed(StringBuilder out, double value, int decimals) {
+        long power = POWERS[decimals];
+        double scaled = Math.abs(value) * power;
+        double whole = Math.floor(scaled);
+        double fraction = scaled - whole;
+        // NaN, infinite, very large and possible ties are left to String.format (in Locale.ROOT, like the fast path)
+        if (!(scaled < FAST_LIMIT) || Math.abs(fraction - 0.5) < TIE_MARGIN) {
+            return out.append(String.format(Locale.ROOT, "%." + decimals + "f", value));
+        }
+
+        long units = (long) whole + (fraction > 0.5 ? 1 : 0);
+        if (Double.doubleToRawLongBits(value) < 0) {
+            // String.format keeps the sign of a negative value even if it rounds to zero
+            out.append('-');
+        }
+        out.append(units / power);
+        if (decimals > 0) {
+            out.append('.');
+            long digits = units % power;
+            for (long place = power / 10; place > digits && place > 1; place /= 10) {
+                out.append('0');
+            }
+            out.append(digits);
+        }
+        return out;
+    }
+
+    /**
+     * appends text padded with spaces on the right to a width (like %-Ns)
+     * @param out
+     * @param text
+     * @param width
+     * @return out
+     */
+    private static StringBuilder padRight(StringBuilder out, String text, int width) {
+        out.append(text);
+        for (int i = text.length(); i < width; i++) {
+            out.append(' ');
+        }
+        return out;
+    }
+
+    /**
+     * appends text padded with spaces on the left to a width (like %Ns)
+     * @param out
+     * @param text
+     * @param width
+     * @return out
+     */
+    private static StringBuilder padLeft(StringBuilder out, String text, int width) {
+        for (int i = text.length(); i < width; i++) {
+            out.append(' ');
+        }
+        return out.append(text);
+    }
+}
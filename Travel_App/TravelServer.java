@@ -0,0 +1,517 @@
+package Travel_App;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TravelServer object serves the Controller operations over HTTP with the JDK's built-in server, so one
+ * controller can answer many clients without the GUI. Every response is JSON
+ *
+ *   GET /destinations?name=all|NAME
+ *   GET /nearby?lat=LAT&amp;lon=LON&amp;distance=KM[&amp;offset=N&amp;limit=N]
+ *   GET /distances[?offset=N&amp;limit=N]
+ *   GET /shortest-path?cities=A,B,C[&amp;mode=HEURISTIC|EXACT]
+ *   GET /pareto-routes?from=A&amp;to=B[&amp;costWeight=KM]
+ *   GET /metrics
+ *
+ * A successful response is the structured result, for example
+ *
+ *   {"destinations": [{"name": ..., "description": ..., "latitude": ..., "longitude": ..., "cost": ...}, ...]}
+ *   {"hits": [{"name": ..., "cost": ..., "distance": ...}, ...]}
+ *   {"rows": [{"name": ..., "targets": [{"name": ..., "distance": ...}, ...]}, ...]}
+ *   {"legs": [{"from": ..., "to": ..., "distance": ...}, ...], "totalDistance": ..., "optimal": ..., "iterations": ...}
+ *   {"routes": [{"path": [...], "distance": ..., "cost": ...}, ...], "best": ..., "complete": ..., "labels": ...}
+ *
+ * and an invalid request is answered with status 400 and {"error": "..."}. A number that is not finite is written
+ * as null. The body is streamed, so a large result (such as every distance) is never held as one String
+ *
+ * Each request runs on its own virtual thread when the JDK has them (21 and later), otherwise on a cached pool of
+ * platform threads
+ *
+ * @author usman
+ */
+
+public final class TravelServer {
+
+    //the port the server listens on when none is given
+    public static final int DEFAULT_PORT = 8080;
+
+    //the number of connections the server queues before refusing new ones
+    private static final int BACKLOG = 4096;
+
+    //the controller the requests are answered by (it must be safe to share between threads)
+    private final Controller controller;
+    //the JDK HTTP server
+    private final HttpServer server;
+    //runs the requests
+    private final ExecutorService executor;
+
+    /**
+     * Constructor - creates the server on a port and registers the endpoints (the server is started with start())
+     * @param controller
+     * @param port the port to listen on (0 for any free port)
+     * @throws IOException if the port cannot be opened
+     */
+    public TravelServer(Controller controller, int port) throws IOException {
+        this.controller = controller;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = requestExecutor();
+        server.setExecutor(executor);
+
+        server.createContext("/destinations", endpoint(query -> {
+            List<DestinationRow> rows = controller.findDestinations(parameter(query, "name", "all"));
+            return out -> writeDestinations(rows, out);
+        }));
+        server.createContext("/nearby", endpoint(query -> {
+            List<NearbyHit> hits = controller.findNearbyDestinations(
+                    Double.parseDouble(required(query, "lat")),
+                    Double.parseDouble(required(query, "lon")),
+                    Integer.parseInt(required(query, "distance")),
+                    Integer.parseInt(parameter(query, "offset", "0")),
+                    Integer.parseInt(parameter(query, "limit", String.valueOf(Integer.MAX_VALUE))));
+            return out -> writeNearby(hits, out);
+        }));
+        server.createContext("/distances", endpoint(query -> {
+            Iterable<DistanceRow> rows = query.containsKey("offset") || query.containsKey("limit")
+                    ? controller.findDistances(Integer.parseInt(parameter(query, "offset", "0")),
+                            Integer.parseInt(parameter(query, "limit", String.valueOf(Integer.MAX_VALUE))))
+                    : controller.findDistances();
+            return out -> writeDistances(rows, out);
+        }));
+        server.createContext("/shortest-path", endpoint(query -> {
+            RoutePlan plan = controller.planShortestPath(
+                    cities(required(query, "cities")),
+                    RouteMode.valueOf(parameter(query, "mode", RouteMode.HEURISTIC.name()).toUpperCase(Locale.ROOT)));
+            return out -> writeRoute(plan, out);
+        }));
+        server.createContext("/pareto-routes", endpoint(query -> {
+            ParetoFront front = controller.findParetoRoutes(required(query, "from"), required(query, "to"));
+            double costWeight = Double.parseDouble(parameter(query, "costWeight", "0"));
+            return out -> writeParetoRoutes(front, costWeight, out);
+        }));
+        server.createContext("/metrics", endpoint(query -> {
+            String json = Metrics.toJson();
+            return out -> out.write(json);
+        }));
+    }
+
+    /**
+     * starts answering requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * stops the server, giving running requests up to a delay to finish
+     * @param delaySeconds
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * gets the port the server is listening on
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * creates the executor the requests run on - a virtual thread per request if the JDK has virtual threads
+     * (looked up by reflection so the code still compiles and runs on JDK 17), otherwise a cached thread pool
+     * @return the executor
+     */
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "travel-http-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Query interface is one endpoint's call to the controller
+     */
+    private interface Query {
+        /**
+         * answers a request (the controller is called here, so an invalid request fails before the response starts)
+         * @param parameters the decoded query string parameters
+         * @return the body that writes the controller's result
+         */
+        Body answer(Map<String, String> parameters);
+    }
+
+    /**
+     * Body interface writes the JSON of a result
+     */
+    private interface Body {
+        /**
+         * writes the JSON
+         * @param out
+         * @throws IOException
+         */
+        void writeTo(Writer out) throws IOException;
+    }
+
+    /**
+     * creates the handler of an endpoint - it only accepts GET, and turns the result or error into JSON
+     * @param query
+     * @return the handler
+     */
+    private static HttpHandler endpoint(Query query) {
+        return exchange -> {
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    send(exchange, 405, error("Only GET is supported"));
+                    return;
+                }
+                Body body;
+                try {
+                    body = query.answer(parameters(exchange.getRequestURI().getRawQuery()));
+                } catch (IllegalArgumentException e) {
+                    // also covers NumberFormatException and unknown modes and locations
+                    send(exchange, 400, error(e.getMessage()));
+                    return;
+                } catch (RuntimeException e) {
+                    send(exchange, 500, error(e.toString()));
+                    return;
+                }
+                stream(exchange, body);
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    /**
+     * creates the JSON body of an error
+     * @param message
+     * @return the body
+     */
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(message == null ? "" : message) + "}";
+    }
+
+    /**
+     * sends a JSON response
+     * @param exchange
+     * @param status
+     * @param body
+     * @throws IOException
+     */
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * sends a JSON response with status 200, streaming the body in chunks as it is written
+     * @param exchange
+     * @param body
+     * @throws IOException
+     */
+    private static void stream(HttpExchange exchange, Body body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 14)) {
+            body.writeTo(out);
+        }
+    }
+
+    /**
+     * writes destination rows as JSON
+     * @param rows
+     * @param out
+     * @throws IOException
+     */
+    private static void writeDestinations(List<DestinationRow> rows, Writer out) throws IOException {
+        out.write("{\"destinations\":[");
+        for (int i = 0; i < rows.size(); i++) {
+            DestinationRow row = rows.get(i);
+            out.write(i == 0 ? "{\"name\":" : ",{\"name\":");
+            out.write(Json.quote(row.name()));
+            out.write(",\"description\":");
+            out.write(Json.quote(row.description()));
+            out.write(",\"latitude\":");
+            out.write(Json.number(row.latitude()));
+            out.write(",\"longitude\":");
+            out.write(Json.number(row.longitude()));
+            out.write(",\"cost\":");
+            out.write(Json.quote(row.cost().toString()));
+            out.write('}');
+        }
+        out.write("]}");
+    }
+
+    /**
+     * writes nearby destinations as JSON
+     * @param hits
+     * @param out
+     * @throws IOException
+     */
+    private static void writeNearby(List<NearbyHit> hits, Writer out) throws IOException {
+        out.write("{\"hits\":[");
+        for (int i = 0; i < hits.size(); i++) {
+            NearbyHit hit = hits.get(i);
+            out.write(i == 0 ? "{\"name\":" : ",{\"name\":");
+            out.write(Json.quote(hit.name()));
+            out.write(",\"cost\":");
+            out.write(Json.quote(hit.cost().toString()));
+            out.write(",\"distance\":");
+            out.write(Json.number(hit.distance()));
+            out.write('}');
+        }
+        out.write("]}");
+    }
+
+    /**
+     * writes distance rows as JSON, one row at a time
+     * @param rows
+     * @param out
+     * @throws IOException
+     */
+    private static void writeDistances(Iterable<DistanceRow> rows, Writer out) throws IOException {
+        out.write("{\"rows\":[");
+        boolean first = true;
+        for (DistanceRow row : rows) {
+            out.write(first ? "{\"name\":" : ",{\"name\":");
+            first = false;
+            out.write(Json.quote(row.name()));
+            out.write(",\"targets\":[");
+            for (int target = 0; target < row.size(); target++) {
+                out.write(target == 0 ? "{\"name\":" : ",{\"name\":");
+                out.write(Json.quote(row.targetAt(target)));
+                out.write(",\"distance\":");
+                out.write(Json.number(row.distanceAt(target)));
+                out.write('}');
+            }
+            out.write("]}");
+        }
+        out.write("]}");
+    }
+
+    /**
+     * writes a route as JSON
+     * @param plan
+     * @param out
+     * @throws IOException
+     */
+    private static void writeRoute(RoutePlan plan, Writer out) throws IOException {
+        out.write("{\"legs\":[");
+        List<RouteLeg> legs = plan.legs();
+        for (int i = 0; i < legs.size(); i++) {
+            RouteLeg leg = legs.get(i);
+            out.write(i == 0 ? "{\"from\":" : ",{\"from\":");
+            out.write(Json.quote(leg.from()));
+            out.write(",\"to\":");
+            out.write(Json.quote(leg.to()));
+            out.write(",\"distance\":");
+            out.write(Json.number(leg.distance()));
+            out.write('}');
+        }
+        out.write("],\"totalDistance\":");
+        out.write(Json.number(plan.totalDistance()));
+        out.write(",\"optimal\":");
+        out.write(String.valueOf(plan.optimal()));
+        out.write(",\"iterations\":");
+        out.write(String.valueOf(plan.iterations()));
+        out.write('}');
+    }
+
+    /**
+     * writes the routes of a Pareto front as JSON - "best" is the index of the route with the smallest weighted sum
+     * (null if there are no routes)
+     * @param front
+     * @param costWeight the km one cost point is worth
+     * @param out
+     * @throws IOException
+     */
+    private static void writeParetoRoutes(ParetoFront front, double costWeight, Writer out) throws IOException {
+        out.write("{\"routes\":[");
+        List<ParetoRoute> routes = front.routes();
+        for (int i = 0; i < routes.size(); i++) {
+            ParetoRoute route = routes.get(i);
+            out.write(i == 0 ? "{\"path\":[" : ",{\"path\":[");
+            for (int j = 0; j < route.path().size(); j++) {
+                if (j > 0) {
+                    out.write(',');
+                }
+                out.write(Json.quote(route.path().get(j)));
+            }
+            out.write("],\"distance\":");
+            out.write(Json.number(route.distance()));
+            out.write(",\"cost\":");
+            out.write(String.valueOf(route.cost()));
+            out.write('}');
+        }
+        ParetoRoute best = front.best(costWeight);
+        out.write("],\"best\":");
+        out.write(best == null ? "null" : String.valueOf(routes.indexOf(best)));
+        out.write(",\"complete\":");
+        out.write(String.valueOf(front.complete()));
+        out.write(",\"labels\":");
+        out.write(String.valueOf(front.labels()));
+        out.write('}');
+    }
+
+    /**
+     * decodes a query string into its parameters
+     * @param rawQuery the query string (or null)
+     * @return the parameters by name
+     */
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(decode(name), decode(value));
+        }
+        return parameters;
+    }
+
+    /**
+     * decodes a URL-encoded part of the query string
+     * @param value
+     * @return the decoded value
+     */
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * gets a parameter that must be present
+     * @param parameters
+     * @param name
+     * @return the value
+     * @throws IllegalArgumentException if the parameter is missing
+     */
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    /**
+     * gets a parameter or its default value
+     * @param parameters
+     * @param name
+     * @param defaultValue
+     * @return the value
+     */
+    private static String parameter(Map<String, String> parameters, String name, String defaultValue) {
+        String value = parameters.get(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    /**
+     * splits a comma-separated list of cities
+     * @param cities
+     * @return the trimmed city names
+     */
+    private static String[] cities(String cities) {
+        String[] names = cities.split(",");
+        for (int i = 0; i < names.length; i++) {
+            names[i] = names[i].trim();
+        }
+        return names;
+    }
+
+    /**
+     * Json is a helper class for writing JSON strings
+     */
+    static final class Json {
+
+        /**
+         * private constructor - the class only has static methods
+         */
+        private Json() {
+        }
+
+        /**
+         * quotes and escapes a string as a JSON string literal
+         * @param value
+         * @return the JSON string
+         */
+        static String quote(String value) {
+            StringBuilder json = new StringBuilder(value.length() + 16);
+            json.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        json.append("\\\"");
+                        break;
+                    case '\\':
+                        json.append("\\\\");
+                        break;
+                    case '\n':
+                        json.append("\\n");
+                        break;
+                    case '\r':
+                        json.append("\\r");
+                        break;
+                    case '\t':
+                        json.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            json.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            json.append(c);
+                        }
+                }
+            }
+            return json.append('"').toString();
+        }
+
+        /**
+         * writes a number as a JSON number
+         * @param value
+         * @return the JSON number, or null if the value is not finite (JSON has no NaN or infinity)
+         */
+        static String number(double value) {
+            return Double.isFinite(value) ? Double.toString(value) : "null";
+        }
+    }
+}
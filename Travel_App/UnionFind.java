@@ -0,0 +1,77 @@
+package Travel_App;
+
+/**
+ * UnionFind object tracks which vertices are in the same group (connected component) as edges are added
+ * It uses union by size and path halving, so each operation is close to constant time
+ *
+ * @author usman
+ */
+
+final class UnionFind {
+
+    //the parent of each vertex (a vertex that is its own parent is the root of its group)
+    private final int[] parents;
+    //the number of vertices in each group (only valid for roots)
+    private final int[] sizes;
+    //the number of separate groups
+    int count;
+
+    /**
+     * Constructor - initialises every vertex as a group of its own
+     * @param size
+     */
+    UnionFind(int size) {
+        parents = new int[size];
+        sizes = new int[size];
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+            sizes[i] = 1;
+        }
+        count = size;
+    }
+
+    /**
+     * finds the root of the group of a vertex
+     * @param vertex
+     * @return the root vertex
+     */
+    int find(int vertex) {
+        while (parents[vertex] != vertex) {
+            parents[vertex] = parents[parents[vertex]];
+            vertex = parents[vertex];
+        }
+        return vertex;
+    }
+
+    /**
+     * gets the number of vertices in the group of a vertex
+     * @param vertex
+     * @return the group size
+     */
+    int sizeOf(int vertex) {
+        return sizes[find(vertex)];
+    }
+
+    /**
+     * joins the groups of two vertices
+     * @param a
+     * @param b
+     * @return true if they were in separate groups
+     */
+    boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (sizes[rootA] < sizes[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parents[rootB] = rootA;
+        sizes[rootA] += sizes[rootB];
+        count--;
+        return true;
+    }
+}
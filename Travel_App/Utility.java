@@ -4,10 +4,17 @@ package Travel_App;
  * A utility class for providing a method to calculate distance between two
  * locations as specified in longitude and latitude.
  *
+ * For many distances between the same locations, Points converts each location once
+ * to a unit vector (from its radians, cos and sin) so a distance only needs a few
+ * multiplications, a square root and an arctangent - and no other trigonometry.
+ *
  * @version 30/11/2023
  */
 public class Utility {
 
+	// Radius of the Earth in kilometers (the same radius as calculateDistance)
+	public static final double EARTH_RADIUS_KM = 6371.0;
+
 	/**
 	 * Calculates the distance between two locations using the Haversine formula.
 	 *
@@ -38,4 +45,215 @@ public class Utility {
 		return distance;
 	}
 
+	/**
+	 * Converts a squared chord length between two unit vectors into the great-circle
+	 * distance. This is the Haversine formula: a = chord^2 / 4 and the distance is
+	 * 2R * asin(sqrt(a)), worked out as 2R * atan(sqrt(a / (1 - a))) because Math.atan
+	 * is several times faster than Math.asin.
+	 *
+	 * @param squaredChord The squared straight-line distance between the unit vectors.
+	 * @return The distance in kilometers.
+	 */
+	public static double chordToDistance(double squaredChord) {
+		double clamped = Math.min(4.0, squaredChord);
+		return 2 * EARTH_RADIUS_KM * Math.atan(Math.sqrt(clamped / (4.0 - clamped)));
+	}
+
+	/**
+	 * Works out the squared chord length that matches a great-circle distance, so a
+	 * distance filter can compare squared chords without calling atan.
+	 *
+	 * @param distance The distance in kilometers.
+	 * @return The squared chord length (4 if the distance is half the Earth or more).
+	 */
+	public static double distanceToChord(double distance) {
+		if (distance >= Math.PI * EARTH_RADIUS_KM) {
+			return 4.0;
+		}
+		double halfChord = Math.sin(distance / (2 * EARTH_RADIUS_KM));
+		return 4 * halfChord * halfChord;
+	}
+
+	/**
+	 * Points object holds the unit vector of each location, worked out once from the
+	 * radians, cos and sin of its latitude and longitude. A point can be read by its index.
+	 *
+	 * The exact distances equal calculateDistance (to about 1e-9 km). The approximate
+	 * distances are the straight line through the Earth, R * chord: they need no atan,
+	 * are never longer than the exact distance, and are shorter by a relative error of
+	 * at most (d / R)^2 / 24 - about 1e-5 at 100 km and 1e-3 at 1000 km - so they are
+	 * suited to rejecting far away locations before the exact distance is worked out.
+	 */
+	public static final class Points {
+
+		// the number of points
+		private final int size;
+		// the x, y and z components of the unit vector of each point
+		private final double[] xs;
+		private final double[] ys;
+		private final double[] zs;
+
+		/**
+		 * Constructor - converts the coordinates of each location to a unit vector.
+		 *
+		 * @param latitudes Latitudes in degrees.
+		 * @param longitudes Longitudes in degrees.
+		 * @param size The number of locations.
+		 */
+		public Points(double[] latitudes, double[] longitudes, int size) {
+			this.size = size;
+			xs = new double[size];
+			ys = new double[size];
+			zs = new double[size];
+			for (int i = 0; i < size; i++) {
+				double latRad = Math.toRadians(latitudes[i]);
+				double lonRad = Math.toRadians(longitudes[i]);
+				double cosLat = Math.cos(latRad);
+				xs[i] = cosLat * Math.cos(lonRad);
+				ys[i] = cosLat * Math.sin(lonRad);
+				zs[i] = Math.sin(latRad);
+			}
+		}
+
+		/**
+		 * Gets the number of points.
+		 *
+		 * @return The size.
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Calculates the distance between two points.
+		 *
+		 * @param i The index of the first point.
+		 * @param j The index of the second point.
+		 * @return The distance in kilometers.
+		 */
+		public double distance(int i, int j) {
+			return chordToDistance(squaredChord(i, j));
+		}
+
+		/**
+		 * Calculates the approximate (never longer) distance between two points.
+		 *
+		 * @param i The index of the first point.
+		 * @param j The index of the second point.
+		 * @return The straight-line distance in kilometers.
+		 */
+		public double approximateDistance(int i, int j) {
+			return EARTH_RADIUS_KM * Math.sqrt(squaredChord(i, j));
+		}
+
+		/**
+		 * Calculates the squared chord length between two points.
+		 *
+		 * @param i The index of the first point.
+		 * @param j The index of the second point.
+		 * @return The squared chord length.
+		 */
+		public double squaredChord(int i, int j) {
+			double dx = xs[i] - xs[j];
+			double dy = ys[i] - ys[j];
+			double dz = zs[i] - zs[j];
+			return dx * dx + dy * dy + dz * dz;
+		}
+
+		/**
+		 * Calculates the distances from one point to every point.
+		 *
+		 * @param origin The index of the point to measure from.
+		 * @param distances Receives the distance to point j at index j (at least size long).
+		 */
+		public void distances(int origin, double[] distances) {
+			distances(origin, distances, 0);
+		}
+
+		/**
+		 * Calculates the distances from one point to every point into part of an array
+		 * (for example one row of a larger matrix).
+		 *
+		 * @param origin The index of the point to measure from.
+		 * @param distances Receives the distance to point j at index offset + j.
+		 * @param offset Where the distances start in the array.
+		 */
+		public void distances(int origin, double[] distances, int offset) {
+			squaredChords(xs[origin], ys[origin], zs[origin], distances, offset);
+			toDistances(distances, offset, size);
+		}
+
+		/**
+		 * Calculates the distances from a location to every point.
+		 *
+		 * @param latitude Latitude of the location in degrees.
+		 * @param longitude Longitude of the location in degrees.
+		 * @param distances Receives the distance to point j at index j (at least size long).
+		 */
+		public void distances(double latitude, double longitude, double[] distances) {
+			double latRad = Math.toRadians(latitude);
+			double lonRad = Math.toRadians(longitude);
+			double cosLat = Math.cos(latRad);
+			squaredChords(cosLat * Math.cos(lonRad), cosLat * Math.sin(lonRad), Math.sin(latRad), distances, 0);
+			toDistances(distances, 0, size);
+		}
+
+		/**
+		 * Calculates the distances from a location to some of the points.
+		 *
+		 * @param latitude Latitude of the location in degrees.
+		 * @param longitude Longitude of the location in degrees.
+		 * @param ids The indexes of the points.
+		 * @param distances Receives the distance to point ids[k] at index k (at least ids.length long).
+		 */
+		public void distances(double latitude, double longitude, int[] ids, double[] distances) {
+			double latRad = Math.toRadians(latitude);
+			double lonRad = Math.toRadians(longitude);
+			double cosLat = Math.cos(latRad);
+			double x = cosLat * Math.cos(lonRad);
+			double y = cosLat * Math.sin(lonRad);
+			double z = Math.sin(latRad);
+			for (int k = 0; k < ids.length; k++) {
+				double dx = x - xs[ids[k]];
+				double dy = y - ys[ids[k]];
+				double dz = z - zs[ids[k]];
+				distances[k] = dx * dx + dy * dy + dz * dz;
+			}
+			toDistances(distances, 0, ids.length);
+		}
+
+		/**
+		 * Works out the squared chord from a unit vector to every point. The loop is
+		 * branch-free arithmetic over the arrays so the JIT compiler can vectorise it.
+		 *
+		 * @param x
+		 * @param y
+		 * @param z
+		 * @param chords Receives the squared chord to point j at index offset + j.
+		 * @param offset
+		 */
+		private void squaredChords(double x, double y, double z, double[] chords, int offset) {
+			for (int j = 0; j < size; j++) {
+				double dx = x - xs[j];
+				double dy = y - ys[j];
+				double dz = z - zs[j];
+				chords[offset + j] = dx * dx + dy * dy + dz * dz;
+			}
+		}
+
+		/**
+		 * Converts squared chords to distances in place (a separate pass so the
+		 * atan calls do not stop the chord loop from being vectorised).
+		 *
+		 * @param values
+		 * @param offset
+		 * @param count
+		 */
+		private static void toDistances(double[] values, int offset, int count) {
+			for (int k = offset; k < offset + count; k++) {
+				values[k] = chordToDistance(values[k]);
+			}
+		}
+	}
+
 }
@@ -0,0 +1,526 @@
+package Travel_App;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * VersionedWeightedGraph object is a WeightedGraphADT that can be changed while other threads read it - every change
+ * is published as a new immutable CompactWeightedGraph version, which only answers the ReadOnlyWeightedGraphADT
+ * queries. A reader takes the current version with snapshot() and may keep using it for as long as it likes, as later
+ * changes never alter a published version
+ *
+ * A new version is not a rebuild: it copies the start and end index of each vertex and appends a copy of the edges of
+ * each changed vertex to edge arrays that are shared by the versions (a version never looks past the edges it was
+ * published with). When the shared arrays are full the edges still in use are packed into new arrays. Removing a
+ * vertex renumbers the vertices, so it packs the whole graph
+ *
+ * One thread changes the graph at a time. update() groups several changes into one version and returns the edges
+ * that changed, so caches of the previous version can be repaired rather than thrown away
+ *
+ * @author usman
+ */
+
+public class VersionedWeightedGraph implements WeightedGraphADT {
+
+    //the smallest number of free edge slots left after the edge arrays are packed
+    private static final int MIN_FREE_SLOTS = 16;
+
+    //the latest published version
+    private volatile CompactWeightedGraph current;
+
+    //the location name of each vertex in the working copy (the working copy is guarded by this object's lock)
+    private String[] names;
+    //maps each location name to its vertex id
+    private Map<String, Integer> ids;
+    //the latitude of each vertex
+    private double[] latitudes;
+    //the longitude of each vertex
+    private double[] longitudes;
+    //true while the names, ids and coordinates are shared with the published version (they are copied before a change)
+    private boolean verticesShared;
+    //the index of the first edge of each vertex
+    private int[] starts;
+    //the index after the last edge of each vertex
+    private int[] ends;
+    //true while the start and end indexes are shared with the published version
+    private boolean indexesShared;
+    //the end vertex of each edge slot (shared with the published versions)
+    private int[] targets;
+    //the distance (weight) of each edge slot (shared with the published versions)
+    private double[] weights;
+    //the number of edge slots in use
+    private int used;
+    //the edge slots below this may be read by a published version, so they are never written again
+    private int publishedUsed;
+    //the number of edges
+    private int edgeCount;
+    //the net change of each edge since the last version was published (by start and end vertex)
+    private final Map<Long, EdgeChange> pending = new LinkedHashMap<>();
+    //true if a vertex was removed since the last version was published
+    private boolean renumbered;
+    //the depth of the update calls in progress (a version is published when the outermost one ends)
+    private int batchDepth;
+
+    /**
+     * Constructor - initialises an empty graph
+     */
+    public VersionedWeightedGraph() {
+        this(new CompactWeightedGraph.Builder().build());
+    }
+
+    /**
+     * Constructor - initialises the graph with a built graph as its first version
+     * @param graph the first version (it is shared, not copied)
+     */
+    public VersionedWeightedGraph(CompactWeightedGraph graph) {
+        current = graph;
+        load(graph);
+    }
+
+    /**
+     * gets the latest version of the graph - it never changes, so it may be read without a lock
+     * @return the current version
+     */
+    public CompactWeightedGraph snapshot() {
+        return current;
+    }
+
+    /**
+     * gets the number of the latest version
+     * @return the version
+     */
+    public long getVersion() {
+        return current.getVersion();
+    }
+
+    /**
+     * makes several changes and publishes them as one version, so readers see all of them or none
+     * if the changes throw an exception none of them is published
+     * @param changes makes the changes by calling the methods of this graph
+     * @return the change from the previous version to the new one (null if called inside another update - the outer
+     *         update publishes the version)
+     */
+    public synchronized GraphUpdate update(Consumer<VersionedWeightedGraph> changes) {
+        batchDepth++;
+        try {
+            changes.accept(this);
+        } catch (RuntimeException | Error e) {
+            if (batchDepth == 1) {
+                // throws away the working copy
+                load(current);
+            }
+            throw e;
+        } finally {
+            batchDepth--;
+        }
+        return batchDepth == 0 ? publish() : null;
+    }
+
+    /**
+     * adds a vertex (or location) with unknown coordinates - a vertex that is already in the graph keeps its edges
+     * @param vertex
+     */
+    @Override
+    public synchronized void addVertex(String vertex) {
+        vertexId(vertex, Double.NaN, Double.NaN);
+        publishIfDone();
+    }
+
+    /**
+     * adds a vertex (or location) and records its coordinates - a vertex that is already in the graph is kept as it is
+     * @param location
+     */
+    public synchronized void addVertex(Location location) {
+        vertexId(location.getName(), location.getLatitude(), location.getLongitude());
+        publishIfDone();
+    }
+
+    /**
+     * removes a vertex and every edge from it and to it
+     * the vertices after it move down one id, so this packs the whole graph into new arrays
+     * @param vertex
+     * @return true if the vertex was in the graph
+     */
+    @Override
+    public synchronized boolean removeVertex(String vertex) {
+        Integer removed = ids.get(vertex);
+        if (removed == null) {
+            return false;
+        }
+        CompactWeightedGraph.Builder builder = new CompactWeightedGraph.Builder();
+        for (int id = 0; id < names.length; id++) {
+            if (id != removed) {
+                builder.addVertex(names[id], latitudes[id], longitudes[id]);
+            }
+        }
+        for (int id = 0; id < names.length; id++) {
+            if (id == removed) {
+                continue;
+            }
+            for (int edge = starts[id]; edge < ends[id]; edge++) {
+                if (targets[edge] != removed) {
+                    builder.addEdge(id < removed ? id : id - 1, targets[edge] < removed ? targets[edge] : targets[edge] - 1, weights[edge]);
+                }
+            }
+        }
+        load(builder.build());
+        renumbered = true;
+        publishIfDone();
+        return true;
+    }
+
+    /**
+     * adds an edge from the start location to the end location (adding either location as a vertex if needed)
+     * if there is already an edge between them its distance is changed instead, so the graph keeps one edge per pair
+     * @param startLocation
+     * @param endLocation
+     * @param weight
+     */
+    @Override
+    public synchronized void addEdge(Location startLocation, Location endLocation, double weight) {
+        checkWeight(weight);
+        int from = vertexId(startLocation.getName(), startLocation.getLatitude(), startLocation.getLongitude());
+        int to = vertexId(endLocation.getName(), endLocation.getLatitude(), endLocation.getLongitude());
+        putEdge(from, to, weight);
+        publishIfDone();
+    }
+
+    /**
+     * adds an edge between two locations that are already in the graph
+     * if there is already an edge between them its distance is changed instead, so the graph keeps one edge per pair
+     * @param startLocation
+     * @param endLocation
+     * @param weight
+     */
+    public synchronized void addEdge(String startLocation, String endLocation, double weight) {
+        checkWeight(weight);
+        putEdge(existingId(startLocation), existingId(endLocation), weight);
+        publishIfDone();
+    }
+
+    /**
+     * removes the edge from the start location to the end location
+     * @param startLocation
+     * @param endLocation
+     * @return true if there was such an edge
+     */
+    @Override
+    public synchronized boolean removeEdge(String startLocation, String endLocation) {
+        Integer from = ids.get(startLocation);
+        Integer to = ids.get(endLocation);
+        if (from == null || to == null || findEdge(from, to) < 0) {
+            return false;
+        }
+        ownEdges(from, 0);
+        int edge = findEdge(from, to);
+        double weight = weights[edge];
+        // shifts the later edges down so the edges keep their order
+        int last = ends[from] - 1;
+        System.arraycopy(targets, edge + 1, targets, edge, last - edge);
+        System.arraycopy(weights, edge + 1, weights, edge, last - edge);
+        ends[from] = last;
+        edgeCount--;
+        record(from, to, weight, Double.POSITIVE_INFINITY);
+        publishIfDone();
+        return true;
+    }
+
+    /**
+     * changes the distance (weight) of the edge from the start location to the end location
+     * @param startLocation
+     * @param endLocation
+     * @param weight
+     * @return true if there was such an edge
+     */
+    @Override
+    public synchronized boolean updateEdge(String startLocation, String endLocation, double weight) {
+        checkWeight(weight);
+        Integer from = ids.get(startLocation);
+        Integer to = ids.get(endLocation);
+        if (from == null || to == null || findEdge(from, to) < 0) {
+            return false;
+        }
+        putEdge(from, to, weight);
+        publishIfDone();
+        return true;
+    }
+
+    /**
+     * This method creates a string representation of the current version
+     * @return String of the locations and all the connected locations and their respective distances
+     */
+    @Override
+    public String printGraph() {
+        return current.printGraph();
+    }
+
+    /**
+     * runs Dijkstra's algorithm on the current version
+     * @param startLocation
+     * @return a map of the shortest distances of all the locations from the starting location
+     */
+    @Override
+    public Map<String, Double> dijkstraAlgorithm(String startLocation) {
+        return current.dijkstraAlgorithm(startLocation);
+    }
+
+    /**
+     * Finds the shortest path between two locations in the current version
+     * @param startLocation
+     * @param endLocation
+     * @return the shortest distance and the locations on the path
+     */
+    @Override
+    public PathResult shortestPath(String startLocation, String endLocation) {
+        return current.shortestPath(startLocation, endLocation);
+    }
+
+    /**
+     * Finds the shortest path between two locations in the current version using the chosen search strategy
+     * @param startLocation
+     * @param endLocation
+     * @param strategy
+     * @return the shortest distance, the locations on the path and the number of settled vertices
+     */
+    @Override
+    public PathResult shortestPath(String startLocation, String endLocation, SearchStrategy strategy) {
+        return current.shortestPath(startLocation, endLocation, strategy);
+    }
+
+    /**
+     * private method that makes a version the working copy - the edge arrays are shared with it, and are treated as
+     * full so nothing is ever written to arrays another graph may read
+     * @param graph
+     */
+    private void load(CompactWeightedGraph graph) {
+        int vertexCount = graph.vertexCount();
+        names = new String[vertexCount];
+        ids = new HashMap<>(vertexCount * 2);
+        latitudes = new double[vertexCount];
+        longitudes = new double[vertexCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            names[vertex] = graph.nameOf(vertex);
+            ids.put(names[vertex], vertex);
+            latitudes[vertex] = graph.latitudeOf(vertex);
+            longitudes[vertex] = graph.longitudeOf(vertex);
+        }
+        verticesShared = false;
+        starts = graph.starts();
+        ends = graph.ends();
+        indexesShared = true;
+        targets = graph.targets();
+        weights = graph.weights();
+        used = targets.length;
+        publishedUsed = used;
+        edgeCount = graph.edgeCount();
+        pending.clear();
+        renumbered = false;
+    }
+
+    /**
+     * private method that publishes the working copy as a new version unless an update is still in progress
+     */
+    private void publishIfDone() {
+        if (batchDepth == 0) {
+            publish();
+        }
+    }
+
+    /**
+     * private method that publishes the working copy as a new version (if anything changed)
+     * @return the change from the previous version to the new one
+     */
+    private GraphUpdate publish() {
+        CompactWeightedGraph previous = current;
+        if (pending.isEmpty() && !renumbered && names.length == previous.vertexCount()) {
+            return new GraphUpdate(previous, previous, List.of(), false);
+        }
+        CompactWeightedGraph graph = new CompactWeightedGraph(names, ids, latitudes, longitudes, starts, ends,
+                targets, weights, edgeCount, previous.getVersion() + 1);
+        GraphUpdate update = new GraphUpdate(previous, graph, renumbered ? List.of() : List.copyOf(pending.values()), renumbered);
+        if (!renumbered) {
+            graph.inheritHeuristicAdmissible(previous, update.changes());
+        }
+
+        // the next change copies what it writes
+        verticesShared = true;
+        indexesShared = true;
+        publishedUsed = used;
+        pending.clear();
+        renumbered = false;
+        current = graph;
+        return update;
+    }
+
+    /**
+     * private method that gets the id of a vertex, adding the vertex if it is not in the graph
+     * @param vertex
+     * @param latitude
+     * @param longitude
+     * @return the vertex id
+     */
+    private int vertexId(String vertex, double latitude, double longitude) {
+        Integer id = ids.get(vertex);
+        if (id != null) {
+            return id;
+        }
+        int newId = names.length;
+        names = Arrays.copyOf(names, newId + 1);
+        latitudes = Arrays.copyOf(latitudes, newId + 1);
+        longitudes = Arrays.copyOf(longitudes, newId + 1);
+        ids = verticesShared ? new HashMap<>(ids) : ids;
+        ids.put(vertex, newId);
+        verticesShared = false;
+        names[newId] = vertex;
+        latitudes[newId] = latitude;
+        longitudes[newId] = longitude;
+
+        // the new vertex starts with no edges
+        starts = Arrays.copyOf(starts, newId + 1);
+        ends = Arrays.copyOf(ends, newId + 1);
+        indexesShared = false;
+        starts[newId] = used;
+        ends[newId] = used;
+        return newId;
+    }
+
+    /**
+     * private method that gets the id of a vertex that must already be in the graph
+     * @param vertex
+     * @return the vertex id
+     */
+    private int existingId(String vertex) {
+        Integer id = ids.get(vertex);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown location: " + vertex);
+        }
+        return id;
+    }
+
+    /**
+     * private method that adds an edge, or changes its distance if there already is one
+     * @param from
+     * @param to
+     * @param weight
+     */
+    private void putEdge(int from, int to, double weight) {
+        int edge = findEdge(from, to);
+        if (edge >= 0) {
+            double oldWeight = weights[edge];
+            if (oldWeight != weight) {
+                ownEdges(from, 0);
+                weights[findEdge(from, to)] = weight;
+                record(from, to, oldWeight, weight);
+            }
+            return;
+        }
+        // makes room after the vertex's last edge
+        ownEdges(from, 1);
+        targets[used] = to;
+        weights[used] = weight;
+        used++;
+        ends[from] = used;
+        edgeCount++;
+        record(from, to, Double.POSITIVE_INFINITY, weight);
+    }
+
+    /**
+     * private method that finds the edge between two vertices in the working copy
+     * @param from
+     * @param to
+     * @return the edge slot, or -1 if there is no such edge
+     */
+    private int findEdge(int from, int to) {
+        for (int edge = starts[from]; edge < ends[from]; edge++) {
+            if (targets[edge] == to) {
+                return edge;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * private method that makes the edges of a vertex safe to change in place - they are copied to the end of the
+     * edge arrays if a published version may read them, or if more edges are to be added and they are not the last
+     * edges in the arrays (afterwards the vertex's last edge is the last used slot)
+     * @param vertex
+     * @param extra the number of edges that will be added
+     */
+    private void ownEdges(int vertex, int extra) {
+        if (indexesShared) {
+            starts = starts.clone();
+            ends = ends.clone();
+            indexesShared = false;
+        }
+        if (starts[vertex] >= publishedUsed && (extra == 0 || (ends[vertex] == used && used + extra <= targets.length))) {
+            return;
+        }
+        int count = ends[vertex] - starts[vertex];
+        reserve(count + extra);
+        System.arraycopy(targets, starts[vertex], targets, used, count);
+        System.arraycopy(weights, starts[vertex], weights, used, count);
+        starts[vertex] = used;
+        used += count;
+        ends[vertex] = used;
+    }
+
+    /**
+     * private method that makes sure there are enough free edge slots, packing the edges still in use into new
+     * arrays (with a quarter of their number free) if there are not
+     * @param count the number of slots needed
+     */
+    private void reserve(int count) {
+        if (used + count <= targets.length) {
+            return;
+        }
+        int capacity = edgeCount + count + Math.max(MIN_FREE_SLOTS, edgeCount / 4);
+        int[] packedTargets = new int[capacity];
+        double[] packedWeights = new double[capacity];
+        int position = 0;
+        for (int vertex = 0; vertex < names.length; vertex++) {
+            int degree = ends[vertex] - starts[vertex];
+            System.arraycopy(targets, starts[vertex], packedTargets, position, degree);
+            System.arraycopy(weights, starts[vertex], packedWeights, position, degree);
+            starts[vertex] = position;
+            position += degree;
+            ends[vertex] = position;
+        }
+        targets = packedTargets;
+        weights = packedWeights;
+        used = position;
+        // no published version reads the new arrays
+        publishedUsed = 0;
+    }
+
+    /**
+     * private method that merges an edge change into the changes since the last version was published
+     * @param from
+     * @param to
+     * @param oldWeight
+     * @param newWeight
+     */
+    private void record(int from, int to, double oldWeight, double newWeight) {
+        if (renumbered) {
+            // the readers' caches are thrown away anyway
+            return;
+        }
+        long key = (long) from << 32 | to;
+        EdgeChange earlier = pending.get(key);
+        double firstWeight = earlier == null ? oldWeight : earlier.oldWeight();
+        if (firstWeight == newWeight) {
+            pending.remove(key);
+        } else {
+            pending.put(key, new EdgeChange(from, to, firstWeight, newWeight));
+        }
+    }
+
+    /**
+     * private method that checks an edge distance can be used by Dijkstra's algorithm
+     * @param weight
+     */
+    private static void checkWeight(double weight) {
+        if (!(weight >= 0) || weight == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("Distance must be a non-negative number: " + weight);
+        }
+    }
+}
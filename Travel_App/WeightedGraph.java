@@ -13,6 +13,10 @@ public class WeightedGraph implements WeightedGraphADT{
 
 // Map that holds the start locations keys and maps them to a list of locations and their associated distances
     private Map<String, List<Edges>> adjacentList;
+    // Map that holds the location object of every vertex that has been used in an edge (for its coordinates)
+    private Map<String, Location> locations;
+    // compact copy of the graph used for the point-to-point queries (cleared whenever the graph changes)
+    private CompactWeightedGraph compiled;
 
 
     /**
@@ -21,16 +25,90 @@ public class WeightedGraph implements WeightedGraphADT{
 
     public WeightedGraph(){
         adjacentList = new HashMap<>();
+        locations = new HashMap<>();
 
     }
 
     /**
-     * adds a new list of edges to the start vertex (location which acts as the key)
+     * adds a new list of edges to the start vertex (location which acts as the key) - a vertex that is already in
+     * the graph keeps its list of edges
      * @param vertex
      */
     @Override
     public void addVertex(String vertex){
-        adjacentList.put(vertex, new ArrayList<Edges>());
+        if (adjacentList.putIfAbsent(vertex, new ArrayList<Edges>()) == null) {
+            compiled = null;
+        }
+    }
+
+    /**
+     * removes the start vertex and its list of edges, and the edges of the other vertices that end at it
+     * @param vertex
+     * @return true if the vertex was in the graph
+     */
+    @Override
+    public boolean removeVertex(String vertex) {
+        boolean removed = adjacentList.remove(vertex) != null;
+        for (List<Edges> edges : adjacentList.values()) {
+            removed |= edges.removeIf(edge -> edge.getLocation().getName().equals(vertex));
+        }
+        locations.remove(vertex);
+        compiled = null;
+        return removed;
+    }
+
+    /**
+     * removes the first edge from the start location to the end location
+     * @param startLocation
+     * @param endLocation
+     * @return true if there was such an edge
+     */
+    @Override
+    public boolean removeEdge(String startLocation, String endLocation) {
+        List<Edges> edges = adjacentList.get(startLocation);
+        int index = indexOf(edges, endLocation);
+        if (index < 0) {
+            return false;
+        }
+        edges.remove(index);
+        compiled = null;
+        return true;
+    }
+
+    /**
+     * changes the distance (weight) of the first edge from the start location to the end location
+     * @param startLocation
+     * @param endLocation
+     * @param weight
+     * @return true if there was such an edge
+     */
+    @Override
+    public boolean updateEdge(String startLocation, String endLocation, double weight) {
+        List<Edges> edges = adjacentList.get(startLocation);
+        int index = indexOf(edges, endLocation);
+        if (index < 0) {
+            return false;
+        }
+        edges.set(index, new Edges(weight, edges.get(index).getLocation()));
+        compiled = null;
+        return true;
+    }
+
+    /**
+     * private method that finds the edge to a location in a list of edges
+     * @param edges the list of edges (or null)
+     * @param endLocation
+     * @return the index of the first edge to the location, or -1 if there is none
+     */
+    private static int indexOf(List<Edges> edges, String endLocation) {
+        if (edges != null) {
+            for (int index = 0; index < edges.size(); index++) {
+                if (edges.get(index).getLocation().getName().equals(endLocation)) {
+                    return index;
+                }
+            }
+        }
+        return -1;
     }
 
     /**
@@ -43,6 +121,9 @@ public class WeightedGraph implements WeightedGraphADT{
     public void addEdge(Location startLocation, Location endLocation, double weight) {
         // adds a new edge to the list of edge using the start location key
         adjacentList.get(startLocation.getName()).add(new Edges(weight, endLocation));
+        locations.put(startLocation.getName(), startLocation);
+        locations.put(endLocation.getName(), endLocation);
+        compiled = null;
     }
 
     /**
@@ -119,7 +200,6 @@ public class WeightedGraph implements WeightedGraphADT{
 
                     // Add the neighbor to the priority queue with the updated distance
                     shortDist.add(new Node(neighbour.getLocation().getName(), newDistance));
-                    shortDist.add(new Node(neighbour.getLocation().getName(), newDistance));
                 }
             }
 
@@ -128,4 +208,71 @@ public class WeightedGraph implements WeightedGraphADT{
         return distances;
     }
 
+    /**
+     * Finds the shortest path between two locations - the search stops as soon as the end location is settled
+     * @param startLocation
+     * @param endLocation
+     * @return the shortest distance and the locations on the path
+     */
+    @Override
+    public PathResult shortestPath(String startLocation, String endLocation) {
+        return compile().shortestPath(startLocation, endLocation);
+    }
+
+    /**
+     * Finds the shortest path between two locations using the chosen search strategy
+     * @param startLocation
+     * @param endLocation
+     * @param strategy
+     * @return the shortest distance, the locations on the path and the number of settled vertices
+     */
+    @Override
+    public PathResult shortestPath(String startLocation, String endLocation, SearchStrategy strategy) {
+        return compile().shortestPath(startLocation, endLocation, strategy);
+    }
+
+    /**
+     * Finds the Pareto-optimal routes between two locations, trading distance off against the cost of the locations
+     * passed through (read from their Location objects - a location without one adds no cost)
+     * @param startLocation
+     * @param endLocation
+     * @param maxLabels the largest number of labels the search may create
+     * @return the routes from the shortest to the cheapest
+     */
+    public ParetoFront paretoRoutes(String startLocation, String endLocation, int maxLabels) {
+        CompactWeightedGraph graph = compile();
+        int[] stopCosts = new int[graph.vertexCount()];
+        for (int vertex = 0; vertex < stopCosts.length; vertex++) {
+            Location location = locations.get(graph.nameOf(vertex));
+            stopCosts[vertex] = location == null ? 0 : ParetoRouter.stopCostOf(Cost.fromLabel(location.getCost()));
+        }
+        return new ParetoRouter(graph, stopCosts, maxLabels).search(startLocation, endLocation);
+    }
+
+    /**
+     * creates (or reuses) a compact copy of the adjacent list for the int-indexed search algorithms
+     * @return the compact graph
+     */
+    private CompactWeightedGraph compile() {
+        if (compiled == null) {
+            CompactWeightedGraph.Builder builder = new CompactWeightedGraph.Builder();
+            for (String vertex : adjacentList.keySet()) {
+                Location location = locations.get(vertex);
+                if (location != null) {
+                    builder.addVertex(location);
+                } else {
+                    builder.addVertex(vertex);
+                }
+            }
+            for (Map.Entry<String, List<Edges>> entry : adjacentList.entrySet()) {
+                int source = builder.addVertex(entry.getKey());
+                for (Edges edge : entry.getValue()) {
+                    builder.addEdge(source, builder.addVertex(edge.getLocation().getName()), edge.getDistance());
+                }
+            }
+            compiled = builder.build();
+        }
+        return compiled;
+    }
+
 }
@@ -1,15 +1,13 @@
 package Travel_App;
 
-import java.util.Map;
-
 /**
  * The Weighted Graph ADT interface defines the functions that an implementing subclass graph should be able to do
- * It defines 4 abstract methods that are required to meet the needs of the system
+ * It adds the changes (adding and removing vertices and edges) to the queries of the ReadOnlyWeightedGraphADT
  *
  * @author usman
  */
 
-public interface WeightedGraphADT {
+public interface WeightedGraphADT extends ReadOnlyWeightedGraphADT {
     /**
      * add an edge to the graph based on start location, end location and the distance (weight)
      * @param startLocation
@@ -19,22 +17,33 @@ public interface WeightedGraphADT {
     public void addEdge(Location startLocation, Location endLocation, double weight);
 
     /**
-     * add a vertex (or location) to the graph
+     * add a vertex (or location) to the graph - a vertex that is already in the graph keeps its edges
      * @param vertex
      */
     public void addVertex(String vertex);
 
     /**
-     * Produces a string that displays the graph (including its vertices (locations) and weights (distances)
-     * @return a string representation of the graph
+     * removes a vertex (or location) from the graph, along with every edge from it and to it
+     * @param vertex
+     * @return true if the vertex was in the graph
      */
-    public String printGraph();
+    public boolean removeVertex(String vertex);
 
     /**
-     * An algorithm that finds the shorts paths from a start vertex to all the other vertices
+     * removes the edge from the start location to the end location
      * @param startLocation
-     * @return a map of the shortest paths to each of the vertices (from the start vertex)
+     * @param endLocation
+     * @return true if there was such an edge
+     */
+    public boolean removeEdge(String startLocation, String endLocation);
+
+    /**
+     * changes the distance (weight) of the edge from the start location to the end location
+     * @param startLocation
+     * @param endLocation
+     * @param weight
+     * @return true if there was such an edge
      */
-    public Map<String, Double>  dijkstraAlgorithm(String startLocation);
+    public boolean updateEdge(String startLocation, String endLocation, double weight);
 
 }
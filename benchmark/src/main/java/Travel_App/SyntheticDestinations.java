@@ -0,0 +1,104 @@
+package Travel_App;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * SyntheticDestinations is a helper class that makes random destination sets for the benchmarks and writes them in
+ * the layout of destinations.csv
+ *
+ * @author usman
+ */
+
+public final class SyntheticDestinations {
+
+    //the number of cluster centres of the clustered distribution
+    private static final int CLUSTERS = 40;
+
+    /**
+     * The ways the synthetic destinations can be spread
+     */
+    public enum Distribution {
+        /**
+         * spread evenly over a box the size of Great Britain
+         */
+        UNIFORM,
+
+        /**
+         * gathered around a few centres in the same box, like towns around cities
+         */
+        CLUSTERED,
+
+        /**
+         * spread evenly over the whole globe
+         */
+        GLOBAL
+    }
+
+    /**
+     * private constructor - the class only has static methods
+     */
+    private SyntheticDestinations() {
+    }
+
+    /**
+     * creates a set of random destinations
+     * @param size the number of destinations
+     * @param distribution how they are spread
+     * @param random
+     * @return the destinations
+     */
+    static DestinationStore generate(int size, Distribution distribution, Random random) {
+        Cost[] costs = Cost.values();
+        double[] centreLatitudes = new double[CLUSTERS];
+        double[] centreLongitudes = new double[CLUSTERS];
+        for (int i = 0; i < CLUSTERS; i++) {
+            centreLatitudes[i] = 50 + random.nextDouble() * 8.6;
+            centreLongitudes[i] = -8 + random.nextDouble() * 10;
+        }
+
+        DestinationStore.Builder builder = new DestinationStore.Builder();
+        for (int id = 0; id < size; id++) {
+            double latitude;
+            double longitude;
+            switch (distribution) {
+                case CLUSTERED:
+                    int centre = random.nextInt(CLUSTERS);
+                    latitude = centreLatitudes[centre] + random.nextGaussian() * 0.15;
+                    longitude = centreLongitudes[centre] + random.nextGaussian() * 0.25;
+                    break;
+                case GLOBAL:
+                    // uniform on the sphere - the sine of the latitude is uniform
+                    latitude = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+                    longitude = -180 + random.nextDouble() * 360;
+                    break;
+                default:
+                    latitude = 50 + random.nextDouble() * 8.6;
+                    longitude = -8 + random.nextDouble() * 10;
+            }
+            builder.add("Place" + id, "Synthetic destination number " + id + " - generated for benchmarking.",
+                    Math.max(-90, Math.min(90, latitude)), longitude, costs[random.nextInt(costs.length)]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * writes destinations to a CSV file in the layout of destinations.csv
+     * @param store
+     * @param file
+     * @throws IOException
+     */
+    static void writeCsv(DestinationStore store, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("Name,Description,Latitude,Longitude,Cost\n");
+            for (int id = 0; id < store.size(); id++) {
+                writer.write(store.nameOf(id) + ",\"" + store.descriptionOf(id).replace("\"", "\"\"") + "\","
+                        + store.latitudeOf(id) + "," + store.longitudeOf(id) + "," + store.costOf(id) + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package Travel_App;
+
+import static Travel_App.SyntheticDestinations.generate;
+import static Travel_App.SyntheticDestinations.writeCsv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TravelAppBenchmarks class measures the throughput of CSV load, graph build, single-source Dijkstra, point-to-point
+ * queries (one per search strategy), nearby queries and listShortestPath with JMH, on synthetic destination sets made
+ * by SyntheticDestinations.generate
+ *
+ * Run it with gradle :benchmark:jmh, which adds the gc profiler for the allocation rate. Other JMH options can be
+ * passed with -PjmhArgs, for example -PjmhArgs="-prof gc -p size=1000000 -p distribution=CLUSTERED pointToPoint"
+ *
+ * @author usman
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TravelAppBenchmarks {
+
+    //the number of random inputs the queries cycle through (so the same query is not repeated every time)
+    private static final int INPUTS = 1024;
+    //the number of cities of each shortest path query
+    private static final int ROUTE_CITIES = 6;
+    //the radius of each nearby query (km)
+    private static final int NEARBY_DISTANCE = 50;
+    //the number of hits of each nearby query
+    private static final int NEARBY_LIMIT = 10;
+
+    /**
+     * Destinations object is the destination set of a run - its CSV file, graph, controller and query inputs
+     */
+    @State(Scope.Benchmark)
+    public static class Destinations {
+
+        //the number of destinations
+        @Param({"1000", "10000", "100000"})
+        public int size;
+        //how the destinations are spread
+        @Param({"UNIFORM"})
+        public SyntheticDestinations.Distribution distribution;
+        //how the graph connects the destinations
+        @Param({"K_NEAREST"})
+        public GraphMode graphMode;
+        //the k or radius of the graph mode
+        @Param({"8"})
+        public double graphParameter;
+        //the seed of the random destinations and inputs
+        @Param({"42"})
+        public long seed;
+
+        //the folder of the CSV file
+        private Path directory;
+        //the destinations written in the layout of destinations.csv
+        private Path csvFile;
+        //the destinations
+        private DestinationStore store;
+        //the spatial index of the destinations
+        private SpatialIndex index;
+        //the graph of the destinations
+        private CompactWeightedGraph graph;
+        //a controller reading the CSV file (with its graph already built)
+        private MyController controller;
+
+        //the random inputs of the queries
+        private final int[] sources = new int[INPUTS];
+        private final int[] targets = new int[INPUTS];
+        private final double[] latitudes = new double[INPUTS];
+        private final double[] longitudes = new double[INPUTS];
+
+        /**
+         * creates the destinations, their CSV file, graph and controller, and the query inputs
+         * @throws IOException if the CSV file cannot be written
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            Random random = new Random(seed);
+            store = generate(size, distribution, random);
+            directory = Files.createTempDirectory("travel-jmh");
+            csvFile = directory.resolve("destinations.csv");
+            writeCsv(store, csvFile);
+
+            index = new SpatialIndex(store.latitudes(), store.longitudes(), size);
+            graph = GeometricGraphBuilder.build(store, index, graphMode, graphParameter, ForkJoinPool.commonPool());
+
+            for (int i = 0; i < INPUTS; i++) {
+                sources[i] = random.nextInt(size);
+                targets[i] = random.nextInt(size);
+                int near = random.nextInt(size);
+                latitudes[i] = store.latitudeOf(near) + random.nextGaussian() * 0.05;
+                longitudes[i] = store.longitudeOf(near) + random.nextGaussian() * 0.05;
+            }
+
+            controller = new MyController(csvFile.toString());
+            controller.setGraphMode(graphMode, graphParameter);
+            // caches no shortest path trees, so each route searches the graph instead of reading the trees of earlier calls
+            controller.setShortestPathCacheSize(0);
+            // builds the controller's graph here, so it is not part of the first measured call
+            controller.listShortestPath(route(random), RouteMode.HEURISTIC);
+        }
+
+        /**
+         * picks the cities of a shortest path query
+         * @param random
+         * @return ROUTE_CITIES random destination names (fewer if there are fewer destinations)
+         */
+        String[] route(Random random) {
+            String[] cities = new String[Math.min(ROUTE_CITIES, size)];
+            for (int i = 0; i < cities.length; i++) {
+                cities[i] = store.nameOf(random.nextInt(size));
+            }
+            return cities;
+        }
+
+        /**
+         * deletes the CSV file (and the snapshot the controller saved next to it)
+         * @throws IOException
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Cursor object picks the next query input of a benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        //the number of the next call
+        private int call;
+
+        /**
+         * gets the index of the next input
+         * @return the index
+         */
+        int next() {
+            return call++ & (INPUTS - 1);
+        }
+    }
+
+    @Benchmark
+    public long csvLoad(Destinations data) throws IOException {
+        DestinationStore.Builder builder = new DestinationStore.Builder();
+        new DestinationCsvReader().read(data.csvFile, builder::add);
+        return builder.build().size();
+    }
+
+    @Benchmark
+    public CompactWeightedGraph graphBuild(Destinations data) {
+        return GeometricGraphBuilder.build(data.store, data.index, data.graphMode, data.graphParameter, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public double dijkstra(Destinations data, Cursor cursor) {
+        int input = cursor.next();
+        return data.graph.shortestDistances(data.sources[input]).distanceTo(data.targets[input]);
+    }
+
+    @Benchmark
+    public PathResult pointToPointDijkstra(Destinations data, Cursor cursor) {
+        int input = cursor.next();
+        return data.graph.shortestPath(data.sources[input], data.targets[input], SearchStrategy.DIJKSTRA);
+    }
+
+    @Benchmark
+    public PathResult pointToPointAStar(Destinations data, Cursor cursor) {
+        int input = cursor.next();
+        return data.graph.shortestPath(data.sources[input], data.targets[input], SearchStrategy.A_STAR);
+    }
+
+    @Benchmark
+    public PathResult pointToPointBidirectional(Destinations data, Cursor cursor) {
+        int input = cursor.next();
+        return data.graph.shortestPath(data.sources[input], data.targets[input], SearchStrategy.BIDIRECTIONAL);
+    }
+
+    @Benchmark
+    public int nearby(Destinations data, Cursor cursor) {
+        int input = cursor.next();
+        return data.controller.findNearbyDestinations(data.latitudes[input], data.longitudes[input], NEARBY_DISTANCE, 0,
+                NEARBY_LIMIT).size();
+    }
+
+    @Benchmark
+    public String listShortestPath(Destinations data) {
+        // a new route every call - a fixed set of routes would mostly measure cached answers
+        return data.controller.listShortestPath(data.route(ThreadLocalRandom.current()), RouteMode.HEURISTIC);
+    }
+}
@@ -0,0 +1,179 @@
+package Travel_App;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests DestinationCsvReader on the files the chunked parser finds hard - quoted fields (with commas, doubled quotes
+ * and line breaks) that straddle a chunk boundary or are longer than a chunk, a byte order mark, CRLF line endings,
+ * blank lines, rejected rows and an unclosed quote at the end of the file
+ *
+ * @author usman
+ */
+public class DestinationCsvReaderTest {
+
+    //the header record of every test file
+    private static final String HEADER = "Name,Description,Latitude,Longitude,Cost\n";
+    //a quoted field that holds each of the delimiters - a boundary in it tests the state the splitter carries over
+    private static final String TRICKY_FIELD = "\"a, \"\"quoted\"\"\nsecond, \"\"line\"\"\r\nthird\"";
+    //the description TRICKY_FIELD is read as
+    private static final String TRICKY_DESCRIPTION = "a, \"quoted\"\nsecond, \"line\"\r\nthird";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void quotedFieldsAcrossTheChunkBoundary() throws IOException {
+        String tricky = "Tricky," + TRICKY_FIELD + ",3.5,4.5,High\n";
+        for (int offset = 0; offset <= tricky.length(); offset++) {
+            // a padding row puts the chunk boundary offset bytes into the tricky row
+            StringBuilder csv = new StringBuilder(3 * DestinationCsvReader.CHUNK_SIZE).append(HEADER);
+            List<String> names = new ArrayList<>();
+            int padding = DestinationCsvReader.CHUNK_SIZE - offset - HEADER.length() - "Pad,,1.0,2.0,Low\n".length();
+            csv.append("Pad,").append("x".repeat(padding)).append(",1.0,2.0,Low\n");
+            names.add("Pad");
+            csv.append(tricky);
+            names.add("Tricky");
+            // enough rows after it that the next chunk fills up too, so the splitter has to use the state it carried over
+            long line = 6;
+            while (csv.length() < 5 * DestinationCsvReader.CHUNK_SIZE / 2) {
+                csv.append("Row").append(line).append(",\"row, \"\"").append(line).append("\"\"\",10.0,20.0,Medium\n");
+                names.add("Row" + line);
+                line++;
+            }
+            csv.append("Bad,row,north,east,Low\n");
+
+            List<Location> locations = new ArrayList<>();
+            DestinationCsvReader.Result result = read(csv.toString(), locations);
+            assertEquals(names, namesOf(locations), "offset " + offset);
+            assertEquals(names.size(), result.getLocationCount());
+            assertEquals(TRICKY_DESCRIPTION, locations.get(1).getDescription(), "offset " + offset);
+            assertEquals("row, \"6\"", locations.get(2).getDescription(), "offset " + offset);
+            assertEquals(3.5, locations.get(1).getLatitude());
+            assertEquals("High", locations.get(1).getCost());
+            // the line numbers still count the line breaks inside the quoted fields
+            assertEquals(1, result.getErrors().size(), "offset " + offset);
+            assertEquals(line, result.getErrors().get(0).line(), "offset " + offset);
+        }
+    }
+
+    @Test
+    public void recordLongerThanAChunk() throws IOException {
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 3 * DestinationCsvReader.CHUNK_SIZE) {
+            description.append("long, \"\"text\"\"\n");
+        }
+        StringBuilder csv = new StringBuilder(HEADER)
+                .append("First,plain,1.0,2.0,Low\n")
+                .append("Long,\"").append(description).append("\",3.0,4.0,Medium\n");
+        for (int i = 0; i < 100_000; i++) {
+            csv.append("Row").append(i).append(",plain,5.0,6.0,High\n");
+        }
+
+        List<Location> locations = new ArrayList<>();
+        DestinationCsvReader.Result result = read(csv.toString(), locations);
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        assertEquals(100_002, result.getLocationCount());
+        assertEquals("Long", locations.get(1).getName());
+        assertEquals(description.toString().replace("\"\"", "\""), locations.get(1).getDescription());
+        assertEquals("Row0", locations.get(2).getName());
+        assertEquals("Row99999", locations.get(locations.size() - 1).getName());
+    }
+
+    @Test
+    public void byteOrderMarkCrlfAndBlankLines() throws IOException {
+        String csv = "\uFEFFName,Description,Latitude,Longitude,Cost\r\n"
+                + "\r\n"
+                + "Bath,Roman baths,51.38,-2.36,Low\r\n"
+                + "\r\n"
+                + "\r\n"
+                + "Oxford,\"Spires\r\nand colleges\",51.75,-1.26, Medium \r\n"
+                + "York,Minster,53.96,-1.08,High";
+
+        List<Location> locations = new ArrayList<>();
+        DestinationCsvReader.Result result = read(csv, locations);
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        assertEquals(List.of("Bath", "Oxford", "York"), namesOf(locations));
+        assertEquals("Roman baths", locations.get(0).getDescription());
+        assertEquals("Spires\r\nand colleges", locations.get(1).getDescription());
+        assertEquals("Medium", locations.get(1).getCost());
+        assertEquals(-1.08, locations.get(2).getLongitude());
+    }
+
+    @Test
+    public void badRowsAreReportedAndTheRestIsRead() throws IOException {
+        String csv = HEADER
+                + "Bath,Roman baths,51.38,-2.36,Low\n"
+                + "Short,row,51.0\n"
+                + "Words,row,north,east,Low\n"
+                + "Far,row,95.0,10.0,Low\n"
+                + "Pricey,row,50.0,10.0,Luxury\n"
+                + "Oxford,Spires,51.75,-1.26,Medium\n";
+
+        List<Location> locations = new ArrayList<>();
+        DestinationCsvReader.Result result = read(csv, locations);
+        assertEquals(List.of("Bath", "Oxford"), namesOf(locations));
+        assertEquals(2, result.getLocationCount());
+        List<DestinationCsvReader.RowError> errors = result.getErrors();
+        assertEquals(4, errors.size(), errors.toString());
+        assertEquals(3, errors.get(0).line());
+        assertTrue(errors.get(0).message().contains("fields"), errors.get(0).message());
+        assertEquals(4, errors.get(1).line());
+        assertTrue(errors.get(1).message().contains("invalid coordinates"), errors.get(1).message());
+        assertEquals(5, errors.get(2).line());
+        assertTrue(errors.get(2).message().contains("out of range"), errors.get(2).message());
+        assertEquals(6, errors.get(3).line());
+        assertTrue(errors.get(3).message().contains("Luxury"), errors.get(3).message());
+    }
+
+    @Test
+    public void unclosedQuoteAtTheEndOfTheFile() throws IOException {
+        String csv = HEADER
+                + "Bath,Roman baths,51.38,-2.36,Low\n"
+                + "Open,\"never closed,51.0,-1.0,Low\n"
+                + "Oxford,Spires,51.75,-1.26,Medium\n";
+
+        List<Location> locations = new ArrayList<>();
+        DestinationCsvReader.Result result = read(csv, locations);
+        // the open quote swallows the rest of the file, which is reported once from the line it starts on
+        assertEquals(List.of("Bath"), namesOf(locations));
+        assertEquals(1, result.getErrors().size());
+        assertEquals(3, result.getErrors().get(0).line());
+        assertEquals("quoted field is not closed", result.getErrors().get(0).message());
+    }
+
+    /**
+     * writes the text to a file and reads it
+     * @param csv
+     * @param locations the list the locations are added to
+     * @return the result of the reader
+     * @throws IOException
+     */
+    private DestinationCsvReader.Result read(String csv, List<Location> locations) throws IOException {
+        Path file = Files.write(directory.resolve("destinations.csv"), csv.getBytes(StandardCharsets.UTF_8));
+        return new DestinationCsvReader().read(file, locations::add);
+    }
+
+    /**
+     * gets the names of the locations
+     * @param locations
+     * @return the names in the same order
+     */
+    private static List<String> namesOf(List<Location> locations) {
+        List<String> names = new ArrayList<>(locations.size());
+        for (Location location : locations) {
+            names.add(location.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,165 @@
+package Travel_App;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Randomized test of the incremental graph updates - after every batch of random route changes the new version of
+ * VersionedWeightedGraph, the DistanceMatrix.update of the previous matrix and the ShortestPathCache.update of the
+ * previous cache must agree with a graph rebuilt from scratch and searched with Dijkstra's algorithm
+ *
+ * @author usman
+ */
+public class GraphUpdateTest {
+
+    //the number of vertices the graph starts with
+    private static final int VERTICES = 40;
+    //the number of edges the graph starts with
+    private static final int EDGES = 160;
+    //the number of batches of changes
+    private static final int BATCHES = 200;
+    //the number of cached trees asked for before each batch (so there are trees to repair)
+    private static final int CACHED_TREES = 8;
+    //how far a repaired distance may be from the rebuilt one (the paths are added up in another order)
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    public void updatesMatchARebuild() {
+        Random random = new Random(24);
+        // the reference graph - the edges of each vertex by target, in vertex order
+        Map<String, Map<String, Double>> reference = new LinkedHashMap<>();
+        for (int i = 0; i < VERTICES; i++) {
+            reference.put("V" + i, new LinkedHashMap<>());
+        }
+        for (int i = 0; i < EDGES; i++) {
+            reference.get("V" + random.nextInt(VERTICES)).put("V" + random.nextInt(VERTICES), weight(random));
+        }
+        int nextName = VERTICES;
+
+        VersionedWeightedGraph versions = new VersionedWeightedGraph(rebuild(reference));
+        DistanceMatrix matrix = DistanceMatrix.build(versions.snapshot());
+        ShortestPathCache trees = new ShortestPathCache(versions.snapshot(), ShortestPathCache.DEFAULT_MAX_BYTES);
+
+        for (int batch = 0; batch < BATCHES; batch++) {
+            CompactWeightedGraph before = versions.snapshot();
+            for (int i = 0; i < CACHED_TREES; i++) {
+                trees.get(random.nextInt(before.vertexCount()));
+            }
+
+            // one to four random changes, made to the versioned graph and the reference alike
+            List<String> names = new ArrayList<>(reference.keySet());
+            int changes = 1 + random.nextInt(4);
+            List<Runnable> steps = new ArrayList<>();
+            for (int i = 0; i < changes; i++) {
+                String from = names.get(random.nextInt(names.size()));
+                String to = names.get(random.nextInt(names.size()));
+                int kind = random.nextInt(20);
+                if (kind < 8) {
+                    // a shorter or longer route (or a new one)
+                    double weight = weight(random);
+                    reference.get(from).put(to, weight);
+                    steps.add(() -> versions.addEdge(from, to, weight));
+                } else if (kind < 12) {
+                    double weight = reference.get(from).containsKey(to) ? reference.get(from).get(to) * 0.5 : weight(random);
+                    reference.get(from).put(to, weight);
+                    steps.add(() -> versions.addEdge(from, to, weight));
+                } else if (kind < 17) {
+                    reference.get(from).remove(to);
+                    steps.add(() -> versions.removeEdge(from, to));
+                } else if (kind < 19) {
+                    String added = "V" + nextName++;
+                    reference.put(added, new LinkedHashMap<>());
+                    reference.get(added).put(to, weight(random));
+                    double weight = reference.get(added).get(to);
+                    steps.add(() -> {
+                        versions.addVertex(added);
+                        versions.addEdge(added, to, weight);
+                    });
+                    names.add(added);
+                } else if (names.size() > 2) {
+                    reference.remove(from);
+                    for (Map<String, Double> edges : reference.values()) {
+                        edges.remove(from);
+                    }
+                    names.remove(from);
+                    steps.add(() -> versions.removeVertex(from));
+                    // later changes of this batch must not use the removed vertex
+                    break;
+                }
+            }
+            GraphUpdate update = versions.update(graph -> steps.forEach(Runnable::run));
+
+            CompactWeightedGraph changed = versions.snapshot();
+            CompactWeightedGraph rebuilt = rebuild(reference);
+            assertEquals(update.graph(), changed);
+            assertEquals(rebuilt.vertexCount(), changed.vertexCount(), "batch " + batch);
+            assertEquals(rebuilt.edgeCount(), changed.edgeCount(), "batch " + batch);
+
+            DistanceMatrix updatedMatrix = matrix.update(update);
+            matrix = updatedMatrix != null ? updatedMatrix : DistanceMatrix.build(changed);
+            trees = trees.update(update);
+            for (int source = 0; source < rebuilt.vertexCount(); source++) {
+                DistanceView expected = rebuilt.shortestDistances(source);
+                String sourceName = rebuilt.nameOf(source);
+                DistanceView tree = trees.get(changed.idOf(sourceName));
+                for (int target = 0; target < rebuilt.vertexCount(); target++) {
+                    String targetName = rebuilt.nameOf(target);
+                    String pair = "batch " + batch + ": " + sourceName + " to " + targetName;
+                    double distance = expected.distanceTo(target);
+                    assertClose(distance, changed.shortestDistances(sourceName).distanceTo(targetName), pair + " (graph)");
+                    assertClose(distance, matrix.distance(sourceName, targetName), pair + " (matrix)");
+                    assertClose(distance, tree.distanceTo(targetName), pair + " (cache)");
+                }
+            }
+        }
+    }
+
+    /**
+     * checks a distance is the expected one (both infinite if the target cannot be reached)
+     * @param expected
+     * @param actual
+     * @param message
+     */
+    private static void assertClose(double expected, double actual, String message) {
+        if (expected == Double.POSITIVE_INFINITY) {
+            assertEquals(expected, actual, message);
+        } else {
+            assertTrue(Math.abs(expected - actual) <= TOLERANCE * Math.max(1, expected), message + ": " + expected + " != " + actual);
+        }
+    }
+
+    /**
+     * builds a graph from the reference edges
+     * @param reference
+     * @return the graph
+     */
+    private static CompactWeightedGraph rebuild(Map<String, Map<String, Double>> reference) {
+        CompactWeightedGraph.Builder builder = new CompactWeightedGraph.Builder();
+        for (String vertex : reference.keySet()) {
+            builder.addVertex(vertex);
+        }
+        for (Map.Entry<String, Map<String, Double>> vertex : reference.entrySet()) {
+            for (Map.Entry<String, Double> edge : vertex.getValue().entrySet()) {
+                builder.addEdge(builder.addVertex(vertex.getKey()), builder.addVertex(edge.getKey()), edge.getValue());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * picks a random route distance
+     * @param random
+     * @return from 1 to 100 km
+     */
+    private static double weight(Random random) {
+        return 1 + random.nextDouble() * 99;
+    }
+}
@@ -0,0 +1,200 @@
+package Travel_App;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Stress test of one MyController shared by many threads - every thread calls the four Controller queries
+ * (listDestinations, listNearbyDestinations, listDistances and listShortestPath) while another thread keeps
+ * reloading the destinations, and every answer must match the answer of a controller used by one thread
+ *
+ * @author usman
+ */
+public class MyControllerConcurrencyTest {
+
+    //the number of destinations in the test file
+    private static final int DESTINATIONS = 120;
+    //the number of threads calling the queries
+    private static final int THREADS = 12;
+    //the number of queries each thread makes
+    private static final int CALLS_PER_THREAD = 150;
+    //the number of different queries of each kind
+    private static final int QUERIES = 16;
+
+    @TempDir
+    Path directory;
+
+    //the standard output of the JVM (listDistances prints a message each time it writes its file, which is hidden during the test)
+    private PrintStream standardOut;
+
+    @BeforeEach
+    public void hideOutput() {
+        standardOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    public void restoreOutput() {
+        System.setOut(standardOut);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.MINUTES)
+    public void queriesFromManyThreadsMatchOneThread() throws Exception {
+        Path csvFile = writeDestinations(directory.resolve("destinations.csv"));
+        Random random = new Random(42);
+        List<Query> queries = queries(random);
+
+        // the answers of a controller that only one thread uses
+        MyController reference = new MyController(csvFile.toString());
+        String[] expected = new String[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            expected[i] = queries.get(i).ask(reference);
+        }
+
+        // a new controller, so the threads also race to build its graph
+        MyController shared = new MyController(csvFile.toString());
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            List<Future<?>> callers = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                long seed = random.nextLong();
+                callers.add(threads.submit(() -> {
+                    Random order = new Random(seed);
+                    start.await();
+                    for (int call = 0; call < CALLS_PER_THREAD; call++) {
+                        // every thread calls each of the four queries in turn
+                        int query = (call % 4) * QUERIES + order.nextInt(QUERIES);
+                        assertEquals(expected[query], queries.get(query).ask(shared), queries.get(query).toString());
+                    }
+                    return null;
+                }));
+            }
+            Future<?> reloader = threads.submit(() -> {
+                start.await();
+                // publishes new copies of the same destinations while the queries run
+                while (!done.get()) {
+                    shared.reload();
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> caller : callers) {
+                caller.get();
+            }
+            done.set(true);
+            reloader.get();
+        } finally {
+            done.set(true);
+            threads.shutdownNow();
+        }
+    }
+
+    /**
+     * creates the queries - QUERIES of each of the four kinds, in the order listDestinations, listNearbyDestinations,
+     * listDistances and listShortestPath
+     * @param random
+     * @return the queries
+     */
+    private static List<Query> queries(Random random) {
+        List<Query> queries = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            String destination = i == 0 ? "all" : "Place" + random.nextInt(DESTINATIONS);
+            queries.add(new Query("listDestinations " + destination, controller -> controller.listDestinations(destination)));
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            double latitude = 50 + random.nextDouble() * 8.6;
+            double longitude = -8 + random.nextDouble() * 10;
+            int distance = 20 + random.nextInt(200);
+            queries.add(new Query("listNearbyDestinations " + latitude + ", " + longitude + ", " + distance,
+                    controller -> controller.listNearbyDestinations(latitude, longitude, distance)));
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add(new Query("listDistances", Controller::listDistances));
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            String[] cities = new String[2 + random.nextInt(4)];
+            for (int j = 0; j < cities.length; j++) {
+                cities[j] = "Place" + random.nextInt(DESTINATIONS);
+            }
+            queries.add(new Query("listShortestPath " + String.join(", ", cities), controller -> controller.listShortestPath(cities)));
+        }
+        return queries;
+    }
+
+    /**
+     * writes random destinations (spread over a box the size of Great Britain) to a CSV file
+     * @param file
+     * @return the file
+     * @throws IOException
+     */
+    private static Path writeDestinations(Path file) throws IOException {
+        Random random = new Random(7);
+        String[] costs = {"Low", "Medium", "High"};
+        StringBuilder csv = new StringBuilder("Name,Description,Latitude,Longitude,Cost\n");
+        for (int i = 0; i < DESTINATIONS; i++) {
+            csv.append("Place").append(i).append(",\"Destination ").append(i).append(", for testing\",")
+                    .append(50 + random.nextDouble() * 8.6).append(',').append(-8 + random.nextDouble() * 10).append(',')
+                    .append(costs[random.nextInt(costs.length)]).append('\n');
+        }
+        return Files.writeString(file, csv, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Query is one call of a Controller method
+     * @param description what the query asks (shown if its answer is wrong)
+     * @param call makes the call
+     */
+    private record Query(String description, Call call) {
+
+        /**
+         * asks a controller the query
+         * @param controller
+         * @return the answer
+         */
+        String ask(Controller controller) {
+            return call.ask(controller);
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * Call interface is a call of a Controller method that returns text
+     */
+    private interface Call {
+        /**
+         * makes the call
+         * @param controller
+         * @return the text it returned
+         */
+        String ask(Controller controller);
+    }
+}
@@ -0,0 +1,125 @@
+package Travel_App;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the accuracy of the Points distance kernel against the Haversine formula of calculateDistance
+ *
+ * @author usman
+ */
+public class UtilityTest {
+
+	// the number of random locations of each test
+	private static final int SIZE = 5000;
+	// how far the fast distances may be from calculateDistance (km)
+	private static final double TOLERANCE_KM = 1e-6;
+	// near the antipode both formulas lose precision (a sine or cosine close to 1 is taken apart again)
+	private static final double ANTIPODAL_TOLERANCE_KM = 1e-3;
+
+	@Test
+	public void exactDistanceMatchesHaversine() {
+		Random random = new Random(42);
+		double[][] locations = randomLocations(random, SIZE);
+		Utility.Points points = new Utility.Points(locations[0], locations[1], SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			int j = random.nextInt(SIZE);
+			double expected = Utility.calculateDistance(locations[0][i], locations[1][i], locations[0][j], locations[1][j]);
+			double tolerance = expected > 19_000 ? ANTIPODAL_TOLERANCE_KM : TOLERANCE_KM;
+			assertEquals(expected, points.distance(i, j), tolerance, "distance " + i + " to " + j);
+		}
+	}
+
+	@Test
+	public void exactDistanceMatchesHaversineForCloseLocations() {
+		Random random = new Random(7);
+		double[] latitudes = new double[2 * SIZE];
+		double[] longitudes = new double[2 * SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			latitudes[i] = -80 + random.nextDouble() * 160;
+			longitudes[i] = -180 + random.nextDouble() * 360;
+			// a few metres to a few kilometres away
+			double scale = Math.pow(10, -4 - 2 * random.nextDouble());
+			latitudes[SIZE + i] = latitudes[i] + random.nextGaussian() * scale * 100;
+			longitudes[SIZE + i] = longitudes[i] + random.nextGaussian() * scale * 100;
+		}
+		Utility.Points points = new Utility.Points(latitudes, longitudes, 2 * SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			double expected = Utility.calculateDistance(latitudes[i], longitudes[i], latitudes[SIZE + i], longitudes[SIZE + i]);
+			assertEquals(expected, points.distance(i, SIZE + i), TOLERANCE_KM, "distance " + i);
+			assertEquals(0.0, points.distance(i, i), 0.0);
+		}
+	}
+
+	@Test
+	public void approximateDistanceIsNeverLongerAndWithinItsBound() {
+		Random random = new Random(3);
+		double[][] locations = randomLocations(random, SIZE);
+		Utility.Points points = new Utility.Points(locations[0], locations[1], SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			int j = random.nextInt(SIZE);
+			double exact = points.distance(i, j);
+			double approximate = points.approximateDistance(i, j);
+			assertTrue(approximate <= exact * (1 + 1e-12), "approximate distance is longer: " + approximate + " > " + exact);
+			if (exact > 0) {
+				double bound = Math.pow(exact / Utility.EARTH_RADIUS_KM, 2) / 24;
+				assertTrue((exact - approximate) / exact <= bound + 1e-12, "relative error above its bound at " + exact + " km");
+			}
+		}
+	}
+
+	@Test
+	public void batchDistancesMatchSingleDistances() {
+		Random random = new Random(11);
+		double[][] locations = randomLocations(random, SIZE);
+		Utility.Points points = new Utility.Points(locations[0], locations[1], SIZE);
+		double[] row = new double[SIZE];
+		double[] offsetRow = new double[SIZE + 3];
+		double[] fromLocation = new double[SIZE];
+		int[] ids = {0, 17, SIZE / 2, SIZE - 1};
+		double[] someDistances = new double[ids.length];
+		for (int origin = 0; origin < SIZE; origin += 499) {
+			points.distances(origin, row);
+			points.distances(origin, offsetRow, 3);
+			points.distances(locations[0][origin], locations[1][origin], fromLocation);
+			points.distances(locations[0][origin], locations[1][origin], ids, someDistances);
+			for (int j = 0; j < SIZE; j++) {
+				double expected = points.distance(origin, j);
+				assertEquals(expected, row[j], 0.0);
+				assertEquals(expected, offsetRow[3 + j], 0.0);
+				assertEquals(expected, fromLocation[j], 0.0);
+			}
+			for (int k = 0; k < ids.length; k++) {
+				assertEquals(points.distance(origin, ids[k]), someDistances[k], 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void distanceToChordIsTheInverseOfChordToDistance() {
+		for (double distance = 0.001; distance < Math.PI * Utility.EARTH_RADIUS_KM; distance *= 1.5) {
+			assertEquals(distance, Utility.chordToDistance(Utility.distanceToChord(distance)), distance * 1e-9);
+		}
+		assertEquals(4.0, Utility.distanceToChord(Math.PI * Utility.EARTH_RADIUS_KM), 0.0);
+	}
+
+	/**
+	 * creates locations spread evenly over the globe
+	 * @param random
+	 * @param size
+	 * @return the latitudes and the longitudes
+	 */
+	private static double[][] randomLocations(Random random, int size) {
+		double[] latitudes = new double[size];
+		double[] longitudes = new double[size];
+		for (int i = 0; i < size; i++) {
+			latitudes[i] = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+			longitudes[i] = -180 + random.nextDouble() * 360;
+		}
+		return new double[][] {latitudes, longitudes};
+	}
+}